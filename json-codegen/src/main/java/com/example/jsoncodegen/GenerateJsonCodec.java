@@ -0,0 +1,15 @@
+package com.example.jsoncodegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a {@link JsonCodec} named after the annotated class plus "JsonCodec" in its package, see
+ * {@link JsonCodecProcessor} for the supported classes
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateJsonCodec {
+}
@@ -0,0 +1,20 @@
+package com.example.jsoncodegen;
+
+/**
+ * Reflection-free JSON binding of one class, generated for classes annotated with {@link GenerateJsonCodec}
+ */
+public interface JsonCodec<T> {
+
+    Class<T> type();
+
+    /**
+     * @param value value to write, may be null
+     */
+    void write(T value, JsonWriter writer);
+
+    /**
+     * @return the value read, null for a JSON null
+     * @throws JsonCodecException if the input is not JSON or does not match the class
+     */
+    T read(JsonReader reader);
+}
@@ -0,0 +1,15 @@
+package com.example.jsoncodegen;
+
+/**
+ * Thrown when a {@link JsonReader} reads malformed JSON or a value that does not match the expected type
+ */
+public class JsonCodecException extends RuntimeException {
+
+    public JsonCodecException(String message) {
+        super(message);
+    }
+
+    public JsonCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
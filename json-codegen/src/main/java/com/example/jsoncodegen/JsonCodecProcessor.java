@@ -0,0 +1,282 @@
+package com.example.jsoncodegen;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@link JsonCodec} for each class annotated with {@link GenerateJsonCodec}.
+ * <p>
+ * Like Jackson's defaults, the properties are those of the public getters, named after them and written in
+ * the order of their fields, null values are written, and unknown fields are skipped when reading. A property
+ * is read if it has a public setter, which requires a public no-argument constructor. Supported property types
+ * are String, UUID, int, long and boolean and their wrappers; classes with a superclass other than Object
+ * are not supported.
+ */
+@SupportedAnnotationTypes("com.example.jsoncodegen.GenerateJsonCodec")
+public class JsonCodecProcessor extends AbstractProcessor {
+
+    private enum Kind {
+        STRING("java.lang.String", "writeString", "readString"),
+        UUID("java.util.UUID", "writeUuid", "readUuid"),
+        INT("int", "writeInt", "readInt"),
+        INTEGER("java.lang.Integer", "writeInt", "readInteger"),
+        LONG("long", "writeLong", "readLong"),
+        LONG_VALUE("java.lang.Long", "writeLong", "readLongValue"),
+        BOOLEAN("boolean", "writeBoolean", "readBoolean"),
+        BOOLEAN_VALUE("java.lang.Boolean", "writeBoolean", "readBooleanValue");
+
+        final String typeName;
+        final String writeMethod;
+        final String readMethod;
+
+        Kind(String typeName, String writeMethod, String readMethod) {
+            this.typeName = typeName;
+            this.writeMethod = writeMethod;
+            this.readMethod = readMethod;
+        }
+    }
+
+    private record Property(String name, Kind kind, String getter, String setter) {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateJsonCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "@GenerateJsonCodec requires a concrete class");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (type.getNestingKind().isNested()) {
+                error(element, "@GenerateJsonCodec requires a top-level class");
+                continue;
+            }
+            if (!type.getSuperclass().toString().equals("java.lang.Object")) {
+                error(element, "@GenerateJsonCodec does not support superclasses");
+                continue;
+            }
+            List<Property> properties = properties(type);
+            if (properties == null) {
+                continue;
+            }
+            boolean readable = properties.stream().anyMatch(property -> property.setter() != null);
+            if (readable && !hasPublicNoArgConstructor(type)) {
+                error(element, "@GenerateJsonCodec requires a public no-argument constructor to read setters");
+                continue;
+            }
+            try {
+                generate(type, properties, readable);
+            } catch (IOException e) {
+                error(element, "Failed to generate JSON codec: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return properties in the order of their fields, then of their getters, or null if one is not supported
+     */
+    private List<Property> properties(TypeElement type) {
+        Map<String, ExecutableElement> getters = new LinkedHashMap<>();
+        Map<String, ExecutableElement> setters = new HashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            if (method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID) {
+                if (name.startsWith("get") && name.length() > 3) {
+                    getters.putIfAbsent(propertyName(name.substring(3)), method);
+                } else if (name.startsWith("is") && name.length() > 2 && method.getReturnType().getKind() == TypeKind.BOOLEAN) {
+                    getters.putIfAbsent(propertyName(name.substring(2)), method);
+                }
+            } else if (method.getParameters().size() == 1 && name.startsWith("set") && name.length() > 3) {
+                setters.put(propertyName(name.substring(3)), method);
+            }
+        }
+
+        List<String> names = new ArrayList<>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            String name = field.getSimpleName().toString();
+            if (getters.containsKey(name)) {
+                names.add(name);
+            }
+        }
+        getters.keySet().stream().filter(name -> !names.contains(name)).forEach(names::add);
+
+        List<Property> properties = new ArrayList<>(names.size());
+        boolean supported = true;
+        for (String name : names) {
+            ExecutableElement getter = getters.get(name);
+            Kind kind = kind(getter.getReturnType());
+            if (kind == null) {
+                error(getter, "@GenerateJsonCodec does not support properties of type " + getter.getReturnType());
+                supported = false;
+                continue;
+            }
+            ExecutableElement setter = setters.get(name);
+            if (setter != null && !processingEnv.getTypeUtils().isSameType(
+                    setter.getParameters().get(0).asType(), getter.getReturnType())) {
+                setter = null;
+            }
+            properties.add(new Property(name, kind, getter.getSimpleName().toString(),
+                    setter == null ? null : setter.getSimpleName().toString()));
+        }
+        return supported ? properties : null;
+    }
+
+    private static Kind kind(TypeMirror type) {
+        String name = type.toString();
+        for (Kind kind : Kind.values()) {
+            if (kind.typeName.equals(name)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Property name of a getter or setter without its prefix, with leading upper case letters lower cased
+     * like Jackson, e.g. "firstName" for "FirstName" and "url" for "URL"
+     */
+    static String propertyName(String suffix) {
+        int upper = 0;
+        while (upper < suffix.length() && Character.isUpperCase(suffix.charAt(upper))) {
+            upper++;
+        }
+        return suffix.substring(0, upper).toLowerCase() + suffix.substring(upper);
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement type) {
+        return ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty()
+                        && constructor.getModifiers().contains(Modifier.PUBLIC));
+    }
+
+    private void generate(TypeElement type, List<Property> properties, boolean readable) throws IOException {
+        String packageName = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String typeName = type.getSimpleName().toString();
+        String codecName = typeName + "JsonCodec";
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.example.jsoncodegen.JsonCodec;\n")
+                .append("import com.example.jsoncodegen.JsonReader;\n")
+                .append("import com.example.jsoncodegen.JsonWriter;\n\n")
+                .append("import javax.annotation.processing.Generated;\n\n")
+                .append("/**\n")
+                .append(" * JSON codec for {@link ").append(typeName).append("}, generated from its getters and setters\n")
+                .append(" */\n")
+                .append("@Generated(\"").append(JsonCodecProcessor.class.getName()).append("\")\n")
+                .append("public final class ").append(codecName).append(" implements JsonCodec<").append(typeName).append("> {\n\n");
+
+        for (int i = 0; i < properties.size(); i++) {
+            source.append("    private static final byte[] ").append(constantName(properties.get(i)))
+                    .append(" = JsonWriter.name(\"").append(properties.get(i).name()).append("\", ")
+                    .append(i == 0).append(");\n");
+        }
+        List<Property> settable = properties.stream().filter(property -> property.setter() != null).toList();
+        if (!settable.isEmpty()) {
+            source.append("    private static final JsonReader.Names NAMES = JsonReader.names(");
+            for (int i = 0; i < settable.size(); i++) {
+                source.append(i == 0 ? "" : ", ").append('"').append(settable.get(i).name()).append('"');
+            }
+            source.append(");\n");
+        }
+
+        source.append("\n    @Override\n")
+                .append("    public Class<").append(typeName).append("> type() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(").append(typeName).append(" value, JsonWriter writer) {\n")
+                .append("        if (value == null) {\n")
+                .append("            writer.writeNull();\n")
+                .append("            return;\n")
+                .append("        }\n")
+                .append("        writer.beginObject();\n");
+        for (Property property : properties) {
+            source.append("        writer.writeRaw(").append(constantName(property)).append(");\n")
+                    .append("        writer.").append(property.kind().writeMethod)
+                    .append("(value.").append(property.getter()).append("());\n");
+        }
+        source.append("        writer.endObject();\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(typeName).append(" read(JsonReader reader) {\n");
+        if (!readable) {
+            source.append("        throw new UnsupportedOperationException(\"").append(typeName)
+                    .append(" has no setters\");\n");
+        } else {
+            source.append("        if (reader.readNull()) {\n")
+                    .append("            return null;\n")
+                    .append("        }\n")
+                    .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                    .append("        reader.beginObject();\n")
+                    .append("        while (reader.hasNextField()) {\n")
+                    .append("            switch (reader.readName(NAMES)) {\n");
+            for (int i = 0; i < settable.size(); i++) {
+                Property property = settable.get(i);
+                source.append("                case ").append(i).append(" -> value.").append(property.setter())
+                        .append("(reader.").append(property.kind().readMethod).append("());\n");
+            }
+            source.append("                default -> reader.skipValue();\n")
+                    .append("            }\n")
+                    .append("        }\n")
+                    .append("        return value;\n");
+        }
+        source.append("    }\n")
+                .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    /**
+     * e.g. FIELD_FIRST_NAME for firstName
+     */
+    private static String constantName(Property property) {
+        StringBuilder name = new StringBuilder("FIELD_");
+        for (char c : property.name().toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                name.append('_');
+            }
+            name.append(Character.toUpperCase(c));
+        }
+        return name.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
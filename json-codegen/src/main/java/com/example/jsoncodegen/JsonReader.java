@@ -0,0 +1,504 @@
+package com.example.jsoncodegen;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Reads JSON from UTF-8 bytes, for generated codecs.
+ * <p>
+ * Scalars are coerced like Jackson's defaults: numbers and booleans are read as text where strings are expected,
+ * strings are read as numbers and booleans, floats are truncated to integers, and null and empty strings
+ * are read as null, or zero and false for primitives. Not thread safe.
+ */
+public final class JsonReader {
+
+    /**
+     * Field names of one class, encoded once to compare them with the input without decoding it
+     */
+    public static final class Names {
+        private final String[] names;
+        private final byte[][] encoded;
+
+        private Names(String[] names) {
+            this.names = names.clone();
+            this.encoded = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                encoded[i] = names[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private final byte[] input;
+    private final int limit;
+    private int position;
+    // whether the next field of the current object is preceded by a comma
+    private boolean afterField;
+
+    public JsonReader(byte[] input) {
+        this(input, 0, input.length);
+    }
+
+    public JsonReader(byte[] input, int offset, int length) {
+        this.input = input;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public static Names names(String... names) {
+        return new Names(names);
+    }
+
+    /**
+     * @return whether the next value is null, which is then consumed
+     */
+    public boolean readNull() {
+        skipWhitespace();
+        if (position < limit && input[position] == 'n') {
+            expectLiteral("null");
+            return true;
+        }
+        return false;
+    }
+
+    public void beginObject() {
+        expect('{');
+        afterField = false;
+    }
+
+    /**
+     * @return whether another field of the current object follows, otherwise the end of the object is consumed
+     */
+    public boolean hasNextField() {
+        skipWhitespace();
+        if (position < limit && input[position] == '}') {
+            position++;
+            return false;
+        }
+        if (afterField) {
+            expect(',');
+        }
+        afterField = true;
+        return true;
+    }
+
+    /**
+     * Read a field name and the colon after it
+     * @return index of the name in names, -1 if it is none of them
+     */
+    public int readName(Names names) {
+        expect('"');
+        int start = position;
+        int end = start;
+        while (end < limit && input[end] != '"' && input[end] != '\\') {
+            end++;
+        }
+        int index = -1;
+        if (end < limit && input[end] == '"') {
+            position = end + 1;
+            for (int i = 0; i < names.encoded.length; i++) {
+                if (Arrays.equals(input, start, end, names.encoded[i], 0, names.encoded[i].length)) {
+                    index = i;
+                    break;
+                }
+            }
+        } else {
+            position = start - 1;
+            String name = readString();
+            for (int i = 0; i < names.names.length; i++) {
+                if (names.names[i].equals(name)) {
+                    index = i;
+                    break;
+                }
+            }
+        }
+        expect(':');
+        return index;
+    }
+
+    public String readString() {
+        skipWhitespace();
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        byte b = input[position];
+        if (b == '"') {
+            return decodeString();
+        }
+        if (b == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (b == 't' || b == 'f' || b == '-' || b >= '0' && b <= '9') {
+            int start = position;
+            skipValue();
+            return new String(input, start, position - start, StandardCharsets.US_ASCII);
+        }
+        throw error("Expected a string");
+    }
+
+    public UUID readUuid() {
+        int start = position;
+        String value = readString();
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        if (value.length() != 36) {
+            position = start;
+            throw error("Expected a UUID");
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            position = start;
+            throw error("Expected a UUID");
+        }
+    }
+
+    public Integer readInteger() {
+        Long value = readLongValue();
+        if (value == null) {
+            return null;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Number out of int range");
+        }
+        return value.intValue();
+    }
+
+    public int readInt() {
+        Integer value = readInteger();
+        return value == null ? 0 : value;
+    }
+
+    public Long readLongValue() {
+        skipWhitespace();
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        String text;
+        if (input[position] == '"') {
+            text = decodeString().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+        } else if (input[position] == 'n') {
+            expectLiteral("null");
+            return null;
+        } else {
+            int start = position;
+            skipNumber();
+            text = new String(input, start, position - start, StandardCharsets.US_ASCII);
+        }
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                double value = Double.parseDouble(text);
+                if (value < Long.MIN_VALUE || value > Long.MAX_VALUE) {
+                    throw error("Number out of long range");
+                }
+                return (long) value;
+            } catch (NumberFormatException notANumber) {
+                throw error("Expected a number but got \"" + text + "\"");
+            }
+        }
+    }
+
+    public long readLong() {
+        Long value = readLongValue();
+        return value == null ? 0 : value;
+    }
+
+    public Boolean readBooleanValue() {
+        skipWhitespace();
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        byte b = input[position];
+        if (b == 't') {
+            expectLiteral("true");
+            return Boolean.TRUE;
+        }
+        if (b == 'f') {
+            expectLiteral("false");
+            return Boolean.FALSE;
+        }
+        if (b == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (b == '"') {
+            String text = decodeString().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            if (text.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            }
+            if (text.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            throw error("Expected a boolean but got \"" + text + "\"");
+        }
+        if (b == '-' || b >= '0' && b <= '9') {
+            Long value = readLongValue();
+            return value != 0;
+        }
+        throw error("Expected a boolean");
+    }
+
+    public boolean readBoolean() {
+        Boolean value = readBooleanValue();
+        return value != null && value;
+    }
+
+    /**
+     * Skip the next value, e.g. of an unknown field
+     */
+    public void skipValue() {
+        skipWhitespace();
+        if (position >= limit) {
+            throw error("Unexpected end of input");
+        }
+        switch (input[position]) {
+            case '"' -> skipString();
+            case 't' -> expectLiteral("true");
+            case 'f' -> expectLiteral("false");
+            case 'n' -> expectLiteral("null");
+            case '{' -> {
+                position++;
+                boolean first = true;
+                while (true) {
+                    skipWhitespace();
+                    if (position < limit && input[position] == '}') {
+                        position++;
+                        return;
+                    }
+                    if (!first) {
+                        expect(',');
+                        skipWhitespace();
+                    }
+                    first = false;
+                    if (position >= limit || input[position] != '"') {
+                        throw error("Expected a field name");
+                    }
+                    skipString();
+                    expect(':');
+                    skipValue();
+                }
+            }
+            case '[' -> {
+                position++;
+                boolean first = true;
+                while (true) {
+                    skipWhitespace();
+                    if (position < limit && input[position] == ']') {
+                        position++;
+                        return;
+                    }
+                    if (!first) {
+                        expect(',');
+                    }
+                    first = false;
+                    skipValue();
+                }
+            }
+            default -> skipNumber();
+        }
+    }
+
+    private String decodeString() {
+        int start = ++position;
+        int end = start;
+        boolean ascii = true;
+        while (end < limit) {
+            byte b = input[end];
+            if (b == '"' || b == '\\') {
+                break;
+            }
+            if (b >= 0 && b < 0x20) {
+                position = end;
+                throw error("Unescaped control character in string");
+            }
+            ascii &= b >= 0;
+            end++;
+        }
+        if (end >= limit) {
+            throw error("Unterminated string");
+        }
+        if (input[end] == '"') {
+            position = end + 1;
+            return new String(input, start, end - start, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+        return decodeEscapedString(start);
+    }
+
+    private String decodeEscapedString(int start) {
+        position = start - 1;
+        skipString();
+        // never more characters than bytes
+        char[] chars = new char[position - start];
+        int length = 0;
+        position = start;
+        while (true) {
+            if (position >= limit) {
+                throw error("Unterminated string");
+            }
+            int b = input[position++];
+            if (b == '"') {
+                return new String(chars, 0, length);
+            }
+            if (b >= 0 && b < 0x20) {
+                position--;
+                throw error("Unescaped control character in string");
+            }
+            if (b < 0) {
+                length = decodeUtf8(b, chars, length);
+                continue;
+            }
+            if (b != '\\') {
+                chars[length++] = (char) b;
+                continue;
+            }
+            if (position >= limit) {
+                throw error("Unterminated string");
+            }
+            byte escape = input[position++];
+            switch (escape) {
+                case '"', '\\', '/' -> chars[length++] = (char) escape;
+                case 'b' -> chars[length++] = '\b';
+                case 't' -> chars[length++] = '\t';
+                case 'n' -> chars[length++] = '\n';
+                case 'f' -> chars[length++] = '\f';
+                case 'r' -> chars[length++] = '\r';
+                // surrogates are kept as escaped, paired or not, like Jackson
+                case 'u' -> chars[length++] = (char) readHex();
+                default -> {
+                    position--;
+                    throw error("Invalid escape");
+                }
+            }
+        }
+    }
+
+    /**
+     * Decode the UTF-8 sequence starting with lead, whose following bytes are at position
+     */
+    private int decodeUtf8(int lead, char[] chars, int length) {
+        int following;
+        int codePoint;
+        if ((lead & 0xE0) == 0xC0) {
+            following = 1;
+            codePoint = lead & 0x1F;
+        } else if ((lead & 0xF0) == 0xE0) {
+            following = 2;
+            codePoint = lead & 0x0F;
+        } else if ((lead & 0xF8) == 0xF0) {
+            following = 3;
+            codePoint = lead & 0x07;
+        } else {
+            position--;
+            throw error("Invalid UTF-8");
+        }
+        for (int i = 0; i < following; i++) {
+            if (position >= limit || (input[position] & 0xC0) != 0x80) {
+                throw error("Invalid UTF-8");
+            }
+            codePoint = codePoint << 6 | input[position++] & 0x3F;
+        }
+        return length + Character.toChars(codePoint, chars, length);
+    }
+
+    private int readHex() {
+        if (position + 4 > limit) {
+            throw error("Unterminated string");
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(input[position++], 16);
+            if (digit < 0) {
+                position--;
+                throw error("Invalid unicode escape");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    private void skipString() {
+        position++;
+        while (position < limit) {
+            byte b = input[position++];
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                position++;
+            }
+        }
+        throw error("Unterminated string");
+    }
+
+    private void skipNumber() {
+        int start = position;
+        if (position < limit && input[position] == '-') {
+            position++;
+        }
+        int digits = skipDigits();
+        if (position < limit && input[position] == '.') {
+            position++;
+            digits = Math.min(digits, skipDigits());
+        }
+        if (position < limit && (input[position] == 'e' || input[position] == 'E')) {
+            position++;
+            if (position < limit && (input[position] == '+' || input[position] == '-')) {
+                position++;
+            }
+            digits = Math.min(digits, skipDigits());
+        }
+        if (digits == 0) {
+            position = start;
+            throw error("Expected a value");
+        }
+    }
+
+    private int skipDigits() {
+        int start = position;
+        while (position < limit && input[position] >= '0' && input[position] <= '9') {
+            position++;
+        }
+        return position - start;
+    }
+
+    private void expect(char c) {
+        skipWhitespace();
+        if (position >= limit || input[position] != c) {
+            throw error("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    private void expectLiteral(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (position >= limit || input[position] != literal.charAt(i)) {
+                throw error("Expected " + literal);
+            }
+            position++;
+        }
+    }
+
+    private void skipWhitespace() {
+        while (position < limit) {
+            byte b = input[position];
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private JsonCodecException error(String message) {
+        return new JsonCodecException(message + " at offset " + position);
+    }
+}
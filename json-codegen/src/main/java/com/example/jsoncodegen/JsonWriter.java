@@ -0,0 +1,254 @@
+package com.example.jsoncodegen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Writes JSON as UTF-8 into a growable byte array, formatted like Jackson's default ObjectMapper:
+ * no whitespace, and strings escaped the same way, so that codecs produce the same bytes.
+ * Not thread safe; {@link #reset()} allows reusing the buffer.
+ */
+public final class JsonWriter {
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOWER_HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UPPER_HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    // per ASCII character: 0 if written as is, 'u' for \\u00XX, otherwise the character after the backslash
+    private static final byte[] ESCAPES = new byte[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = 'u';
+        }
+        ESCAPES['"'] = '"';
+        ESCAPES['\\'] = '\\';
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+    }
+
+    private byte[] buffer;
+    private int size;
+
+    public JsonWriter() {
+        this(256);
+    }
+
+    public JsonWriter(int capacity) {
+        this.buffer = new byte[Math.max(capacity, 16)];
+    }
+
+    /**
+     * Encode a field name once, for {@link #writeRaw} in generated codecs
+     * @param first whether the field is written first in its object, otherwise the name starts with a comma
+     * @return the bytes of the quoted name and colon
+     */
+    public static byte[] name(String name, boolean first) {
+        JsonWriter writer = new JsonWriter(name.length() + 8);
+        if (!first) {
+            writer.writeByte(',');
+        }
+        writer.writeString(name);
+        writer.writeByte(':');
+        return writer.toByteArray();
+    }
+
+    public void beginObject() {
+        writeByte('{');
+    }
+
+    public void endObject() {
+        writeByte('}');
+    }
+
+    public void beginArray() {
+        writeByte('[');
+    }
+
+    public void endArray() {
+        writeByte(']');
+    }
+
+    public void writeComma() {
+        writeByte(',');
+    }
+
+    public void writeRaw(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public void writeNull() {
+        writeRaw(NULL);
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        int length = value.length();
+        // at most 6 bytes per character, for \\u00XX
+        ensureCapacity(6 * length + 2);
+        byte[] bytes = buffer;
+        int position = size;
+        bytes[position++] = '"';
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                byte escape = ESCAPES[c];
+                if (escape == 0) {
+                    bytes[position++] = (byte) c;
+                } else if (escape == 'u') {
+                    bytes[position++] = '\\';
+                    bytes[position++] = 'u';
+                    bytes[position++] = '0';
+                    bytes[position++] = '0';
+                    bytes[position++] = UPPER_HEX[c >> 4];
+                    bytes[position++] = UPPER_HEX[c & 0xF];
+                } else {
+                    bytes[position++] = '\\';
+                    bytes[position++] = escape;
+                }
+            } else if (c < 0x800) {
+                bytes[position++] = (byte) (0xC0 | c >> 6);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // Jackson escapes the halves of characters outside the BMP instead of encoding them
+                bytes[position++] = '\\';
+                bytes[position++] = 'u';
+                bytes[position++] = UPPER_HEX[c >> 12];
+                bytes[position++] = UPPER_HEX[c >> 8 & 0xF];
+                bytes[position++] = UPPER_HEX[c >> 4 & 0xF];
+                bytes[position++] = UPPER_HEX[c & 0xF];
+            } else {
+                bytes[position++] = (byte) (0xE0 | c >> 12);
+                bytes[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        bytes[position++] = '"';
+        size = position;
+    }
+
+    public void writeUuid(UUID value) {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        ensureCapacity(38);
+        buffer[size++] = '"';
+        writeHex(value.getMostSignificantBits() >>> 32, 8);
+        buffer[size++] = '-';
+        writeHex(value.getMostSignificantBits() >>> 16, 4);
+        buffer[size++] = '-';
+        writeHex(value.getMostSignificantBits(), 4);
+        buffer[size++] = '-';
+        writeHex(value.getLeastSignificantBits() >>> 48, 4);
+        buffer[size++] = '-';
+        writeHex(value.getLeastSignificantBits(), 12);
+        buffer[size++] = '"';
+    }
+
+    public void writeInt(int value) {
+        writeLong(value);
+    }
+
+    public void writeInt(Integer value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeLong(value);
+        }
+    }
+
+    public void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeRaw(MIN_LONG);
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int position = size + digits;
+        size = position;
+        do {
+            buffer[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+    }
+
+    public void writeLong(Long value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeLong(value.longValue());
+        }
+    }
+
+    public void writeBoolean(boolean value) {
+        writeRaw(value ? TRUE : FALSE);
+    }
+
+    public void writeBoolean(Boolean value) {
+        if (value == null) {
+            writeNull();
+        } else {
+            writeBoolean(value.booleanValue());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    public void reset() {
+        size = 0;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) c;
+    }
+
+    /**
+     * Write the lowest digits hex digits of bits, lower case like {@link UUID#toString}
+     */
+    private void writeHex(long bits, int digits) {
+        for (int position = size + digits - 1; position >= size; position--) {
+            buffer[position] = LOWER_HEX[(int) (bits & 0xF)];
+            bits >>>= 4;
+        }
+        size += digits;
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = size + additional;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(required, buffer.length * 2));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against an in-memory H2 database for benchmarks
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Start the application with its own in-memory database
+     * @param databaseName name of the H2 in-memory database
+     * @param extraArgs additional command line arguments, e.g. --customers.columnar.enabled=true
+     * @return running application context, to be closed by the caller
+     */
+    static ConfigurableApplicationContext start(String databaseName, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--spring.security.oauth2.client.registration.github.client-id=benchmark",
+                "--spring.security.oauth2.client.registration.github.client-secret=benchmark"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DemoApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Insert the first count synthetic customers with JDBC batches, bypassing the service and JPA
+     */
+    static void seed(DataSource dataSource, SyntheticCustomers customers, int count) {
+        new CustomerBulkLoader(dataSource, Runtime.getRuntime().availableProcessors(), 1000, false)
+                .load(customers, 0, count);
+    }
+}
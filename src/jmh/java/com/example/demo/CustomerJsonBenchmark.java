@@ -0,0 +1,59 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks JSON serialization of customer lists with an ObjectMapper configured like Spring's
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CustomerJsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<CustomerResponseDTO> responses;
+    private byte[] requestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responses = new SyntheticCustomers(42).customers(listSize).stream()
+                .map(CustomerService::convertToDTO)
+                .map(CustomerResponseDTO::fromCustomerDTO)
+                .toList();
+        CustomerResponseDTO first = responses.get(0);
+        requestJson = objectMapper.writeValueAsBytes(
+                new CustomerRequestDTO(first.getFirstName(), first.getLastName(), first.getEmail()));
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public CustomerRequestDTO deserializeRequest() throws IOException {
+        return objectMapper.readValue(requestJson, CustomerRequestDTO.class);
+    }
+}
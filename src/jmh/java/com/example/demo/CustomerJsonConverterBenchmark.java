@@ -0,0 +1,115 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the message converters of the customer endpoints: Jackson's, as configured by Spring, against
+ * the {@link GeneratedJsonHttpMessageConverter}. Measure allocation with -PjmhProfilers=gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CustomerJsonConverterBenchmark {
+
+    private static final Type RESPONSE_LIST = ResolvableType.forClassWithGenerics(List.class, CustomerResponseDTO.class).getType();
+
+    @Param({"jackson", "generated"})
+    private String converter;
+
+    @Param({"100", "10000"})
+    private int listSize;
+
+    private GenericHttpMessageConverter<Object> messageConverter;
+    private List<CustomerResponseDTO> responses;
+    private byte[] requestJson;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() throws IOException {
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+        messageConverter = switch (converter) {
+            case "jackson" -> jackson;
+            case "generated" -> new GeneratedJsonHttpMessageConverter(JsonCodecConfig.codecs(), jackson);
+            default -> throw new IllegalArgumentException("Unknown converter: " + converter);
+        };
+        responses = new SyntheticCustomers(42).customers(listSize).stream()
+                .map(CustomerService::convertToDTO)
+                .map(CustomerResponseDTO::fromCustomerDTO)
+                .toList();
+        CustomerResponseDTO first = responses.get(0);
+        requestJson = jackson.getObjectMapper().writeValueAsBytes(
+                new CustomerRequestDTO(first.getFirstName(), first.getLastName(), first.getEmail()));
+    }
+
+    @Benchmark
+    public int writeSingle() throws IOException {
+        return write(responses.get(0), CustomerResponseDTO.class);
+    }
+
+    @Benchmark
+    public int writeList() throws IOException {
+        return write(responses, RESPONSE_LIST);
+    }
+
+    @Benchmark
+    public Object readRequest() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return messageConverter.read(CustomerRequestDTO.class, null, new HttpInputMessage() {
+            @Override
+            public InputStream getBody() {
+                return new ByteArrayInputStream(requestJson);
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+    }
+
+    private int write(Object value, Type type) throws IOException {
+        body.reset();
+        HttpHeaders headers = new HttpHeaders();
+        messageConverter.write(value, type, MediaType.APPLICATION_JSON, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        });
+        return body.size();
+    }
+}
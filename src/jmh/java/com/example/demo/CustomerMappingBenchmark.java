@@ -0,0 +1,55 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the entity/DTO mapping done for every customer returned by the API
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CustomerMappingBenchmark {
+
+    private Customer customer;
+    private CustomerDTO customerDTO;
+    private CustomerRequestDTO requestDTO;
+
+    @Setup
+    public void setUp() {
+        customer = new SyntheticCustomers(42).customer(1);
+        customerDTO = CustomerService.convertToDTO(customer);
+        requestDTO = new CustomerRequestDTO(customer.getFirstName(), customer.getLastName(), customer.getEmail());
+    }
+
+    @Benchmark
+    public CustomerDTO convertToDTO() {
+        return CustomerService.convertToDTO(customer);
+    }
+
+    @Benchmark
+    public CustomerResponseDTO fromCustomerDTO() {
+        return CustomerResponseDTO.fromCustomerDTO(customerDTO);
+    }
+
+    @Benchmark
+    public CustomerDTO toCustomerDTO() {
+        return requestDTO.toCustomerDTO();
+    }
+
+    @Benchmark
+    public CustomerResponseDTO entityToResponse() {
+        return CustomerResponseDTO.fromCustomerDTO(CustomerService.convertToDTO(customer));
+    }
+}
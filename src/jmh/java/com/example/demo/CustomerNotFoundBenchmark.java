@@ -0,0 +1,95 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of customer updates on a 404-heavy load, where nine out of ten ids
+ * do not exist, between the outcome returning and the exception throwing service methods.
+ * With the membership filter most misses are answered without a database round trip,
+ * so the cost of the exception is a larger share of the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class CustomerNotFoundBenchmark {
+
+    private static final int TABLE_SIZE = 10_000;
+
+    @Param({"false", "true"})
+    private boolean membershipFilter;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private List<Customer> existing;
+
+    @Setup
+    public void setUp() {
+        SyntheticCustomers syntheticCustomers = new SyntheticCustomers(7);
+        existing = syntheticCustomers.customers(TABLE_SIZE);
+        context = BenchmarkApplication.start("not-found-" + membershipFilter,
+                "--customers.membership-filter.enabled=" + membershipFilter);
+        BenchmarkApplication.seed(context.getBean(DataSource.class), syntheticCustomers, TABLE_SIZE);
+        if (membershipFilter) {
+            // the seed bypasses the service, so the filters built at startup do not know the customers
+            context.getBean(CustomerMembershipFilter.class).rebuild();
+        }
+        customerService = context.getBean(CustomerService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CustomerResult<CustomerDTO> updateReturningOutcome() {
+        Customer customer = randomCustomer();
+        return customerService.tryUpdateCustomer(customer.getId(), toDTO(customer));
+    }
+
+    @Benchmark
+    public CustomerDTO updateThrowingNotFound() {
+        Customer customer = randomCustomer();
+        try {
+            return customerService.updateCustomer(customer.getId(), toDTO(customer));
+        } catch (CustomerNotFoundException e) {
+            return null;
+        }
+    }
+
+    private Customer randomCustomer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Customer customer = existing.get(random.nextInt(existing.size()));
+        if (random.nextInt(10) == 0) {
+            return customer;
+        }
+        Customer unknown = CustomerChangeEvent.copyOf(customer);
+        unknown.setId(UUID.randomUUID());
+        return unknown;
+    }
+
+    private static CustomerDTO toDTO(Customer customer) {
+        return new CustomerDTO(customer.getFirstName(), customer.getLastName(), customer.getEmail());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks repository reads and writes against an embedded H2 database through JPA
+ * and against the log-structured backend of the "logstore" profile and the four
+ * in-memory H2 shards of the "sharded" profile.
+ * The log store forces every write to disk, the in-memory H2 databases do not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerRepositoryBenchmark {
+
+    @Param({"10000", "100000"})
+    private int tableSize;
+
+    @Param({"jpa", "logstore", "sharded"})
+    private String backend;
+
+    private ConfigurableApplicationContext context;
+    private CustomerRepository customerRepository;
+    private SyntheticCustomers syntheticCustomers;
+    private List<Customer> existing;
+    private AtomicLong nextIndex;
+    private Path logDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        syntheticCustomers = new SyntheticCustomers(7);
+        existing = syntheticCustomers.customers(tableSize);
+        if (backend.equals("logstore")) {
+            logDirectory = Files.createTempDirectory("customer-log-benchmark");
+            context = BenchmarkApplication.start("repository-" + backend + "-" + tableSize,
+                    "--spring.profiles.active=logstore",
+                    "--customers.logstore.directory=" + logDirectory);
+            customerRepository = context.getBean(CustomerRepository.class);
+            // concurrent writers share fsyncs through the group commit
+            existing.parallelStream().map(CustomerChangeEvent::copyOf).forEach(customerRepository::save);
+        } else if (backend.equals("sharded")) {
+            context = BenchmarkApplication.start("repository-" + backend + "-" + tableSize,
+                    "--spring.profiles.active=sharded",
+                    "--customers.shards.url=jdbc:h2:mem:repository-shard-" + tableSize + "-{shard};DB_CLOSE_DELAY=-1");
+            customerRepository = context.getBean(CustomerRepository.class);
+            existing.parallelStream().map(CustomerChangeEvent::copyOf).forEach(customerRepository::save);
+        } else {
+            context = BenchmarkApplication.start("repository-" + backend + "-" + tableSize);
+            BenchmarkApplication.seed(context.getBean(DataSource.class), syntheticCustomers, tableSize);
+            customerRepository = context.getBean(CustomerRepository.class);
+        }
+        nextIndex = new AtomicLong(tableSize);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        if (logDirectory != null) {
+            try (Stream<Path> files = Files.walk(logDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        return customerRepository.findById(randomExisting().getId());
+    }
+
+    @Benchmark
+    public Optional<Customer> findByGithubUsername() {
+        // roughly 70% of lookups miss because the customer has no GitHub username
+        String githubUsername = randomExisting().getGithubUsername();
+        return customerRepository.findByGithubUsername(githubUsername == null ? "unknown" : githubUsername);
+    }
+
+    @Benchmark
+    public Customer insert() {
+        Customer customer = syntheticCustomers.customer(nextIndex.getAndIncrement());
+        // let the repository generate the id like the service does
+        customer.setId(null);
+        return customerRepository.save(customer);
+    }
+
+    private Customer randomExisting() {
+        return existing.get(ThreadLocalRandom.current().nextInt(existing.size()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks CustomerService.searchCustomers for several table sizes and selectivities
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CustomerSearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int tableSize;
+
+    /**
+     * all: no filter, broad: ~60% of rows, narrow: ~3% of rows, single: one row, none: no match
+     */
+    @Param({"all", "broad", "narrow", "single", "none"})
+    private String selectivity;
+
+    /**
+     * Serve searches from the columnar replica instead of scanning entities
+     */
+    @Param({"false", "true"})
+    private boolean columnar;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private SearchCriteria criteria;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start("search-" + tableSize + "-" + columnar,
+                "--customers.columnar.enabled=" + columnar);
+        BenchmarkApplication.seed(context.getBean(DataSource.class), new SyntheticCustomers(42), tableSize);
+        if (columnar) {
+            // the replica was built at startup, before seeding
+            context.getBean(CustomerColumnStore.class).rebuild();
+        }
+        customerService = context.getBean(CustomerService.class);
+        criteria = switch (selectivity) {
+            case "all" -> new SearchCriteria();
+            case "broad" -> new SearchCriteria("a", null, null);
+            case "narrow" -> new SearchCriteria(null, "schmidt", null);
+            case "single" -> new SearchCriteria(null, null, "." + (tableSize / 2) + "@");
+            case "none" -> new SearchCriteria("zzz", null, null);
+            default -> throw new IllegalArgumentException("Unknown selectivity: " + selectivity);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CustomerDTO> searchCustomers() {
+        return customerService.searchCustomers(criteria);
+    }
+}
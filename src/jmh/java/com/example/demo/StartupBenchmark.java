@@ -0,0 +1,39 @@
+package com.example.demo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from a cold JVM until the application is ready, including Flyway and Hibernate bootstrap.
+ * Every fork starts the application exactly once, so class loading and JIT warm-up are part of the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(10)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class StartupBenchmark {
+
+    @Param({"false", "true"})
+    private boolean backgroundBootstrap;
+
+    @Benchmark
+    public void startAndStop() {
+        ConfigurableApplicationContext context = BenchmarkApplication.start("startup",
+                "--customers.jpa.background-bootstrap=" + backgroundBootstrap,
+                "--spring.data.jpa.repositories.bootstrap-mode=" + (backgroundBootstrap ? "deferred" : "default"));
+        context.close();
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.demo;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Open-model load generator: requests are started at a fixed arrival rate on virtual threads,
+ * independent of how fast the server answers. Latency is measured from the time a request was
+ * scheduled to start, so a stalled server shows up in the percentiles instead of lowering the rate.
+ */
+class LoadGenerator {
+
+    enum Operation { CREATE, GET, SEARCH, UPDATE, DELETE }
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-fA-F-]{36})\"");
+    private static final String[] SEARCH_LAST_NAMES = {"Smith", "Miller", "Schmidt", "Weber", "Koch", "Wolf"};
+
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final String userAuthorization;
+    private final String adminAuthorization;
+    private final Map<Operation, Integer> mix;
+    private final int totalWeight;
+    private final Semaphore inFlight;
+    private final IdPool ids;
+    private final AtomicLong emailCounter = new AtomicLong();
+
+    LoadGenerator(URI baseUri, Map<Operation, Integer> mix, int maxInFlight, List<UUID> existingIds) {
+        this.baseUri = baseUri;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.userAuthorization = basic(LoadTestSecurityConfig.USER, LoadTestSecurityConfig.PASSWORD);
+        this.adminAuthorization = basic(LoadTestSecurityConfig.ADMIN, LoadTestSecurityConfig.PASSWORD);
+        this.mix = new EnumMap<>(mix);
+        this.totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        this.inFlight = new Semaphore(maxInFlight);
+        this.ids = new IdPool(existingIds);
+    }
+
+    /**
+     * Start requests at the given rate for the given duration and wait for all of them to finish
+     * @return nanoseconds from the first scheduled request until the last one finished
+     */
+    long run(double requestsPerSecond, Duration duration, LoadTestReport report) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        long requests = (long) (duration.toNanos() / intervalNanos);
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < requests; i++) {
+                long intendedStart = start + i * intervalNanos;
+                long delay = intendedStart - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                if (!inFlight.tryAcquire()) {
+                    report.recordDropped();
+                    continue;
+                }
+                Operation operation = nextOperation();
+                executor.execute(() -> {
+                    try {
+                        execute(operation, intendedStart, report);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void execute(Operation operation, long intendedStart, LoadTestReport report) {
+        try {
+            HttpResponse<String> response = httpClient.send(request(operation), HttpResponse.BodyHandlers.ofString());
+            long latency = System.nanoTime() - intendedStart;
+            if (isExpected(operation, response.statusCode())) {
+                report.recordSuccess(operation, latency);
+                afterResponse(operation, response);
+            } else {
+                report.recordError(operation, latency);
+            }
+        } catch (Exception e) {
+            report.recordError(operation, System.nanoTime() - intendedStart);
+        }
+    }
+
+    private HttpRequest request(Operation operation) {
+        return switch (operation) {
+            case CREATE -> json(HttpRequest.newBuilder(baseUri.resolve("/api/customers")), "POST", customerJson())
+                    .header("Authorization", userAuthorization)
+                    .build();
+            case GET -> HttpRequest.newBuilder(baseUri.resolve("/api/customers/" + ids.random()))
+                    .header("Authorization", userAuthorization)
+                    .GET()
+                    .build();
+            case SEARCH -> HttpRequest.newBuilder(baseUri.resolve("/api/customers?lastName="
+                            + SEARCH_LAST_NAMES[ThreadLocalRandom.current().nextInt(SEARCH_LAST_NAMES.length)]))
+                    .header("Authorization", userAuthorization)
+                    .GET()
+                    .build();
+            case UPDATE -> json(HttpRequest.newBuilder(baseUri.resolve("/api/customers/" + ids.random())), "PUT", customerJson())
+                    .header("Authorization", userAuthorization)
+                    .build();
+            case DELETE -> HttpRequest.newBuilder(baseUri.resolve("/api/customers/" + ids.take()))
+                    .header("Authorization", adminAuthorization)
+                    .DELETE()
+                    .build();
+        };
+    }
+
+    private static HttpRequest.Builder json(HttpRequest.Builder builder, String method, String body) {
+        return builder
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    private String customerJson() {
+        long n = emailCounter.incrementAndGet();
+        return "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"load-" + n + "-" + System.nanoTime() + "@example.com\"}";
+    }
+
+    private static boolean isExpected(Operation operation, int status) {
+        // ids can be deleted concurrently, so a 404 on get and update is a valid answer
+        return switch (operation) {
+            case CREATE -> status == 201;
+            case GET, UPDATE -> status == 200 || status == 404;
+            case SEARCH -> status == 200;
+            case DELETE -> status == 204 || status == 404;
+        };
+    }
+
+    private void afterResponse(Operation operation, HttpResponse<String> response) {
+        if (operation == Operation.CREATE) {
+            Matcher matcher = ID_PATTERN.matcher(response.body());
+            if (matcher.find()) {
+                ids.add(UUID.fromString(matcher.group(1)));
+            }
+        }
+    }
+
+    private Operation nextOperation() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return Operation.GET;
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Ids known to exist, with O(1) random pick and removal
+     */
+    private static class IdPool {
+        private final List<UUID> ids;
+
+        IdPool(List<UUID> initial) {
+            this.ids = new ArrayList<>(initial);
+        }
+
+        synchronized void add(UUID id) {
+            ids.add(id);
+        }
+
+        synchronized UUID random() {
+            return ids.isEmpty() ? UUID.randomUUID() : ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+        }
+
+        synchronized UUID take() {
+            if (ids.isEmpty()) {
+                return UUID.randomUUID();
+            }
+            int index = ThreadLocalRandom.current().nextInt(ids.size());
+            UUID id = ids.get(index);
+            ids.set(index, ids.get(ids.size() - 1));
+            ids.remove(ids.size() - 1);
+            return id;
+        }
+    }
+}
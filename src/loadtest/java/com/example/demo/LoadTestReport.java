@@ -0,0 +1,107 @@
+package com.example.demo;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters per operation, written as a text report
+ */
+class LoadTestReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    private final Map<LoadGenerator.Operation, ConcurrentHistogram> histograms = new EnumMap<>(LoadGenerator.Operation.class);
+    private final Map<LoadGenerator.Operation, LongAdder> errors = new EnumMap<>(LoadGenerator.Operation.class);
+    private final LongAdder dropped = new LongAdder();
+
+    LoadTestReport() {
+        for (LoadGenerator.Operation operation : LoadGenerator.Operation.values()) {
+            histograms.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void recordSuccess(LoadGenerator.Operation operation, long latencyNanos) {
+        histograms.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    void recordError(LoadGenerator.Operation operation, long latencyNanos) {
+        recordSuccess(operation, latencyNanos);
+        errors.get(operation).increment();
+    }
+
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    void reset() {
+        histograms.values().forEach(Histogram::reset);
+        errors.values().forEach(LongAdder::reset);
+        dropped.reset();
+    }
+
+    /**
+     * Write the summary and the full percentile distributions
+     * @return path of the written report
+     */
+    Path write(Path directory, LoadTestRunner.Settings settings, long durationNanos) throws IOException {
+        Files.createDirectories(directory);
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        Path file = directory.resolve("loadtest-" + timestamp + ".txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            print(out, settings, durationNanos);
+        }
+        return file;
+    }
+
+    void print(PrintStream out, LoadTestRunner.Settings settings, long durationNanos) {
+        double seconds = durationNanos / 1e9;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long totalErrors = 0;
+
+        out.println("# settings");
+        out.println(settings);
+        out.println();
+        out.println("# summary (latencies in ms, measured from the intended start time)");
+        out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s %9s %9s%n",
+                "op", "count", "errors", "req/s", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        for (Map.Entry<LoadGenerator.Operation, ConcurrentHistogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long operationErrors = errors.get(entry.getKey()).sum();
+            total.add(histogram);
+            totalErrors += operationErrors;
+            printLine(out, entry.getKey().name().toLowerCase(), histogram, operationErrors, seconds);
+        }
+        printLine(out, "total", total, totalErrors, seconds);
+        out.println("dropped=" + dropped.sum());
+
+        for (Map.Entry<LoadGenerator.Operation, ConcurrentHistogram> entry : histograms.entrySet()) {
+            if (entry.getValue().getTotalCount() > 0) {
+                out.println();
+                out.println("# distribution " + entry.getKey().name().toLowerCase() + " (ms)");
+                entry.getValue().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static void printLine(PrintStream out, String name, Histogram histogram, long errorCount, double seconds) {
+        out.printf("%-8s %10d %8d %10.1f", name, histogram.getTotalCount(), errorCount, histogram.getTotalCount() / seconds);
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.3f", histogram.getValueAtPercentile(percentile) / 1000.0);
+        }
+        out.printf(" %9.3f%n", histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Boots the application with the loadtest profile, seeds customers and runs the load generator.
+ * Options are read from system properties, see {@link Settings}.
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        System.out.println("Load test settings: " + settings);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+                .profiles("loadtest")
+                .run("--server.port=0")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<UUID> ids = seed(context.getBean(DataSource.class), settings.customers());
+
+            LoadGenerator generator = new LoadGenerator(URI.create("http://localhost:" + port), settings.mix(),
+                    settings.maxInFlight(), ids);
+            LoadTestReport report = new LoadTestReport();
+
+            System.out.println("Warming up for " + settings.warmup().toSeconds() + "s");
+            generator.run(settings.rate(), settings.warmup(), report);
+            report.reset();
+
+            System.out.println("Measuring for " + settings.duration().toSeconds() + "s at " + settings.rate() + " req/s");
+            long elapsed = generator.run(settings.rate(), settings.duration(), report);
+
+            report.print(System.out, settings, elapsed);
+            Path file = report.write(settings.reportDir(), settings, elapsed);
+            System.out.println("Report written to " + file.toAbsolutePath());
+        }
+    }
+
+    private static List<UUID> seed(DataSource dataSource, int count) {
+        SyntheticCustomers customers = new SyntheticCustomers(42);
+        new CustomerBulkLoader(dataSource, Runtime.getRuntime().availableProcessors(), 1000, false)
+                .load(customers, 0, count);
+        List<UUID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(customers.customer(i).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Load test options
+     * @param rate arrival rate in requests per second (loadtest.rate)
+     * @param duration measured run time (loadtest.duration, seconds)
+     * @param warmup unmeasured run time before the measurement (loadtest.warmup, seconds)
+     * @param customers number of customers seeded before the run (loadtest.customers)
+     * @param maxInFlight requests in flight before new arrivals are dropped (loadtest.maxInFlight)
+     * @param mix relative weights of the operations (loadtest.mix, e.g. create=10,get=50,search=20,update=15,delete=5)
+     * @param reportDir directory the report is written to (loadtest.reportDir)
+     */
+    record Settings(double rate, Duration duration, Duration warmup, int customers, int maxInFlight,
+                    Map<LoadGenerator.Operation, Integer> mix, Path reportDir) {
+
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Double.parseDouble(System.getProperty("loadtest.rate", "200")),
+                    Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.duration", "30"))),
+                    Duration.ofSeconds(Long.parseLong(System.getProperty("loadtest.warmup", "10"))),
+                    Integer.parseInt(System.getProperty("loadtest.customers", "10000")),
+                    Integer.parseInt(System.getProperty("loadtest.maxInFlight", "2000")),
+                    parseMix(System.getProperty("loadtest.mix", "create=10,get=50,search=20,update=15,delete=5")),
+                    Path.of(System.getProperty("loadtest.reportDir", "build/reports/loadtest")));
+        }
+
+        private static Map<LoadGenerator.Operation, Integer> parseMix(String value) {
+            Map<LoadGenerator.Operation, Integer> mix = new EnumMap<>(LoadGenerator.Operation.class);
+            for (String part : value.split(",")) {
+                String[] keyValue = part.trim().split("=");
+                int weight = Integer.parseInt(keyValue[1].trim());
+                if (weight > 0) {
+                    mix.put(LoadGenerator.Operation.valueOf(keyValue[0].trim().toUpperCase()), weight);
+                }
+            }
+            if (mix.isEmpty()) {
+                throw new IllegalArgumentException("loadtest.mix must contain at least one operation with a positive weight");
+            }
+            return mix;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * HTTP Basic authentication for the API when running under load,
+ * with the same authorization rules as {@link SecurityConfig}
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+    static final String USER = "loadtest-user";
+    static final String ADMIN = "loadtest-admin";
+    static final String PASSWORD = "loadtest";
+
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .csrf(csrf -> csrf.disable())
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(authorizeRequests ->
+                authorizeRequests
+                    .requestMatchers(HttpMethod.DELETE, "/api/customers/**").hasRole("ADMIN")
+                    .anyRequest().authenticated()
+            )
+            .httpBasic(basic -> { });
+        return http.build();
+    }
+
+    @Bean
+    public UserDetailsService loadTestUsers() {
+        return new InMemoryUserDetailsManager(
+                User.withUsername(USER).password("{noop}" + PASSWORD).roles("USER").build(),
+                User.withUsername(ADMIN).password("{noop}" + PASSWORD).roles("USER", "ADMIN").build());
+    }
+}
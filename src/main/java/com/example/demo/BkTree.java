@@ -0,0 +1,111 @@
+package com.example.demo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * BK-tree of strings under the Levenshtein distance. Every child is keyed by its distance to its parent,
+ * so by the triangle inequality a search for the strings within distance d of a query only descends into
+ * the children keyed within d of the query's distance to the node, which for small d is a small part of the tree.
+ * Thread-safe; strings cannot be removed.
+ */
+public class BkTree {
+
+    private static final class Node {
+        final String value;
+        final ConcurrentHashMap<Integer, Node> children = new ConcurrentHashMap<>();
+
+        Node(String value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node> root = new AtomicReference<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @return false if the tree already contained the value
+     */
+    public boolean add(String value) {
+        Node added = new Node(value);
+        Node node = root.get();
+        if (node == null) {
+            if (root.compareAndSet(null, added)) {
+                size.incrementAndGet();
+                return true;
+            }
+            node = root.get();
+        }
+        while (true) {
+            int distance = distance(node.value, value);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.children.putIfAbsent(distance, added);
+            if (child == null) {
+                size.incrementAndGet();
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * @return the values within maxDistance of the query
+     */
+    public List<String> search(String query, int maxDistance) {
+        List<String> found = new ArrayList<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        Node start = root.get();
+        if (start != null) {
+            pending.push(start);
+        }
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(node.value, query);
+            if (distance <= maxDistance) {
+                found.add(node.value);
+            }
+            for (int key = Math.max(1, distance - maxDistance); key <= distance + maxDistance; key++) {
+                Node child = node.children.get(key);
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Levenshtein distance: the number of single character insertions, deletions and substitutions
+     * that turn one string into the other
+     */
+    public static int distance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
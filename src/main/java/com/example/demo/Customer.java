@@ -6,6 +6,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
+import java.util.Locale;
 import java.util.UUID;
 
 @Entity
@@ -24,6 +25,10 @@ public class Customer {
     @Column(name = "email")
     private String email;
 
+    // generated by the database from email, kept in sync here for entities that were not reloaded
+    @Column(name = "email_normalized", insertable = false, updatable = false)
+    private String emailNormalized;
+
     @Column(name = "github_username", unique = true)
     private String githubUsername;
 
@@ -58,6 +63,18 @@ public class Customer {
 
     public void setEmail(String email) {
         this.email = email;
+        this.emailNormalized = normalizeEmail(email);
+    }
+
+    public String getEmailNormalized() {
+        return emailNormalized;
+    }
+
+    /**
+     * Lowercased and trimmed email, like the email_normalized column, which is unique
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 
     public String getGithubUsername() {
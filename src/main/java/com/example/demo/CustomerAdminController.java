@@ -0,0 +1,61 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller for administrative customer jobs, restricted to admins by {@link SecurityConfig}
+ */
+@RestController
+@RequestMapping("/api/admin/customers")
+public class CustomerAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerAdminController.class);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private final CustomerDuplicateDetector duplicateDetector;
+
+    public CustomerAdminController(CustomerDuplicateDetector duplicateDetector) {
+        this.duplicateDetector = duplicateDetector;
+    }
+
+    /**
+     * Start a near-duplicate detection run
+     * @return progress of the started run, or 409 with the progress of the run in progress
+     */
+    @PostMapping("/duplicates")
+    public ResponseEntity<CustomerDuplicateDetector.Status> detectDuplicates() {
+        logger.info("REST request to detect duplicate customers");
+        boolean started = duplicateDetector.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(duplicateDetector.getStatus());
+    }
+
+    /**
+     * @return progress and throughput of the current or last run
+     */
+    @GetMapping("/duplicates")
+    public ResponseEntity<CustomerDuplicateDetector.Status> getDuplicateDetectionStatus() {
+        return ResponseEntity.ok(duplicateDetector.getStatus());
+    }
+
+    /**
+     * @return duplicate clusters of the last completed run as JSON lines, largest first
+     */
+    @GetMapping("/duplicates/report")
+    public ResponseEntity<Resource> getDuplicateReport() {
+        return duplicateDetector.getReport()
+                .<ResponseEntity<Resource>>map(report -> ResponseEntity.ok()
+                        .contentType(NDJSON)
+                        .body(new FileSystemResource(report)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
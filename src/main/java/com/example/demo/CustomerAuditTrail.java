@@ -0,0 +1,205 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History of who changed which customer and when, in the append-only customer_audit table.
+ * <p>
+ * Committed {@link CustomerChangeEvent}s are put into a bounded queue, so rolled back changes are never
+ * recorded and requests do not wait for the audit insert. A background writer inserts the queued changes
+ * in batches. If the writer falls behind by queue-capacity changes, further changes are dropped and counted
+ * in customers.audit.dropped; changes of failed batches are counted in customers.audit.failed. The delay from
+ * commit to insert is recorded in the customers.audit.lag timer.
+ * Disable with customers.audit.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.audit.enabled", havingValue = "true", matchIfMissing = true)
+public class CustomerAuditTrail implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerAuditTrail.class);
+
+    private static final String SYSTEM_ACTOR = "system";
+    private static final int MAX_ACTOR_LENGTH = 100;
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    public record Values(String firstName, String lastName, String email, String githubUsername) {
+    }
+
+    /**
+     * @param before values before the change, null for created customers
+     * @param after values after the change, null for deleted customers
+     */
+    public record Change(long seq, UUID customerId, CustomerChangeEvent.Type type, String actor, Instant changedAt,
+                         Values before, Values after) {
+    }
+
+    private record Pending(CustomerChangeEvent event, String actor, Instant changedAt, long committedNanos) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final BlockingQueue<Pending> pending;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Timer lag;
+    private volatile Thread writer;
+    private volatile boolean stopping;
+
+    public CustomerAuditTrail(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                              @Value("${customers.audit.queue-capacity:10000}") int queueCapacity,
+                              @Value("${customers.audit.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = meterRegistry.counter("customers.audit.dropped");
+        this.failed = meterRegistry.counter("customers.audit.failed");
+        this.lag = Timer.builder("customers.audit.lag")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        meterRegistry.gauge("customers.audit.queued", pending, BlockingQueue::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        writer = Thread.ofVirtual().name("customer-audit-writer").start(this::writeBatches);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (!pending.offer(new Pending(event, currentActor(), Instant.now(), System.nanoTime()))) {
+            dropped.increment();
+            logger.debug("Audit queue is full, dropped change of customer {}", event.getCustomerId());
+        }
+    }
+
+    /**
+     * @param page zero-based page, newest changes first
+     * @param size page size
+     * @return recorded changes of the customer, including those before it was deleted
+     */
+    public List<Change> getHistory(UUID customerId, int page, int size) {
+        return jdbcTemplate.query("SELECT seq, customer_id, change_type, actor, changed_at, before_values, after_values "
+                        + "FROM customer_audit WHERE customer_id = ? ORDER BY seq DESC LIMIT ? OFFSET ?",
+                (resultSet, rowNum) -> new Change(resultSet.getLong(1), resultSet.getObject(2, UUID.class),
+                        CustomerChangeEvent.Type.valueOf(resultSet.getString(3)), resultSet.getString(4),
+                        resultSet.getObject(5, OffsetDateTime.class).toInstant(),
+                        readValues(resultSet.getString(6)), readValues(resultSet.getString(7))),
+                customerId, size, (long) page * size);
+    }
+
+    private void writeBatches() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            // not stopped by interrupting, which would also interrupt the inserts
+            while (!stopping) {
+                Pending first = pending.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                write(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            List<Object[]> rows = new ArrayList<>(batch.size());
+            for (Pending change : batch) {
+                CustomerChangeEvent event = change.event();
+                rows.add(new Object[] {event.getCustomerId(), event.getType().name(), change.actor(),
+                        OffsetDateTime.ofInstant(change.changedAt(), ZoneOffset.UTC),
+                        writeValues(event.getBefore()), writeValues(event.getAfter())});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO customer_audit (customer_id, change_type, actor, changed_at, before_values, after_values) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", rows);
+            long now = System.nanoTime();
+            for (Pending change : batch) {
+                lag.record(now - change.committedNanos(), TimeUnit.NANOSECONDS);
+            }
+        } catch (RuntimeException | JsonProcessingException e) {
+            failed.increment(batch.size());
+            logger.error("Failed to write audit of {} customer changes", batch.size(), e);
+        }
+    }
+
+    private String writeValues(Customer customer) throws JsonProcessingException {
+        if (customer == null) {
+            return null;
+        }
+        return objectMapper.writeValueAsString(new Values(customer.getFirstName(), customer.getLastName(),
+                customer.getEmail(), customer.getGithubUsername()));
+    }
+
+    private Values readValues(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Values.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable customer audit values: " + json, e);
+        }
+    }
+
+    /**
+     * The listener runs on the thread that committed the change, so this is the user who made it
+     */
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getName() == null) {
+            return SYSTEM_ACTOR;
+        }
+        String name = authentication.getName();
+        return name.length() <= MAX_ACTOR_LENGTH ? name : name.substring(0, MAX_ACTOR_LENGTH);
+    }
+
+    /**
+     * Write the changes still queued, so a graceful shutdown loses none
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        stopping = true;
+        Thread writing = writer;
+        if (writing != null) {
+            writing.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<Pending> remaining = new ArrayList<>();
+        pending.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+    }
+}
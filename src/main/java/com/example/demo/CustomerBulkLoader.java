@@ -0,0 +1,167 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inserts synthetic customers with parallel JDBC batches, bypassing JPA.
+ * Each worker generates and inserts its own contiguous index range on its own connection,
+ * so the loaded data only depends on the generator seed and not on the number of workers.
+ */
+public class CustomerBulkLoader {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerBulkLoader.class);
+
+    static final String INSERT_SQL =
+            "INSERT INTO customers (id, first_name, last_name, email, github_username) VALUES (?, ?, ?, ?, ?)";
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final DataSource dataSource;
+    private final int threads;
+    private final int batchSize;
+    private final boolean rebuildIndexes;
+
+    /**
+     * @param dataSource target database
+     * @param threads number of parallel workers, each using one connection
+     * @param batchSize rows per JDBC batch and transaction
+     * @param rebuildIndexes drop secondary indexes before loading and recreate them afterwards,
+     *                       which is much faster for large loads but must not be used while the application serves writes
+     */
+    public CustomerBulkLoader(DataSource dataSource, int threads, int batchSize, boolean rebuildIndexes) {
+        this.dataSource = dataSource;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.rebuildIndexes = rebuildIndexes;
+    }
+
+    /**
+     * Insert the customers with indexes fromIndex (inclusive) to fromIndex + count (exclusive)
+     * @return number of inserted rows
+     */
+    public long load(SyntheticCustomers customers, long fromIndex, long count) {
+        long start = System.nanoTime();
+        AtomicLong inserted = new AtomicLong();
+        AtomicLong lastProgress = new AtomicLong(start);
+
+        if (rebuildIndexes) {
+            execute("DROP INDEX IF EXISTS idx_customers_github_username");
+            execute("DROP INDEX IF EXISTS idx_customers_email_normalized");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        boolean completed = false;
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            long rangeSize = (count + threads - 1) / threads;
+            for (int i = 0; i < threads; i++) {
+                long rangeStart = fromIndex + i * rangeSize;
+                long rangeEnd = Math.min(fromIndex + count, rangeStart + rangeSize);
+                if (rangeStart < rangeEnd) {
+                    workers.add(executor.submit(() -> {
+                        insertRange(customers, rangeStart, rangeEnd, inserted, lastProgress, start, count);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk load interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Bulk load failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // also after a failed load, which must not leave the table without its uniqueness constraints
+            if (rebuildIndexes) {
+                recreateIndexes(completed);
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        logger.info("Loaded {} customers in {} s ({} rows/s)", inserted.get(), String.format("%.1f", seconds),
+                Math.round(inserted.get() / seconds));
+        return inserted.get();
+    }
+
+    /**
+     * @param completed whether the load succeeded; if not, failures are only logged so the load's own failure is thrown
+     */
+    private void recreateIndexes(boolean completed) {
+        logger.info("Recreating secondary indexes");
+        for (String sql : List.of(
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_customers_github_username ON customers(github_username)",
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_customers_email_normalized ON customers(email_normalized)")) {
+            try {
+                execute(sql);
+            } catch (IllegalStateException e) {
+                logger.error("Failed to recreate a unique index of the customers table, create it by hand: {}", sql, e);
+                if (completed) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void insertRange(SyntheticCustomers customers, long rangeStart, long rangeEnd, AtomicLong inserted,
+                             AtomicLong lastProgress, long start, long total) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (long index = rangeStart; index < rangeEnd; index++) {
+                    Customer customer = customers.customer(index);
+                    statement.setObject(1, customer.getId());
+                    statement.setString(2, customer.getFirstName());
+                    statement.setString(3, customer.getLastName());
+                    statement.setString(4, customer.getEmail());
+                    statement.setString(5, customer.getGithubUsername());
+                    statement.addBatch();
+                    if (++pending == batchSize || index == rangeEnd - 1) {
+                        statement.executeBatch();
+                        connection.commit();
+                        reportProgress(inserted.addAndGet(pending), lastProgress, start, total);
+                        pending = 0;
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static void reportProgress(long inserted, AtomicLong lastProgress, long start, long total) {
+        long now = System.nanoTime();
+        long last = lastProgress.get();
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgress.compareAndSet(last, now)) {
+            double seconds = (now - start) / 1e9;
+            logger.info("Loaded {}/{} customers ({} rows/s)", inserted, total, Math.round(inserted / seconds));
+        }
+    }
+
+    private void execute(String sql) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to execute: " + sql, e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo;
+
+import java.util.UUID;
+
+/**
+ * Published by {@link CustomerService} for every customer mutation,
+ * so derived in-memory structures can be kept current.
+ * Before and after values are detached copies and never change.
+ */
+public class CustomerChangeEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final UUID customerId;
+    private final Customer before;
+    private final Customer after;
+
+    private CustomerChangeEvent(Type type, UUID customerId, Customer before, Customer after) {
+        this.type = type;
+        this.customerId = customerId;
+        this.before = before;
+        this.after = after;
+    }
+
+    public static CustomerChangeEvent created(Customer after) {
+        return new CustomerChangeEvent(Type.CREATED, after.getId(), null, copyOf(after));
+    }
+
+    public static CustomerChangeEvent updated(Customer before, Customer after) {
+        return new CustomerChangeEvent(Type.UPDATED, after.getId(), before, copyOf(after));
+    }
+
+    public static CustomerChangeEvent deleted(Customer before) {
+        return new CustomerChangeEvent(Type.DELETED, before.getId(), copyOf(before), null);
+    }
+
+    /**
+     * Detached copy of a customer, e.g. to capture the state before an update
+     */
+    public static Customer copyOf(Customer customer) {
+        Customer copy = new Customer();
+        copy.setId(customer.getId());
+        copy.setFirstName(customer.getFirstName());
+        copy.setLastName(customer.getLastName());
+        copy.setEmail(customer.getEmail());
+        copy.setGithubUsername(customer.getGithubUsername());
+        return copy;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public UUID getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return state before the change, null for created customers
+     */
+    public Customer getBefore() {
+        return before;
+    }
+
+    /**
+     * @return state after the change, null for deleted customers
+     */
+    public Customer getAfter() {
+        return after;
+    }
+}
@@ -0,0 +1,382 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Optional in-memory columnar replica of the customers table for "contains" searches.
+ * Ids are stored as two long columns and the lowercased names and emails as UTF-8 bytes
+ * packed into one array per column with an offset table, so a search is a sequential
+ * byte scan that is split into chunks and run in parallel on the fork/join pool.
+ * The original values are kept in separate columns to build results without a database round trip.
+ * <p>
+ * The replica is built at startup and kept current from {@link CustomerChangeEvent}s.
+ * Enable with customers.columnar.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.columnar.enabled", havingValue = "true")
+public class CustomerColumnStore {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerColumnStore.class);
+
+    private static final int SCAN_CHUNK_ROWS = 16_384;
+    private static final int FETCH_SIZE = 10_000;
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // guarded by lock
+    private Columns columns = new Columns();
+    private Set<UUID> changedDuringRebuild;
+
+    private volatile boolean ready;
+
+    public CustomerColumnStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Reload all customers from the database.
+     * Changes applied while the rebuild runs take precedence over the rows read from the database.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            changedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Columns loaded = new Columns();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, first_name, last_name, email FROM customers");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> loaded.append(
+                resultSet.getObject(1, UUID.class),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4)));
+
+        lock.writeLock().lock();
+        try {
+            for (UUID id : changedDuringRebuild) {
+                loaded.remove(id);
+                columns.copyRow(id, loaded);
+            }
+            columns = loaded;
+            changedDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Built columnar customer replica with {} rows in {} ms", loaded.liveRows(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * @return whether the initial build finished and searches can be served
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event.getCustomerId(), event.getAfter());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reload the customers changed on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(event.getCustomerIds());
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Map<UUID, Customer> reloaded = new HashMap<>();
+            jdbcTemplate.query("SELECT id, first_name, last_name, email FROM customers WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    (RowCallbackHandler) resultSet -> {
+                        Customer customer = new Customer();
+                        customer.setId(resultSet.getObject(1, UUID.class));
+                        customer.setFirstName(resultSet.getString(2));
+                        customer.setLastName(resultSet.getString(3));
+                        customer.setEmail(resultSet.getString(4));
+                        reloaded.put(customer.getId(), customer);
+                    }, batch.toArray());
+            lock.writeLock().lock();
+            try {
+                for (UUID id : batch) {
+                    apply(id, reloaded.get(id));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Replace the row of a customer, guarded by the write lock
+     * @param customer current values, null if the customer was deleted
+     */
+    private void apply(UUID id, Customer customer) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+        columns.remove(id);
+        if (customer != null) {
+            columns.append(id, customer.getFirstName(), customer.getLastName(), customer.getEmail());
+        }
+        if (columns.deletedRows > SCAN_CHUNK_ROWS && columns.deletedRows > columns.rows / 2) {
+            columns = columns.compacted();
+        }
+    }
+
+    /**
+     * Find customers whose names and email contain the given criteria, ignoring case,
+     * with the same semantics as the scan in {@link CustomerService#searchCustomers}
+     */
+    public List<CustomerDTO> search(SearchCriteria criteria) {
+        byte[] firstName = pattern(criteria.getFirstName());
+        byte[] lastName = pattern(criteria.getLastName());
+        byte[] email = pattern(criteria.getEmail());
+
+        lock.readLock().lock();
+        try {
+            Columns scanned = columns;
+            int[] rows = ForkJoinPool.commonPool().invoke(new ScanTask(scanned, 0, scanned.rows, firstName, lastName, email));
+            List<CustomerDTO> results = new ArrayList<>(rows.length);
+            for (int row : rows) {
+                results.add(scanned.toDTO(row));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static byte[] pattern(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Column arrays, rows are appended and deleted rows are only marked until the next compaction
+     */
+    private static final class Columns {
+        private long[] idHigh = new long[1024];
+        private long[] idLow = new long[1024];
+        private final ByteColumn firstNames = new ByteColumn();
+        private final ByteColumn lastNames = new ByteColumn();
+        private final ByteColumn emails = new ByteColumn();
+        private final ByteColumn displayFirstNames = new ByteColumn();
+        private final ByteColumn displayLastNames = new ByteColumn();
+        private final ByteColumn displayEmails = new ByteColumn();
+        private final BitSet deleted = new BitSet();
+        private final Map<UUID, Integer> rowById = new HashMap<>();
+        private int rows;
+        private int deletedRows;
+
+        void append(UUID id, String firstName, String lastName, String email) {
+            if (rows == idHigh.length) {
+                idHigh = Arrays.copyOf(idHigh, rows * 2);
+                idLow = Arrays.copyOf(idLow, rows * 2);
+            }
+            idHigh[rows] = id.getMostSignificantBits();
+            idLow[rows] = id.getLeastSignificantBits();
+            firstNames.add(lower(firstName));
+            lastNames.add(lower(lastName));
+            emails.add(lower(email));
+            displayFirstNames.add(utf8(firstName));
+            displayLastNames.add(utf8(lastName));
+            displayEmails.add(utf8(email));
+            rowById.put(id, rows);
+            rows++;
+        }
+
+        void remove(UUID id) {
+            Integer row = rowById.remove(id);
+            if (row != null) {
+                deleted.set(row);
+                deletedRows++;
+            }
+        }
+
+        /**
+         * Append the live row for the id, if any, to the target columns
+         */
+        void copyRow(UUID id, Columns target) {
+            Integer row = rowById.get(id);
+            if (row != null) {
+                target.append(id, displayFirstNames.string(row), displayLastNames.string(row), displayEmails.string(row));
+            }
+        }
+
+        Columns compacted() {
+            Columns compacted = new Columns();
+            for (int row = 0; row < rows; row++) {
+                if (!deleted.get(row)) {
+                    compacted.append(new UUID(idHigh[row], idLow[row]),
+                            displayFirstNames.string(row), displayLastNames.string(row), displayEmails.string(row));
+                }
+            }
+            return compacted;
+        }
+
+        int liveRows() {
+            return rows - deletedRows;
+        }
+
+        boolean matches(int row, byte[] firstName, byte[] lastName, byte[] email) {
+            return !deleted.get(row)
+                    && (firstName == null || firstNames.contains(row, firstName))
+                    && (lastName == null || lastNames.contains(row, lastName))
+                    && (email == null || emails.contains(row, email));
+        }
+
+        CustomerDTO toDTO(int row) {
+            return new CustomerDTO(new UUID(idHigh[row], idLow[row]),
+                    displayFirstNames.string(row), displayLastNames.string(row), displayEmails.string(row));
+        }
+
+        private static byte[] lower(String value) {
+            return value == null ? new byte[0] : value.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static byte[] utf8(String value) {
+            return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Variable length values packed into one byte array, value i spans offsets[i] to offsets[i + 1]
+     */
+    private static final class ByteColumn {
+        private byte[] data = new byte[16 * 1024];
+        private int[] offsets = new int[1025];
+        private int size;
+
+        void add(byte[] value) {
+            int end = offsets[size] + value.length;
+            if (end > data.length) {
+                data = Arrays.copyOf(data, Math.max(end, data.length * 2));
+            }
+            if (size + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            System.arraycopy(value, 0, data, offsets[size], value.length);
+            offsets[++size] = end;
+        }
+
+        String string(int row) {
+            return new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Byte-wise substring search, valid for UTF-8 because no encoded character
+         * is a prefix or suffix of another one
+         */
+        boolean contains(int row, byte[] pattern) {
+            int last = offsets[row + 1] - pattern.length;
+            byte first = pattern[0];
+            for (int i = offsets[row]; i <= last; i++) {
+                if (data[i] != first) {
+                    continue;
+                }
+                int j = 1;
+                while (j < pattern.length && data[i + j] == pattern[j]) {
+                    j++;
+                }
+                if (j == pattern.length) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Scans a row range, splitting it in halves until chunks are small enough
+     */
+    private static final class ScanTask extends RecursiveTask<int[]> {
+        private final Columns columns;
+        private final int from;
+        private final int to;
+        private final byte[] firstName;
+        private final byte[] lastName;
+        private final byte[] email;
+
+        ScanTask(Columns columns, int from, int to, byte[] firstName, byte[] lastName, byte[] email) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+            this.firstName = firstName;
+            this.lastName = lastName;
+            this.email = email;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= SCAN_CHUNK_ROWS) {
+                int[] matches = new int[16];
+                int count = 0;
+                for (int row = from; row < to; row++) {
+                    if (columns.matches(row, firstName, lastName, email)) {
+                        if (count == matches.length) {
+                            matches = Arrays.copyOf(matches, count * 2);
+                        }
+                        matches[count++] = row;
+                    }
+                }
+                return Arrays.copyOf(matches, count);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(columns, from, middle, firstName, lastName, email);
+            left.fork();
+            int[] right = new ScanTask(columns, middle, to, firstName, lastName, email).compute();
+            int[] leftMatches = left.join();
+            int[] merged = Arrays.copyOf(leftMatches, leftMatches.length + right.length);
+            System.arraycopy(right, 0, merged, leftMatches.length, right.length);
+            return merged;
+        }
+    }
+}
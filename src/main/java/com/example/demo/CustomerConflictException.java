@@ -0,0 +1,16 @@
+package com.example.demo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A customer write would violate a unique constraint.
+ * Thrown for expected client errors, so no stack trace is captured.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class CustomerConflictException extends RuntimeException {
+
+    public CustomerConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -2,14 +2,23 @@ package com.example.demo;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -20,36 +29,143 @@ import java.util.stream.Collectors;
 public class CustomerController {
     
     private static final Logger logger = LoggerFactory.getLogger(CustomerController.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+    private static final int MAX_TOP_DOMAINS = 100;
+    private static final int MAX_OPERATIONS = 1000;
     private final CustomerService customerService;
+    private final CustomerOperationService operationService;
+    private final ObjectProvider<CustomerListResponseCache> responseCache;
+    private final ObjectProvider<CustomerStaleReadCache> staleReadCache;
+    private final ObjectProvider<CustomerAuditTrail> auditTrail;
     
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerOperationService operationService,
+                              ObjectProvider<CustomerListResponseCache> responseCache,
+                              ObjectProvider<CustomerStaleReadCache> staleReadCache,
+                              ObjectProvider<CustomerAuditTrail> auditTrail) {
         this.customerService = customerService;
+        this.operationService = operationService;
+        this.responseCache = responseCache;
+        this.staleReadCache = staleReadCache;
+        this.auditTrail = auditTrail;
     }
     
     /**
      * Create a new customer
      * @param requestDTO customer data to create
-     * @return created customer with ID
+     * @return created customer with ID, or 409 if the email is already in use
      */
     @PostMapping
-    public ResponseEntity<CustomerResponseDTO> createCustomer(@Valid @RequestBody CustomerRequestDTO requestDTO) {
+    public ResponseEntity<?> createCustomer(@Valid @RequestBody CustomerRequestDTO requestDTO) {
         logger.info("REST request to create a new customer");
-        CustomerDTO createdCustomer = customerService.createCustomer(requestDTO.toCustomerDTO());
-        return ResponseEntity
-                .status(HttpStatus.CREATED)
-                .body(CustomerResponseDTO.fromCustomerDTO(createdCustomer));
+        return switch (customerService.tryCreateCustomer(requestDTO.toCustomerDTO())) {
+            case CustomerResult.Found<CustomerDTO> created -> ResponseEntity
+                    .status(HttpStatus.CREATED)
+                    .body(CustomerResponseDTO.fromCustomerDTO(created.value()));
+            case CustomerResult.NotFound<CustomerDTO> notFound -> error(HttpStatus.NOT_FOUND, notFound.message());
+            case CustomerResult.Conflict<CustomerDTO> conflict -> error(HttpStatus.CONFLICT, conflict.message());
+        };
+    }
+    
+    /**
+     * Execute create, update, patch and delete operations in order
+     * @param operations at most 1000 operations
+     * @param chunkSize number of operations per transaction, all in one by default
+     * @return one result per operation with the status it would have had on its own,
+     *         207 if an operation failed, 501 with a repository that cannot roll them back; deletes need the ADMIN role
+     */
+    @PostMapping("/operations")
+    public ResponseEntity<?> executeOperations(
+            @RequestBody List<CustomerOperationDTO> operations,
+            @RequestParam(required = false) Integer chunkSize,
+            Authentication authentication) {
+        logger.info("REST request to execute {} customer operations", operations.size());
+        if (operations.size() > MAX_OPERATIONS) {
+            return error(HttpStatus.BAD_REQUEST, "At most " + MAX_OPERATIONS + " operations are allowed per request");
+        }
+        if (!operationService.isTransactional()) {
+            return error(HttpStatus.NOT_IMPLEMENTED, "Customer operations are not supported by the configured customer repository");
+        }
+        int size = chunkSize == null ? operations.size() : Math.clamp(chunkSize, 1, Math.max(1, operations.size()));
+        List<CustomerOperationResultDTO> results = operationService.executeOperations(operations, Math.max(1, size), authentication);
+        boolean failed = results.stream().anyMatch(result -> result.getError() != null);
+        return ResponseEntity.status(failed ? HttpStatus.MULTI_STATUS : HttpStatus.OK).body(results);
     }
     
     /**
      * Get customer by ID
      * @param id customer UUID
-     * @return customer data if found
+     * @return customer data if found, with Age and Warning headers if it is stale
      */
     @GetMapping("/{id}")
     public ResponseEntity<CustomerResponseDTO> getCustomerById(@PathVariable UUID id) {
         logger.info("REST request to get customer with ID: {}", id);
-        return customerService.findCustomerById(id)
+        CustomerStaleReadCache.Result<Optional<CustomerDTO>> result = read(CustomerStaleReadCache.Endpoint.BY_ID, id,
+                () -> customerService.findCustomerById(id));
+        return result.value()
+                .map(customerDTO -> ResponseEntity.ok().headers(result.headers()).body(CustomerResponseDTO.fromCustomerDTO(customerDTO)))
+                .orElse(ResponseEntity.notFound().headers(result.headers()).build());
+    }
+    
+    /**
+     * Get the recorded changes of a customer, also after it was deleted
+     * @param id customer UUID
+     * @param page zero-based page, newest changes first
+     * @param size page size, 20 by default
+     * @return who changed the customer when, with the values before and after each change
+     */
+    @GetMapping("/{id}/history")
+    public ResponseEntity<?> getCustomerHistory(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        logger.debug("REST request to get history of customer with ID: {}", id);
+        CustomerAuditTrail trail = auditTrail.getIfAvailable();
+        if (trail == null) {
+            return error(HttpStatus.NOT_FOUND, "Customer audit trail is disabled");
+        }
+        return ResponseEntity.ok(trail.getHistory(id, Math.max(page, 0), Math.clamp(size, 1, MAX_PAGE_SIZE)));
+    }
+    
+    /**
+     * Suggest customers whose name or email starts with the query, for autocomplete
+     * @param q start of the first name, last name or email
+     * @param limit maximum number of suggestions, 10 by default
+     * @return ids and display names of the matching customers
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<CustomerSuggestIndex.Suggestion>> suggestCustomers(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        // called on every keystroke, so not logged at info
+        logger.debug("REST request to suggest customers for: {}", q);
+        int max = limit == null ? 10 : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        return ResponseEntity.ok(customerService.suggestCustomers(q, max));
+    }
+    
+    /**
+     * Get customer counts for dashboards
+     * @param top number of email domains with the most customers to include, 10 by default
+     * @return counts of all customers, with and without GitHub username, and per email domain
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<CustomerStats.Summary> getCustomerStats(@RequestParam(required = false) Integer top) {
+        logger.debug("REST request to get customer stats");
+        int domains = top == null ? 10 : Math.clamp(top, 0, MAX_TOP_DOMAINS);
+        return ResponseEntity.ok(customerService.getCustomerStats(domains));
+    }
+    
+    /**
+     * Get customer by email, ignoring case
+     * @param email customer email
+     * @return customer data if found
+     */
+    @GetMapping("/by-email/{email}")
+    public ResponseEntity<CustomerResponseDTO> getCustomerByEmail(@PathVariable String email) {
+        logger.info("REST request to get customer by email");
+        return customerService.findCustomerByEmail(email)
                 .map(customerDTO -> ResponseEntity.ok(CustomerResponseDTO.fromCustomerDTO(customerDTO)))
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -58,20 +174,18 @@ public class CustomerController {
      * Update an existing customer
      * @param id customer UUID
      * @param requestDTO updated customer data
-     * @return updated customer data
+     * @return updated customer data, 404 if the customer does not exist or 409 if the email is already in use
      */
     @PutMapping("/{id}")
-    public ResponseEntity<CustomerResponseDTO> updateCustomer(
+    public ResponseEntity<?> updateCustomer(
             @PathVariable UUID id,
             @Valid @RequestBody CustomerRequestDTO requestDTO) {
         logger.info("REST request to update customer with ID: {}", id);
-        try {
-            CustomerDTO updatedCustomer = customerService.updateCustomer(id, requestDTO.toCustomerDTO());
-            return ResponseEntity.ok(CustomerResponseDTO.fromCustomerDTO(updatedCustomer));
-        } catch (CustomerNotFoundException e) {
-            logger.error("Customer not found with ID: {}", id);
-            return ResponseEntity.notFound().build();
-        }
+        return switch (customerService.tryUpdateCustomer(id, requestDTO.toCustomerDTO())) {
+            case CustomerResult.Found<CustomerDTO> updated -> ResponseEntity.ok(CustomerResponseDTO.fromCustomerDTO(updated.value()));
+            case CustomerResult.NotFound<CustomerDTO> notFound -> ResponseEntity.notFound().build();
+            case CustomerResult.Conflict<CustomerDTO> conflict -> error(HttpStatus.CONFLICT, conflict.message());
+        };
     }
     
     /**
@@ -82,36 +196,61 @@ public class CustomerController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable UUID id) {
         logger.info("REST request to delete customer with ID: {}", id);
-        try {
-            customerService.deleteCustomer(id);
-            return ResponseEntity.noContent().build();
-        } catch (CustomerNotFoundException e) {
-            logger.error("Customer not found with ID: {}", id);
-            return ResponseEntity.notFound().build();
-        }
+        return switch (customerService.tryDeleteCustomer(id)) {
+            case CustomerResult.Found<Void> deleted -> ResponseEntity.noContent().build();
+            case CustomerResult.NotFound<Void> notFound -> ResponseEntity.notFound().build();
+            case CustomerResult.Conflict<Void> conflict -> ResponseEntity.status(HttpStatus.CONFLICT).build();
+        };
     }
     
     /**
      * Search for customers using query parameters
      * @param firstName optional first name filter
      * @param lastName optional last name filter
-     * @param email optional email filter
+     * @param email optional email filter, a prefix if it ends with "*"
+     * @param maxEditDistance optional maximum edit distance, up to 2, of whole first and last names instead of substrings
+     * @param phonetic whether first and last names that sound alike match too
+     * @param page optional zero-based page of the results ordered by ID
+     * @param size optional page size, 20 if only the page is given
      * @return list of matching customers
      */
     @GetMapping
-    public ResponseEntity<List<CustomerResponseDTO>> searchCustomers(
+    public ResponseEntity<?> searchCustomers(
             @RequestParam(required = false) String firstName,
             @RequestParam(required = false) String lastName,
-            @RequestParam(required = false) String email) {
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) Integer maxEditDistance,
+            @RequestParam(defaultValue = "false") boolean phonetic,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         logger.info("REST request to search customers by criteria");
         CustomerSearchDTO searchDTO = new CustomerSearchDTO(firstName, lastName, email);
-        List<CustomerDTO> customers = customerService.searchCustomers(searchDTO.toSearchCriteria());
-        
-        List<CustomerResponseDTO> responseList = customers.stream()
-                .map(CustomerResponseDTO::fromCustomerDTO)
-                .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(responseList);
+        searchDTO.setMaxEditDistance(maxEditDistance);
+        searchDTO.setPhonetic(phonetic);
+        SearchCriteria criteria = searchDTO.toSearchCriteria();
+        Integer pageIndex = page == null && size == null ? null : Math.max(page == null ? 0 : page, 0);
+        Integer pageSize = pageIndex == null ? null : Math.clamp(size == null ? 20 : size, 1, MAX_PAGE_SIZE);
+
+        CustomerListResponseCache cache = responseCache.getIfAvailable();
+        if (cache != null) {
+            // a stale value implies no change through CustomerService since it was loaded, so it may be cached
+            List<CustomerStaleReadCache.Result<List<CustomerResponseDTO>>> loaded = new ArrayList<>(1);
+            ResponseEntity<byte[]> response = cache.respond(criteria, pageIndex, pageSize, ifNoneMatch, acceptEncoding, () -> {
+                loaded.add(search(criteria, pageIndex, pageSize));
+                return loaded.get(0).value();
+            });
+            if (loaded.isEmpty() || !loaded.get(0).isStale()) {
+                return response;
+            }
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .headers(loaded.get(0).headers())
+                    .body(response.getBody());
+        }
+        CustomerStaleReadCache.Result<List<CustomerResponseDTO>> result = search(criteria, pageIndex, pageSize);
+        return ResponseEntity.ok().headers(result.headers()).body(result.value());
     }
     
     /**
@@ -123,12 +262,37 @@ public class CustomerController {
     public ResponseEntity<List<CustomerResponseDTO>> searchCustomersPost(
             @RequestBody CustomerSearchDTO searchDTO) {
         logger.info("REST request to search customers by criteria (POST)");
-        List<CustomerDTO> customers = customerService.searchCustomers(searchDTO.toSearchCriteria());
-        
-        List<CustomerResponseDTO> responseList = customers.stream()
+        CustomerStaleReadCache.Result<List<CustomerResponseDTO>> result = search(searchDTO.toSearchCriteria(), null, null);
+        return ResponseEntity.ok().headers(result.headers()).body(result.value());
+    }
+    
+    private CustomerStaleReadCache.Result<List<CustomerResponseDTO>> search(SearchCriteria criteria, Integer page, Integer size) {
+        List<Object> key = Arrays.asList(criteria.getFirstName(), criteria.getLastName(), criteria.getEmail(),
+                criteria.getMaxEditDistance(), criteria.isPhonetic(), page, size);
+        return read(CustomerStaleReadCache.Endpoint.SEARCH, key, () -> load(criteria, page, size));
+    }
+    
+    private List<CustomerResponseDTO> load(SearchCriteria criteria, Integer page, Integer size) {
+        List<CustomerDTO> customers = customerService.searchCustomers(criteria);
+        if (page != null) {
+            long offset = (long) page * size;
+            customers = customers.stream()
+                    .sorted(Comparator.comparing(CustomerDTO::getId))
+                    .skip(offset)
+                    .limit(size)
+                    .collect(Collectors.toList());
+        }
+        return customers.stream()
                 .map(CustomerResponseDTO::fromCustomerDTO)
                 .collect(Collectors.toList());
-        
-        return ResponseEntity.ok(responseList);
+    }
+    
+    private <T> CustomerStaleReadCache.Result<T> read(CustomerStaleReadCache.Endpoint endpoint, Object key, Supplier<T> loader) {
+        CustomerStaleReadCache cache = staleReadCache.getIfAvailable();
+        return cache == null ? new CustomerStaleReadCache.Result<>(loader.get(), null, null) : cache.read(endpoint, key, loader);
+    }
+    
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", message));
     }
 }
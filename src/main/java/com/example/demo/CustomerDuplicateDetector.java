@@ -0,0 +1,621 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Admin-triggered job that finds clusters of near-duplicate customers without comparing all pairs.
+ * <p>
+ * The customers are streamed from the database once. Every customer gets a MinHash signature over the
+ * 3-character shingles of its name and the local part of its email, split into bands, plus two blocking
+ * keys: the normalized name and the email local part. Customers sharing a band or blocking key are
+ * candidates. The (key, customer) records are spilled to partition files by key. The number of partitions
+ * is derived from the row count so a partition is expected to hold half of max-records-per-partition
+ * records, up to max-partitions files open at a time, and a partition that still holds more, because
+ * the table outgrows the partitions or many customers share some keys, is split again before it is loaded. Memory therefore stays bounded by threads × max-records-per-partition records
+ * instead of growing with the table. The partitions are scored in parallel: candidates with a shingle
+ * similarity of at least the threshold are merged into clusters with a union-find, and the clusters are
+ * written to a JSON lines report.
+ * <p>
+ * Reads the customers table of the primary data source, so the "sharded" and "logstore" backends are not covered.
+ */
+@Component
+public class CustomerDuplicateDetector {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerDuplicateDetector.class);
+
+    private static final int BANDS = 8;
+    private static final int ROWS_PER_BAND = 4;
+    private static final int SHINGLE_SIZE = 3;
+    private static final int BATCH_SIZE = 1000;
+    private static final int KEYS_PER_ROW = BANDS + 2;
+    // buffers of all partition files while spilling
+    private static final int WRITE_BUFFER_BUDGET = 32 * 1024 * 1024;
+    private static final int MIN_WRITE_BUFFER = 4 * 1024;
+    private static final int MAX_WRITE_BUFFER = 64 * 1024;
+    private static final long NAME_BLOCK = 0x6e616d65L;
+    private static final long EMAIL_BLOCK = 0x656d61696cL;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final long[] SEEDS = new SplittableRandom(0x64757073L).longs(BANDS * ROWS_PER_BAND).toArray();
+    private static final DateTimeFormatter REPORT_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+    public enum State { IDLE, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * @param customersPerSecond read throughput while streaming the customers
+     * @param pairsScored compared pairs, counted once per key the two customers share, as is duplicatePairs
+     * @param oversizedBuckets candidate buckets with more than max-bucket-size customers, which are skipped
+     * @param largestPartition most records held in memory by one scoring thread
+     * @param clusters number of duplicate clusters, known once the report is written
+     */
+    public record Status(State state, String phase, long customersRead, double customersPerSecond,
+                         int partitionsScored, int partitions, long pairsScored, long duplicatePairs,
+                         long oversizedBuckets, long largestPartition, Integer clusters, Instant startedAt, Instant finishedAt,
+                         String report, String error) {
+    }
+
+    record Row(UUID id, String name, String email) {
+    }
+
+    private record Keyed(long key, Row row) {
+    }
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final double threshold;
+    private final int minPartitions;
+    private final int maxPartitions;
+    private final int maxRecordsPerPartition;
+    private final int maxBucketSize;
+    private final int threads;
+    private final Path reportDirectory;
+
+    private final AtomicLong customersRead = new AtomicLong();
+    private final AtomicLong pairsScored = new AtomicLong();
+    private final AtomicLong duplicatePairs = new AtomicLong();
+    private final AtomicLong oversizedBuckets = new AtomicLong();
+    private final AtomicInteger partitionsScored = new AtomicInteger();
+    private final AtomicLong largestPartition = new AtomicLong();
+    private final AtomicLong lastProgress = new AtomicLong();
+    private volatile State state = State.IDLE;
+    private volatile int partitions;
+    private volatile String phase;
+    private volatile long readStart;
+    private volatile long readNanos;
+    private volatile Integer clusters;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Path report;
+    private volatile String error;
+
+    /**
+     * @param minPartitions partitions of small tables, larger ones get more
+     * @param maxPartitions partition files open at a time at most, while spilling or splitting
+     * @param maxRecordsPerPartition records a scoring thread holds in memory at most, at least max-bucket-size
+     */
+    public CustomerDuplicateDetector(DataSource dataSource, ObjectMapper objectMapper,
+                                     @Value("${customers.duplicates.threshold:0.7}") double threshold,
+                                     @Value("${customers.duplicates.partitions:256}") int minPartitions,
+                                     @Value("${customers.duplicates.max-partitions:512}") int maxPartitions,
+                                     @Value("${customers.duplicates.max-records-per-partition:50000}") int maxRecordsPerPartition,
+                                     @Value("${customers.duplicates.max-bucket-size:200}") int maxBucketSize,
+                                     @Value("${customers.duplicates.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+                                     @Value("${customers.duplicates.report-directory:./data/duplicate-reports}") String reportDirectory) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.threshold = threshold;
+        if (maxRecordsPerPartition < maxBucketSize) {
+            throw new IllegalArgumentException("customers.duplicates.max-records-per-partition must be at least max-bucket-size");
+        }
+        if (maxPartitions < Math.max(minPartitions, 2)) {
+            throw new IllegalArgumentException("customers.duplicates.max-partitions must be at least 2 and partitions");
+        }
+        this.minPartitions = minPartitions;
+        this.maxPartitions = maxPartitions;
+        this.maxRecordsPerPartition = maxRecordsPerPartition;
+        this.maxBucketSize = maxBucketSize;
+        this.threads = threads;
+        this.reportDirectory = Path.of(reportDirectory);
+    }
+
+    /**
+     * Start a detection run in the background
+     * @return false if a run is already in progress
+     */
+    public synchronized boolean start() {
+        if (state == State.RUNNING) {
+            return false;
+        }
+        customersRead.set(0);
+        pairsScored.set(0);
+        duplicatePairs.set(0);
+        oversizedBuckets.set(0);
+        partitionsScored.set(0);
+        largestPartition.set(0);
+        partitions = 0;
+        readNanos = 0;
+        clusters = null;
+        report = null;
+        error = null;
+        finishedAt = null;
+        startedAt = Instant.now();
+        state = State.RUNNING;
+        Thread.ofPlatform().name("customer-duplicate-detection").start(this::run);
+        return true;
+    }
+
+    public Status getStatus() {
+        long nanos = readNanos != 0 ? readNanos : readStart == 0 ? 0 : System.nanoTime() - readStart;
+        double customersPerSecond = nanos == 0 ? 0 : customersRead.get() / (nanos / 1e9);
+        Path currentReport = report;
+        return new Status(state, phase, customersRead.get(), Math.round(customersPerSecond * 10) / 10.0,
+                partitionsScored.get(), partitions, pairsScored.get(), duplicatePairs.get(), oversizedBuckets.get(),
+                largestPartition.get(), clusters, startedAt, finishedAt, currentReport == null ? null : currentReport.toString(), error);
+    }
+
+    /**
+     * @return report of the last completed run
+     */
+    public Optional<Path> getReport() {
+        return Optional.ofNullable(report);
+    }
+
+    private void run() {
+        try {
+            report = detect();
+            state = State.COMPLETED;
+            logger.info("Duplicate detection found {} clusters in {} customers, report: {}", clusters, customersRead.get(), report);
+        } catch (Exception e) {
+            logger.error("Duplicate detection failed", e);
+            error = e.toString();
+            state = State.FAILED;
+        } finally {
+            phase = null;
+            finishedAt = Instant.now();
+        }
+    }
+
+    private Path detect() throws IOException, InterruptedException, ExecutionException {
+        Path workDirectory = Files.createTempDirectory("customer-duplicates");
+        try {
+            phase = "reading";
+            long[] records = partition(workDirectory);
+            phase = "scoring";
+            Clusters found = score(workDirectory, records);
+            phase = "reporting";
+            return writeReport(found);
+        } finally {
+            try (Stream<Path> files = Files.walk(workDirectory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stream the customers and spill every (key, customer) record to the partition of its key.
+     * Signatures are computed by the worker threads, at most two batches per thread are queued.
+     * @return number of records per partition
+     */
+    private long[] partition(Path workDirectory) throws IOException, InterruptedException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Long customers = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class);
+        partitions = partitionCount(customers == null ? 0 : customers * KEYS_PER_ROW);
+        int bufferSize = Math.clamp(WRITE_BUFFER_BUDGET / partitions, MIN_WRITE_BUFFER, MAX_WRITE_BUFFER);
+        logger.info("Duplicate detection spills about {} customers to {} partitions", customers, partitions);
+        DataOutputStream[] outputs = new DataOutputStream[partitions];
+        // guarded by the output of the partition
+        long[] records = new long[partitions];
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Semaphore queued = new Semaphore(threads * 2);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        try {
+            for (int i = 0; i < partitions; i++) {
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(workDirectory.resolve("partition-" + i)), bufferSize));
+            }
+            readStart = System.nanoTime();
+            lastProgress.set(readStart);
+            List<Row> batch = new ArrayList<>(BATCH_SIZE);
+            jdbcTemplate.setFetchSize(BATCH_SIZE);
+            jdbcTemplate.query("SELECT id, first_name, last_name, email FROM customers", (RowCallbackHandler) resultSet -> {
+                batch.add(new Row(resultSet.getObject(1, UUID.class),
+                        resultSet.getString(2) + " " + resultSet.getString(3), resultSet.getString(4)));
+                if (batch.size() == BATCH_SIZE) {
+                    submit(workers, queued, failure, List.copyOf(batch), outputs, records);
+                    batch.clear();
+                }
+            });
+            submit(workers, queued, failure, List.copyOf(batch), outputs, records);
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            readNanos = System.nanoTime() - readStart;
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            return records;
+        } finally {
+            workers.shutdownNow();
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+    }
+
+    private void submit(ExecutorService workers, Semaphore queued, AtomicReference<RuntimeException> failure,
+                        List<Row> rows, DataOutputStream[] outputs, long[] records) {
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        queued.acquireUninterruptibly();
+        workers.execute(() -> {
+            try {
+                for (Row row : rows) {
+                    for (long key : keys(row)) {
+                        int partition = Math.floorMod(key, outputs.length);
+                        DataOutputStream output = outputs[partition];
+                        synchronized (output) {
+                            write(output, key, row);
+                            records[partition]++;
+                        }
+                    }
+                }
+                reportProgress(customersRead.addAndGet(rows.size()));
+            } catch (IOException e) {
+                failure.compareAndSet(null, new UncheckedIOException(e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                queued.release();
+            }
+        });
+    }
+
+    /**
+     * Partitions for the records, so that a partition is expected to be filled halfway to max-records-per-partition,
+     * but no more than max-partitions, fuller ones are split when they are scored
+     */
+    private int partitionCount(long records) {
+        return Math.clamp(Math.ceilDiv(records * 2, maxRecordsPerPartition), Math.max(minPartitions, 1), maxPartitions);
+    }
+
+    /**
+     * Score the candidates of every partition in parallel, one partition per thread at a time
+     */
+    private Clusters score(Path workDirectory, long[] records) throws InterruptedException, ExecutionException {
+        Clusters found = new Clusters();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> scored = new ArrayList<>(records.length);
+            for (int i = 0; i < records.length; i++) {
+                Path file = workDirectory.resolve("partition-" + i);
+                long partitionRecords = records[i];
+                scored.add(workers.submit(() -> {
+                    scorePartition(file, partitionRecords, 0, found);
+                    partitionsScored.incrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> partition : scored) {
+                partition.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+        return found;
+    }
+
+    /**
+     * Load the partition and score its buckets, or split it first if it holds more than max-records-per-partition
+     * @param depth number of times the records were split, which selects the hash of the next split
+     */
+    private void scorePartition(Path file, long count, int depth, Clusters found) throws IOException {
+        if (count > maxRecordsPerPartition) {
+            split(file, count, depth, found);
+            return;
+        }
+        largestPartition.accumulateAndGet(count, Math::max);
+        List<Keyed> records = new ArrayList<>((int) count);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), MAX_WRITE_BUFFER))) {
+            Keyed record;
+            while ((record = read(input)) != null) {
+                records.add(record);
+            }
+        }
+        records.sort(Comparator.comparingLong(Keyed::key));
+
+        Map<UUID, long[][]> shingles = new HashMap<>();
+        for (int from = 0; from < records.size(); ) {
+            int to = from + 1;
+            while (to < records.size() && records.get(to).key() == records.get(from).key()) {
+                to++;
+            }
+            if (to - from > maxBucketSize) {
+                oversizedBuckets.incrementAndGet();
+            } else {
+                for (int i = from; i < to; i++) {
+                    Row a = records.get(i).row();
+                    for (int j = i + 1; j < to; j++) {
+                        Row b = records.get(j).row();
+                        if (a.id().equals(b.id())) {
+                            continue;
+                        }
+                        pairsScored.incrementAndGet();
+                        if (similarity(shingles.computeIfAbsent(a.id(), id -> shingles(a)),
+                                shingles.computeIfAbsent(b.id(), id -> shingles(b))) >= threshold) {
+                            duplicatePairs.incrementAndGet();
+                            found.union(a, b);
+                        }
+                    }
+                }
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Spread the records of an overfull partition over smaller ones with another hash of their keys.
+     * Records of a single key are one bucket larger than max-bucket-size, which is skipped without loading it.
+     */
+    private void split(Path file, long count, int depth, Clusters found) throws IOException {
+        // the open files and write buffers of all threads' splits stay within max-partitions and the spilling budget
+        int maxParts = Math.max(2, Math.min(maxPartitions, WRITE_BUFFER_BUDGET / MIN_WRITE_BUFFER) / threads);
+        int parts = (int) Math.clamp(Math.ceilDiv(count * 2, maxRecordsPerPartition), 2, maxParts);
+        Path[] files = new Path[parts];
+        long[] records = new long[parts];
+        long firstKey = 0;
+        boolean singleKey = true;
+        DataOutputStream[] outputs = new DataOutputStream[parts];
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), MAX_WRITE_BUFFER))) {
+            for (int i = 0; i < parts; i++) {
+                files[i] = file.resolveSibling(file.getFileName() + "-" + i);
+                outputs[i] = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(files[i]), MIN_WRITE_BUFFER));
+            }
+            long read = 0;
+            Keyed record;
+            while ((record = read(input)) != null) {
+                if (read++ == 0) {
+                    firstKey = record.key();
+                } else if (record.key() != firstKey) {
+                    singleKey = false;
+                }
+                int part = Math.floorMod(BloomFilter.mix(record.key() + depth + 1), parts);
+                write(outputs[part], record.key(), record.row());
+                records[part]++;
+            }
+        } finally {
+            for (DataOutputStream output : outputs) {
+                if (output != null) {
+                    output.close();
+                }
+            }
+        }
+        Files.delete(file);
+        try {
+            if (singleKey) {
+                oversizedBuckets.incrementAndGet();
+                return;
+            }
+            for (int i = 0; i < parts; i++) {
+                scorePartition(files[i], records[i], depth + 1, found);
+                // split again and deleted already if it was overfull
+                Files.deleteIfExists(files[i]);
+            }
+        } finally {
+            for (Path part : files) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private static void write(DataOutputStream output, long key, Row row) throws IOException {
+        output.writeLong(key);
+        output.writeLong(row.id().getMostSignificantBits());
+        output.writeLong(row.id().getLeastSignificantBits());
+        output.writeUTF(row.name());
+        output.writeUTF(row.email());
+    }
+
+    /**
+     * @return the next record, null at the end of the file
+     */
+    private static Keyed read(DataInputStream input) throws IOException {
+        long key;
+        try {
+            key = input.readLong();
+        } catch (EOFException e) {
+            return null;
+        }
+        UUID id = new UUID(input.readLong(), input.readLong());
+        return new Keyed(key, new Row(id, input.readUTF(), input.readUTF()));
+    }
+
+    private Path writeReport(Clusters found) throws IOException {
+        List<List<Row>> all = new ArrayList<>(found.clusters());
+        all.sort(Comparator.comparingInt((List<Row> cluster) -> cluster.size()).reversed());
+        Files.createDirectories(reportDirectory);
+        Path file = reportDirectory.resolve("duplicates-" + REPORT_TIMESTAMP.format(Instant.now()) + ".jsonl");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (List<Row> cluster : all) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("size", cluster.size());
+                line.put("customers", cluster);
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+        clusters = all.size();
+        return file;
+    }
+
+    private void reportProgress(long read) {
+        long now = System.nanoTime();
+        long last = lastProgress.get();
+        if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgress.compareAndSet(last, now)) {
+            logger.info("Duplicate detection read {} customers ({} customers/s)", read,
+                    Math.round(read / ((now - readStart) / 1e9)));
+        }
+    }
+
+    /**
+     * LSH band keys of the MinHash signature followed by the blocking keys
+     */
+    static long[] keys(Row row) {
+        String name = CustomerSuggestIndex.normalize(row.name());
+        String email = localPart(row.email());
+        long[] minimums = new long[BANDS * ROWS_PER_BAND];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+        for (long shingle : shingleHashes(name + " " + email)) {
+            for (int i = 0; i < minimums.length; i++) {
+                minimums[i] = Math.min(minimums[i], BloomFilter.mix(shingle ^ SEEDS[i]));
+            }
+        }
+        long[] keys = new long[BANDS + 2];
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+            for (int i = 0; i < ROWS_PER_BAND; i++) {
+                key = BloomFilter.mix(key ^ minimums[band * ROWS_PER_BAND + i]);
+            }
+            keys[band] = key;
+        }
+        keys[BANDS] = BloomFilter.mix(NAME_BLOCK ^ BloomFilter.hash(name));
+        keys[BANDS + 1] = BloomFilter.mix(EMAIL_BLOCK ^ BloomFilter.hash(email));
+        return keys;
+    }
+
+    /**
+     * Sorted distinct shingle hashes of the name and of the email local part
+     */
+    private static long[][] shingles(Row row) {
+        return new long[][] {shingleHashes(CustomerSuggestIndex.normalize(row.name())), shingleHashes(localPart(row.email()))};
+    }
+
+    /**
+     * Mean of the Jaccard similarities of the name and email shingles
+     */
+    static double similarity(long[][] a, long[][] b) {
+        return (jaccard(a[0], b[0]) + jaccard(a[1], b[1])) / 2;
+    }
+
+    private static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 1;
+        }
+        int shared = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) shared / (a.length + b.length - shared);
+    }
+
+    private static long[] shingleHashes(String text) {
+        if (text.length() <= SHINGLE_SIZE) {
+            return text.isEmpty() ? new long[0] : new long[] {BloomFilter.hash(text)};
+        }
+        long[] hashes = new long[text.length() - SHINGLE_SIZE + 1];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = BloomFilter.hash(text.substring(i, i + SHINGLE_SIZE));
+        }
+        return Arrays.stream(hashes).sorted().distinct().toArray();
+    }
+
+    private static String localPart(String email) {
+        String normalized = Customer.normalizeEmail(email);
+        int at = normalized.indexOf('@');
+        return at < 0 ? normalized : normalized.substring(0, at);
+    }
+
+    /**
+     * Union-find over the customers of duplicate pairs
+     */
+    private static final class Clusters {
+        private final Map<UUID, UUID> parents = new HashMap<>();
+        private final Map<UUID, Row> rows = new HashMap<>();
+
+        synchronized void union(Row a, Row b) {
+            rows.putIfAbsent(a.id(), a);
+            rows.putIfAbsent(b.id(), b);
+            UUID rootA = find(a.id());
+            UUID rootB = find(b.id());
+            if (!rootA.equals(rootB)) {
+                parents.put(rootA, rootB);
+            }
+        }
+
+        synchronized Collection<List<Row>> clusters() {
+            Map<UUID, List<Row>> byRoot = new HashMap<>();
+            for (Row row : rows.values()) {
+                byRoot.computeIfAbsent(find(row.id()), root -> new ArrayList<>()).add(row);
+            }
+            return byRoot.values();
+        }
+
+        private UUID find(UUID id) {
+            UUID current = id;
+            UUID parent;
+            while ((parent = parents.get(current)) != null) {
+                // path halving
+                UUID grandparent = parents.get(parent);
+                if (grandparent != null) {
+                    parents.put(current, grandparent);
+                }
+                current = parent;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Indexes of the distinct first and last names for fuzzy searches, see {@link SearchCriteria#isFuzzy}.
+ * Per field, a {@link BkTree} finds the names within an edit distance of the query while comparing it
+ * with a small part of the names only, and a map from Soundex code to names finds the names that sound
+ * alike. Names are normalized like in {@link CustomerSuggestIndex} and map to the ids of their customers.
+ * <p>
+ * The index is built at startup, until then {@link CustomerService} compares every customer instead.
+ * Names no customer has anymore stay in the trees until they make up half of them, then the index is
+ * rebuilt in the background.
+ * With a {@link CustomerRepositorySupport} backend the customers are loaded through the repository.
+ * Enable with customers.fuzzy.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.fuzzy.enabled", havingValue = "true")
+public class CustomerFuzzyIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerFuzzyIndex.class);
+
+    private static final int RELOAD_BATCH_SIZE = 500;
+    // Soundex digits of the letters a to z
+    private static final String SOUNDEX_DIGITS = "01230120022455012623010202";
+
+    private record Names(String firstName, String lastName) {
+    }
+
+    private static final class Field {
+        final BkTree names = new BkTree();
+        final Map<String, Set<UUID>> idsByName = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> namesBySoundex = new ConcurrentHashMap<>();
+        final AtomicInteger unusedNames = new AtomicInteger();
+
+        // changes of one field are serialized by the lock or happen before the field is published
+        void add(String name, UUID id) {
+            Set<UUID> ids = idsByName.get(name);
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+                idsByName.put(name, ids);
+                names.add(name);
+                namesBySoundex.computeIfAbsent(soundex(name), code -> ConcurrentHashMap.newKeySet()).add(name);
+            } else if (ids.isEmpty()) {
+                unusedNames.decrementAndGet();
+            }
+            ids.add(id);
+        }
+
+        void remove(String name, UUID id) {
+            Set<UUID> ids = idsByName.get(name);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                unusedNames.incrementAndGet();
+            }
+        }
+
+        Set<UUID> search(String query, int maxEditDistance, boolean phonetic) {
+            Set<UUID> found = new HashSet<>();
+            for (String name : names.search(query, maxEditDistance)) {
+                found.addAll(idsByName.getOrDefault(name, Set.of()));
+            }
+            String code = soundex(query);
+            if (phonetic && !code.isEmpty()) {
+                for (String name : namesBySoundex.getOrDefault(code, Set.of())) {
+                    found.addAll(idsByName.getOrDefault(name, Set.of()));
+                }
+            }
+            return found;
+        }
+
+        boolean isFragmented() {
+            return unusedNames.get() > names.size() / 2;
+        }
+    }
+
+    private record State(Field firstNames, Field lastNames, Map<UUID, Names> namesById) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final Object lock = new Object();
+    private final Object buildLock = new Object();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private volatile State state;
+    // customers changed while a build runs, null for deleted ones, guarded by lock
+    private Map<UUID, Names> changedDuringBuild;
+
+    public CustomerFuzzyIndex(JdbcTemplate jdbcTemplate, CustomerRepository customerRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Build the index from the stored customers
+     */
+    public void rebuild() {
+        build("database", () -> {
+            Map<UUID, Names> names = new HashMap<>();
+            if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+                customerRepository.findAll().forEach(customer ->
+                        names.put(customer.getId(), names(customer.getFirstName(), customer.getLastName())));
+                return names;
+            }
+            jdbcTemplate.query("SELECT id, first_name, last_name FROM customers",
+                    (RowCallbackHandler) resultSet -> names.put(resultSet.getObject(1, UUID.class),
+                            names(resultSet.getString(2), resultSet.getString(3))));
+            return names;
+        });
+    }
+
+    /**
+     * @param firstName first name to match, ignored if empty
+     * @param lastName last name to match, ignored if empty
+     * @param maxEditDistance maximum Levenshtein distance of matching names
+     * @param phonetic whether names with the same Soundex code match too
+     * @return ids of the customers whose given names all match
+     */
+    public Set<UUID> search(String firstName, String lastName, int maxEditDistance, boolean phonetic) {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Customer fuzzy index is not built yet");
+        }
+        Set<UUID> ids = null;
+        if (firstName != null && !firstName.isEmpty()) {
+            ids = current.firstNames().search(CustomerSuggestIndex.normalize(firstName), maxEditDistance, phonetic);
+        }
+        if (lastName != null && !lastName.isEmpty()) {
+            Set<UUID> lastNameIds = current.lastNames().search(CustomerSuggestIndex.normalize(lastName), maxEditDistance, phonetic);
+            if (ids == null) {
+                ids = lastNameIds;
+            } else {
+                ids.retainAll(lastNameIds);
+            }
+        }
+        return ids == null ? Set.of() : ids;
+    }
+
+    /**
+     * Same matching as {@link #search} for a single name, for when the index is disabled or not built yet
+     */
+    public static boolean matches(String name, String query, int maxEditDistance, boolean phonetic) {
+        if (query == null || query.isEmpty()) {
+            return true;
+        }
+        String normalizedName = CustomerSuggestIndex.normalize(name);
+        String normalizedQuery = CustomerSuggestIndex.normalize(query);
+        if (BkTree.distance(normalizedName, normalizedQuery) <= maxEditDistance) {
+            return true;
+        }
+        String code = soundex(normalizedQuery);
+        return phonetic && !code.isEmpty() && code.equals(soundex(normalizedName));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        Customer after = event.getAfter();
+        apply(event.getCustomerId(), after == null ? null : names(after.getFirstName(), after.getLastName()));
+    }
+
+    /**
+     * Customers changed on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(event.getCustomerIds());
+        if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+            Set<UUID> deleted = new HashSet<>(ids);
+            customerRepository.findAllById(ids).forEach(customer -> {
+                deleted.remove(customer.getId());
+                apply(customer.getId(), names(customer.getFirstName(), customer.getLastName()));
+            });
+            deleted.forEach(id -> apply(id, null));
+            return;
+        }
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Set<UUID> deleted = new HashSet<>(batch);
+            jdbcTemplate.query("SELECT id, first_name, last_name FROM customers WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    (RowCallbackHandler) resultSet -> {
+                        UUID id = resultSet.getObject(1, UUID.class);
+                        deleted.remove(id);
+                        apply(id, names(resultSet.getString(2), resultSet.getString(3)));
+                    },
+                    batch.toArray());
+            deleted.forEach(id -> apply(id, null));
+        }
+    }
+
+    private void build(String source, Supplier<Map<UUID, Names>> loader) {
+        synchronized (buildLock) {
+            long start = System.nanoTime();
+            synchronized (lock) {
+                changedDuringBuild = new HashMap<>();
+            }
+            State built;
+            try {
+                built = new State(new Field(), new Field(), new ConcurrentHashMap<>(loader.get()));
+                built.namesById().forEach((id, names) -> add(built, id, names));
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    changedDuringBuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (lock) {
+                changedDuringBuild.forEach((id, names) -> replace(built, id, names));
+                changedDuringBuild = null;
+                state = built;
+            }
+            logger.info("Built customer fuzzy index from {} with {} first and {} last names in {} ms", source,
+                    built.firstNames().names.size(), built.lastNames().names.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void apply(UUID id, Names names) {
+        State current;
+        synchronized (lock) {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.put(id, names);
+            }
+            current = state;
+            if (current == null) {
+                return;
+            }
+            replace(current, id, names);
+        }
+        if ((current.firstNames().isFragmented() || current.lastNames().isFragmented())
+                && compacting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("customer-fuzzy-index-compaction").start(() -> {
+                try {
+                    build("compaction", () -> state.namesById());
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    private static void replace(State target, UUID id, Names names) {
+        Names previous = names == null ? target.namesById().remove(id) : target.namesById().put(id, names);
+        if (previous != null) {
+            target.firstNames().remove(previous.firstName(), id);
+            target.lastNames().remove(previous.lastName(), id);
+        }
+        if (names != null) {
+            add(target, id, names);
+        }
+    }
+
+    private static void add(State target, UUID id, Names names) {
+        target.firstNames().add(names.firstName(), id);
+        target.lastNames().add(names.lastName(), id);
+    }
+
+    private static Names names(String firstName, String lastName) {
+        return new Names(CustomerSuggestIndex.normalize(firstName), CustomerSuggestIndex.normalize(lastName));
+    }
+
+    /**
+     * American Soundex code of the letters a to z in a normalized name, e.g. "R163" for both Robert and Rupert
+     */
+    static String soundex(String name) {
+        StringBuilder code = new StringBuilder(4);
+        char previous = 0;
+        for (int i = 0; i < name.length() && code.length() < 4; i++) {
+            char c = name.charAt(i);
+            if (c < 'a' || c > 'z') {
+                continue;
+            }
+            char digit = SOUNDEX_DIGITS.charAt(c - 'a');
+            if (code.isEmpty()) {
+                code.append(Character.toUpperCase(c));
+            } else if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+            // vowels separate equal digits, h and w do not
+            if (c != 'h' && c != 'w') {
+                previous = digit;
+            }
+        }
+        if (code.isEmpty()) {
+            return "";
+        }
+        while (code.length() < 4) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published by {@link CustomerInvalidationBus} when another node changed customers,
+ * so in-memory copies of customer data can be dropped or reloaded from the database.
+ * Changes made on this node are published as {@link CustomerChangeEvent}s instead.
+ */
+public class CustomerInvalidatedEvent {
+
+    private final boolean all;
+    private final Set<UUID> customerIds;
+
+    public CustomerInvalidatedEvent(boolean all, Set<UUID> customerIds) {
+        this.all = all;
+        this.customerIds = Set.copyOf(customerIds);
+    }
+
+    /**
+     * @return whether every customer may have changed, the ids are empty then
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    public Set<UUID> getCustomerIds() {
+        return customerIds;
+    }
+}
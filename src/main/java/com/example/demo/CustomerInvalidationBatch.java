@@ -0,0 +1,13 @@
+package com.example.demo;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Customers changed on one node, sent to the other nodes by a {@link CustomerInvalidationTransport}
+ * @param node id of the publishing node
+ * @param publishedAtMillis wall clock time of publishing, to measure the propagation delay
+ * @param all whether every customer is invalidated, the ids are empty then
+ */
+public record CustomerInvalidationBatch(String node, long publishedAtMillis, boolean all, Set<UUID> customerIds) {
+}
@@ -0,0 +1,136 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells the other nodes which customers this node changed, and turns their batches into
+ * {@link CustomerInvalidatedEvent}s for the in-memory copies of customer data on this node.
+ * <p>
+ * Committed {@link CustomerChangeEvent}s are collected for the batch interval and sent as one batch,
+ * with repeated changes of a customer coalesced. A batch above max-batch-size invalidates all customers.
+ * The delay from publishing to receiving a batch is recorded in the customers.invalidation.propagation
+ * timer; across machines it includes their clock difference.
+ * Enable with customers.invalidation.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.invalidation.enabled", havingValue = "true")
+public class CustomerInvalidationBus implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerInvalidationBus.class);
+
+    private final CustomerInvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Timer propagation;
+    private final String node;
+    private final Duration batchInterval;
+    private final int maxBatchSize;
+    private final BlockingQueue<UUID> pending = new LinkedBlockingQueue<>();
+    private volatile Thread worker;
+
+    public CustomerInvalidationBus(CustomerInvalidationTransport transport,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${customers.invalidation.transport:jdbc}") String transportName,
+                                   @Value("${customers.invalidation.batch-interval:10ms}") Duration batchInterval,
+                                   @Value("${customers.invalidation.max-batch-size:1000}") int maxBatchSize) {
+        this.transport = transport;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.propagation = Timer.builder("customers.invalidation.propagation")
+                .tag("transport", transportName)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.node = UUID.randomUUID().toString();
+        this.batchInterval = batchInterval;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        transport.start(this::receive);
+        worker = Thread.ofVirtual().name("customer-invalidation-bus").start(this::publishBatches);
+        logger.info("Customer invalidation bus started as node {}", node);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        pending.add(event.getCustomerId());
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    void receive(CustomerInvalidationBatch batch) {
+        if (batch.node().equals(node)) {
+            return;
+        }
+        propagation.record(Math.max(0, System.currentTimeMillis() - batch.publishedAtMillis()), TimeUnit.MILLISECONDS);
+        meterRegistry.counter("customers.invalidation.received").increment();
+        try {
+            eventPublisher.publishEvent(new CustomerInvalidatedEvent(batch.all(), batch.customerIds()));
+        } catch (RuntimeException e) {
+            logger.error("Failed to apply invalidation of {} customers from node {}",
+                    batch.all() ? "all" : batch.customerIds().size(), batch.node(), e);
+        }
+    }
+
+    private void publishBatches() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                UUID first = pending.take();
+                // let the changes of the batch interval accumulate
+                TimeUnit.NANOSECONDS.sleep(batchInterval.toNanos());
+                List<UUID> drained = new ArrayList<>();
+                pending.drainTo(drained);
+                Set<UUID> customerIds = new LinkedHashSet<>();
+                customerIds.add(first);
+                customerIds.addAll(drained);
+                boolean all = customerIds.size() > maxBatchSize;
+                publish(new CustomerInvalidationBatch(node, System.currentTimeMillis(), all, all ? Set.of() : customerIds));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(CustomerInvalidationBatch batch) {
+        try {
+            transport.publish(batch);
+            meterRegistry.counter("customers.invalidation.published").increment();
+        } catch (RuntimeException e) {
+            // the other nodes keep serving the old values of these customers until they are changed again
+            meterRegistry.counter("customers.invalidation.failed").increment();
+            logger.error("Failed to publish invalidation of {} customers", batch.all() ? "all" : batch.customerIds().size(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        Thread publishing = worker;
+        if (publishing != null) {
+            publishing.interrupt();
+        }
+    }
+}
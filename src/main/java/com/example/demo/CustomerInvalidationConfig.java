@@ -0,0 +1,41 @@
+package com.example.demo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+
+/**
+ * Transport of the {@link CustomerInvalidationBus}, selected with customers.invalidation.transport:
+ * "jdbc" polls a table in the shared database, "multicast" sends UDP datagrams.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customers.invalidation.enabled", havingValue = "true")
+public class CustomerInvalidationConfig {
+
+    @Bean
+    public CustomerInvalidationTransport customerInvalidationTransport(
+            @Value("${customers.invalidation.transport:jdbc}") String transport,
+            @Value("${customers.invalidation.jdbc.poll-interval:100ms}") Duration pollInterval,
+            @Value("${customers.invalidation.jdbc.gap-timeout:10s}") Duration gapTimeout,
+            @Value("${customers.invalidation.jdbc.retention:10m}") Duration retention,
+            @Value("${customers.invalidation.multicast.group:239.255.27.1}") String group,
+            @Value("${customers.invalidation.multicast.port:45678}") int port,
+            @Value("${customers.invalidation.multicast.interface:}") String interfaceName,
+            @Value("${customers.invalidation.multicast.ttl:1}") int timeToLive,
+            DataSource dataSource) throws UnknownHostException, SocketException {
+        return switch (transport) {
+            case "jdbc" -> new JdbcCustomerInvalidationTransport(dataSource, pollInterval, gapTimeout, retention);
+            case "multicast" -> new MulticastCustomerInvalidationTransport(InetAddress.getByName(group), port,
+                    interfaceName.isEmpty() ? null : NetworkInterface.getByName(interfaceName), timeToLive);
+            default -> throw new IllegalArgumentException("Unknown customer invalidation transport: " + transport);
+        };
+    }
+}
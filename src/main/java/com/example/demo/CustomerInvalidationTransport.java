@@ -0,0 +1,20 @@
+package com.example.demo;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries {@link CustomerInvalidationBatch}es between nodes for {@link CustomerInvalidationBus}.
+ * Every node receives every batch, including its own.
+ */
+public interface CustomerInvalidationTransport extends AutoCloseable {
+
+    /**
+     * Start delivering the batches published from now on
+     */
+    void start(Consumer<CustomerInvalidationBatch> receiver);
+
+    void publish(CustomerInvalidationBatch batch);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,204 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Caches the serialized JSON of customer list responses, optionally also gzip-compressed,
+ * keyed by the normalized search criteria and page parameters.
+ * <p>
+ * Every customer mutation bumps a global write generation and entries of older generations are
+ * not served again. The generation is bumped before and after the commit, so a response read
+ * while the transaction commits is never cached for the new generation. Writes that bypass
+ * {@link CustomerService}, e.g. the seed profile, do not invalidate the cache; writes on other nodes
+ * only do with the {@link CustomerInvalidationBus}.
+ * Enable with customers.response-cache.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.response-cache.enabled", havingValue = "true")
+public class CustomerListResponseCache {
+
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    private record Key(String firstName, String lastName, String email, Integer maxEditDistance, boolean phonetic,
+                       Integer page, Integer size) {
+    }
+
+    private record Entry(long generation, byte[] body, String etag, byte[] gzipBody, String gzipEtag) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${customers.response-cache.max-entries:64}")
+    private int maxEntries;
+
+    @Value("${customers.response-cache.max-bytes:67108864}")
+    private int maxBytes;
+
+    @Value("${customers.response-cache.gzip:true}")
+    private boolean gzip;
+
+    public CustomerListResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeCustomerChangeCommit(CustomerChangeEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Changes made on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Respond with the cached bytes for the criteria, loading and serializing the customers on a miss.
+     * Answers 304 if the request's If-None-Match matches the ETag of the response.
+     * @param loader loads the customers for the criteria and page
+     */
+    public ResponseEntity<byte[]> respond(SearchCriteria criteria, Integer page, Integer size,
+                                          String ifNoneMatch, String acceptEncoding,
+                                          Supplier<List<CustomerResponseDTO>> loader) {
+        // read before loading, so data loaded concurrently with a write is never cached as current
+        long currentGeneration = generation.get();
+        Key key = new Key(normalize(criteria.getFirstName()), normalize(criteria.getLastName()),
+                normalize(criteria.getEmail()), criteria.getMaxEditDistance(), criteria.isPhonetic(), page, size);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.generation() != currentGeneration) {
+            entry = serialize(currentGeneration, loader.get());
+            store(key, entry);
+        }
+
+        boolean compressed = entry.gzipBody() != null && acceptsGzip(acceptEncoding);
+        String etag = compressed ? entry.gzipEtag() : entry.etag();
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compressed) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(compressed ? entry.gzipBody() : entry.body());
+    }
+
+    private Entry serialize(long entryGeneration, List<CustomerResponseDTO> customers) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(customers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize customers", e);
+        }
+        byte[] gzipBody = gzip && body.length >= MIN_GZIP_BYTES ? gzip(body) : null;
+        return new Entry(entryGeneration, body, etag(body, ""),
+                gzipBody, gzipBody == null ? null : etag(body, "-gzip"));
+    }
+
+    private void store(Key key, Entry entry) {
+        if (entry.body().length > maxBytes) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            long currentGeneration = generation.get();
+            entries.values().removeIf(existing -> existing.generation() != currentGeneration);
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    /**
+     * The search matches case-insensitively and ignores empty criteria, so they share entries
+     */
+    private static String normalize(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String etag(byte[] body, String suffix) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "\"" + Integer.toHexString(body.length) + "-" + Long.toHexString(crc.getValue()) + suffix + "\"";
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
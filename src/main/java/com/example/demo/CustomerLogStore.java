@@ -0,0 +1,522 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, checksummed log of customer writes with periodic snapshots.
+ * <p>
+ * Records are written to a memory-mapped log file as [length][crc32][payload]. Writers append
+ * under a lock and then wait until their record is forced to disk; concurrent writers share
+ * one fsync (group commit). Every snapshotEvery records the log is rotated to a new generation
+ * and the state is written to a snapshot for that generation, after which older files are deleted.
+ * Recovery loads the newest complete snapshot and replays the logs from its generation on,
+ * stopping at the first torn or corrupt record of each log.
+ */
+public class CustomerLogStore implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerLogStore.class);
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte CLEAR = 3;
+    private static final int HEADER_BYTES = 8;
+    private static final int SNAPSHOT_MAGIC = 0x43534e50;
+    private static final int SNAPSHOT_END = 0x454e4421;
+    private static final String LOG_PREFIX = "log-";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SUFFIX = ".dat";
+
+    /**
+     * Receives the records read during recovery
+     */
+    public interface Replay {
+        void put(Customer customer);
+
+        void delete(UUID id);
+
+        void clear();
+    }
+
+    private final Path directory;
+    private final int regionSize;
+    private final long snapshotEvery;
+    private final boolean sync;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final Object flushMonitor = new Object();
+    private volatile Thread snapshotThread;
+
+    // guarded by writeLock
+    private Supplier<Collection<Customer>> snapshotSource;
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long written;
+    private long appendedSinceSnapshot;
+    private boolean closed;
+
+    /**
+     * @param directory directory holding the log and snapshot files
+     * @param regionSize bytes of the log file mapped at a time
+     * @param snapshotEvery number of appended records after which a snapshot is written
+     * @param sync whether writes wait until their record is forced to disk
+     */
+    public CustomerLogStore(Path directory, int regionSize, long snapshotEvery, boolean sync) {
+        this.directory = directory;
+        this.regionSize = regionSize;
+        this.snapshotEvery = snapshotEvery;
+        this.sync = sync;
+    }
+
+    /**
+     * Recover the stored state and open the log for appending
+     * @param replay receives the recovered records in order
+     * @param snapshotSource supplies a copy of the current state, called while no writes are in progress
+     */
+    public void open(Replay replay, Supplier<Collection<Customer>> snapshotSource) throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        try (Stream<Path> temporary = Files.list(directory)) {
+            for (Path path : temporary.filter(path -> path.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.delete(path);
+            }
+        }
+
+        long base = -1;
+        List<Long> snapshots = generations(SNAPSHOT_PREFIX);
+        for (int i = snapshots.size() - 1; i >= 0 && base < 0; i--) {
+            if (readSnapshot(snapshots.get(i), replay)) {
+                base = snapshots.get(i);
+            } else {
+                logger.warn("Ignoring incomplete customer snapshot {}", snapshotPath(snapshots.get(i)));
+                replay.clear();
+            }
+        }
+
+        List<Long> logs = generations(LOG_PREFIX);
+        if (base < 0) {
+            base = logs.isEmpty() ? 0 : logs.get(0);
+        }
+        long current = base;
+        long validEnd = 0;
+        int records = 0;
+        for (long log : logs) {
+            if (log >= base) {
+                ReplayedLog replayed = replayLog(logPath(log), replay);
+                records += replayed.records;
+                current = log;
+                validEnd = replayed.validEnd;
+            }
+        }
+
+        writeLock.lock();
+        try {
+            this.snapshotSource = snapshotSource;
+            this.generation = current;
+            this.appendedSinceSnapshot = records;
+            channel = FileChannel.open(logPath(current),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            // drop a torn tail so stale bytes can never be mistaken for records later
+            channel.truncate(validEnd);
+            regionStart = validEnd;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, regionSize);
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Recovered customer log in {} from snapshot generation {} and {} log records in {} ms",
+                directory, base, records, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Append a record and apply it, then wait until the record is durable.
+     * Preparing, appending and applying happen under one lock, so prepare can check
+     * constraints against the applied state and snapshots always match the log.
+     * @param prepare returns the encoded record, or null if there is nothing to write
+     * @param apply applies the record to the in-memory state
+     * @return whether a record was written
+     */
+    public boolean write(Supplier<byte[]> prepare, Runnable apply) {
+        long position;
+        boolean snapshotDue;
+        writeLock.lock();
+        try {
+            byte[] payload = prepare.get();
+            if (payload == null) {
+                return false;
+            }
+            append(payload);
+            apply.run();
+            position = written;
+            snapshotDue = ++appendedSinceSnapshot >= snapshotEvery;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to customer log", e);
+        } finally {
+            writeLock.unlock();
+        }
+        if (snapshotDue && snapshotting.compareAndSet(false, true)) {
+            snapshotThread = Thread.ofVirtual().name("customer-log-snapshot").start(this::snapshotQuietly);
+        }
+        awaitDurable(position);
+        return true;
+    }
+
+    private void append(byte[] payload) throws IOException {
+        int size = HEADER_BYTES + payload.length;
+        if (region.remaining() < size) {
+            region.force();
+            durable.accumulateAndGet(written, Math::max);
+            regionStart += region.position();
+            region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, Math.max(regionSize, size));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        region.putInt(payload.length);
+        region.putInt((int) crc.getValue());
+        region.put(payload);
+        written += size;
+    }
+
+    /**
+     * Wait until everything up to the position is on disk. The first waiter forces the
+     * mapped region for everyone who appended before it, later ones wait for that flush.
+     */
+    private void awaitDurable(long position) {
+        if (!sync) {
+            return;
+        }
+        while (durable.get() < position) {
+            if (flushing.compareAndSet(false, true)) {
+                try {
+                    MappedByteBuffer buffer;
+                    long upTo;
+                    writeLock.lock();
+                    try {
+                        buffer = region;
+                        upTo = written;
+                    } finally {
+                        writeLock.unlock();
+                    }
+                    buffer.force();
+                    durable.accumulateAndGet(upTo, Math::max);
+                } finally {
+                    flushing.set(false);
+                    synchronized (flushMonitor) {
+                        flushMonitor.notifyAll();
+                    }
+                }
+            } else {
+                synchronized (flushMonitor) {
+                    if (flushing.get() && durable.get() < position) {
+                        try {
+                            flushMonitor.wait(1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IllegalStateException("Interrupted while waiting for customer log flush", e);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Rotate the log and write a snapshot of the current state, then delete the files it replaces
+     */
+    public void snapshot() throws IOException {
+        long snapshotGeneration;
+        Collection<Customer> state;
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            region.force();
+            durable.accumulateAndGet(written, Math::max);
+            channel.close();
+            generation++;
+            channel = FileChannel.open(logPath(generation),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            regionStart = 0;
+            region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+            appendedSinceSnapshot = 0;
+            snapshotGeneration = generation;
+            state = snapshotSource.get();
+        } finally {
+            writeLock.unlock();
+        }
+
+        long start = System.nanoTime();
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SUFFIX + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(file), 1 << 16));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(state.size());
+            for (Customer customer : state) {
+                writeRecord(out, putRecord(customer));
+            }
+            out.writeInt(SNAPSHOT_END);
+            out.writeLong(state.size());
+            out.flush();
+            file.force(true);
+        }
+        Files.move(temporary, snapshotPath(snapshotGeneration), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        for (long old : generations(SNAPSHOT_PREFIX)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(snapshotPath(old));
+            }
+        }
+        for (long old : generations(LOG_PREFIX)) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(logPath(old));
+            }
+        }
+        logger.info("Wrote customer snapshot generation {} with {} customers in {} ms",
+                snapshotGeneration, state.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write customer snapshot", e);
+        } finally {
+            snapshotting.set(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        Thread snapshot = snapshotThread;
+        if (snapshot != null) {
+            try {
+                snapshot.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        writeLock.lock();
+        try {
+            closed = true;
+            if (channel != null && channel.isOpen()) {
+                region.force();
+                durable.accumulateAndGet(written, Math::max);
+                channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public static byte[] putRecord(Customer customer) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 16 + 4 * 4
+                + utf8Length(customer.getFirstName()) + utf8Length(customer.getLastName())
+                + utf8Length(customer.getEmail()) + utf8Length(customer.getGithubUsername()));
+        buffer.put(PUT);
+        putId(buffer, customer.getId());
+        putString(buffer, customer.getFirstName());
+        putString(buffer, customer.getLastName());
+        putString(buffer, customer.getEmail());
+        putString(buffer, customer.getGithubUsername());
+        return buffer.array();
+    }
+
+    public static byte[] deleteRecord(UUID id) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 16);
+        buffer.put(DELETE);
+        putId(buffer, id);
+        return buffer.array();
+    }
+
+    public static byte[] clearRecord() {
+        return new byte[] {CLEAR};
+    }
+
+    private static void decode(byte[] payload, Replay replay) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        byte type = buffer.get();
+        switch (type) {
+            case PUT -> {
+                Customer customer = new Customer();
+                customer.setId(new UUID(buffer.getLong(), buffer.getLong()));
+                customer.setFirstName(getString(buffer));
+                customer.setLastName(getString(buffer));
+                customer.setEmail(getString(buffer));
+                customer.setGithubUsername(getString(buffer));
+                replay.put(customer);
+            }
+            case DELETE -> replay.delete(new UUID(buffer.getLong(), buffer.getLong()));
+            case CLEAR -> replay.clear();
+            default -> throw new IllegalStateException("Unknown customer log record type " + type);
+        }
+    }
+
+    private static void putId(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static int utf8Length(String value) {
+        return value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void writeRecord(DataOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        out.writeInt(payload.length);
+        out.writeInt((int) crc.getValue());
+        out.write(payload);
+    }
+
+    /**
+     * @return the payload, or null at a torn or corrupt record
+     */
+    private static byte[] readRecord(DataInputStream in, long remaining) throws IOException {
+        if (remaining < HEADER_BYTES) {
+            return null;
+        }
+        int length = in.readInt();
+        int checksum = in.readInt();
+        if (length <= 0 || length > remaining - HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    private record ReplayedLog(long validEnd, int records) {
+    }
+
+    private static ReplayedLog replayLog(Path path, Replay replay) throws IOException {
+        long size = Files.size(path);
+        long position = 0;
+        int records = 0;
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            byte[] payload;
+            while ((payload = readRecord(in, size - position)) != null) {
+                decode(payload, replay);
+                position += HEADER_BYTES + payload.length;
+                records++;
+            }
+        }
+        if (position < size) {
+            logger.debug("Customer log {} ends at byte {} of {}", path, position, size);
+        }
+        return new ReplayedLog(position, records);
+    }
+
+    /**
+     * @return whether the snapshot was complete
+     */
+    private boolean readSnapshot(long snapshotGeneration, Replay replay) throws IOException {
+        Path path = snapshotPath(snapshotGeneration);
+        long size = Files.size(path);
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(file, 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                return false;
+            }
+            long count = in.readLong();
+            long position = 12;
+            for (long i = 0; i < count; i++) {
+                byte[] payload = readRecord(in, size - position);
+                if (payload == null) {
+                    return false;
+                }
+                decode(payload, replay);
+                position += HEADER_BYTES + payload.length;
+            }
+            return in.readInt() == SNAPSHOT_END && in.readLong() == count;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    private List<Long> generations(String prefix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(SUFFIX))
+                    .forEach(name -> generations.add(
+                            Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length()))));
+        }
+        generations.sort(Comparator.naturalOrder());
+        return generations;
+    }
+
+    private Path logPath(long logGeneration) {
+        return directory.resolve(LOG_PREFIX + logGeneration + SUFFIX);
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(SNAPSHOT_PREFIX + snapshotGeneration + SUFFIX);
+    }
+
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // not supported on every platform, the snapshot itself is already on disk
+            logger.debug("Could not force customer log directory", e);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bloom filters of all customer ids and GitHub usernames, so lookups of customers that do not exist
+ * can mostly be answered without a database round trip. A negative answer is definite, a positive
+ * one is wrong with about the configured false-positive rate.
+ * <p>
+ * The filters are built at startup, until then every lookup goes to the database. Customers are added
+ * before their transaction commits, so no committed customer is ever missing. Bloom filters cannot
+ * remove values, so deleted customers stay in the filters until they are rebuilt, which happens when
+ * the deletions or insertions outgrow the size the filters were built for.
+ * Customers created on other nodes are added when the {@link CustomerInvalidationBus} reports them,
+ * and customers inserted bypassing {@link CustomerService} only after a restart.
+ * With a {@link CustomerRepositorySupport} backend the customers are loaded through the repository.
+ * Enable with customers.membership-filter.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.membership-filter.enabled", havingValue = "true")
+public class CustomerMembershipFilter {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerMembershipFilter.class);
+
+    private static final int RELOAD_BATCH_SIZE = 500;
+
+    private record Filters(BloomFilter ids, BloomFilter githubUsernames) {
+    }
+
+    private record Member(UUID id, String githubUsername) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final double falsePositiveRate;
+    private final long minExpectedInsertions;
+    private final Counter idNegatives;
+    private final Counter githubUsernameNegatives;
+    private final AtomicLong deletions = new AtomicLong();
+    // members of transactions that have not completed yet, which a rebuild may not see
+    private final Set<Member> inFlight = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private final Object buildLock = new Object();
+
+    private volatile Filters filters;
+    // members added while a build runs, guarded by lock
+    private List<Member> addedDuringBuild = new ArrayList<>();
+
+    public CustomerMembershipFilter(JdbcTemplate jdbcTemplate, CustomerRepository customerRepository, MeterRegistry meterRegistry,
+                                    @Value("${customers.membership-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                    @Value("${customers.membership-filter.min-expected-insertions:100000}") long minExpectedInsertions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minExpectedInsertions = minExpectedInsertions;
+        this.idNegatives = meterRegistry.counter("customers.membership-filter.negatives", "filter", "id");
+        this.githubUsernameNegatives = meterRegistry.counter("customers.membership-filter.negatives", "filter", "github-username");
+        gauges(meterRegistry, "id", Filters::ids);
+        gauges(meterRegistry, "github-username", Filters::githubUsernames);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Build new filters from the stored customers, sized for twice their current number
+     */
+    public void rebuild() {
+        synchronized (buildLock) {
+            long start = System.nanoTime();
+            synchronized (lock) {
+                if (addedDuringBuild == null) {
+                    addedDuringBuild = new ArrayList<>(inFlight);
+                }
+            }
+            long count;
+            final Filters built;
+            if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+                List<Customer> customers = customerRepository.findAll();
+                count = customers.size();
+                built = newFilters(count);
+                customers.forEach(customer -> add(built, customer.getId(), customer.getGithubUsername()));
+            } else {
+                Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class);
+                count = rows == null ? 0 : rows;
+                built = newFilters(count);
+                jdbcTemplate.query("SELECT id, github_username FROM customers",
+                        (RowCallbackHandler) resultSet -> add(built, resultSet.getObject(1, UUID.class), resultSet.getString(2)));
+            }
+
+            synchronized (lock) {
+                for (Member member : addedDuringBuild) {
+                    add(built, member.id(), member.githubUsername());
+                }
+                addedDuringBuild = null;
+                filters = built;
+            }
+            logger.info("Built customer membership filters for {} customers with {} KB in {} ms", count,
+                    (built.ids().getSizeInBytes() + built.githubUsernames().getSizeInBytes()) / 1024,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private Filters newFilters(long customers) {
+        long expectedInsertions = Math.max(minExpectedInsertions, 2 * customers);
+        deletions.set(0);
+        return new Filters(new BloomFilter(expectedInsertions, falsePositiveRate),
+                new BloomFilter(expectedInsertions, falsePositiveRate));
+    }
+
+    /**
+     * @return false if no customer has the id, true if one might have it
+     */
+    public boolean mightContainId(UUID id) {
+        Filters current = filters;
+        if (current == null || current.ids().mightContain(BloomFilter.hash(id))) {
+            return true;
+        }
+        idNegatives.increment();
+        return false;
+    }
+
+    /**
+     * @return false if no customer has the GitHub username, true if one might have it
+     */
+    public boolean mightContainGithubUsername(String githubUsername) {
+        Filters current = filters;
+        if (current == null || githubUsername == null
+                || current.githubUsernames().mightContain(BloomFilter.hash(githubUsername))) {
+            return true;
+        }
+        githubUsernameNegatives.increment();
+        return false;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        if (event.getType() == CustomerChangeEvent.Type.DELETED) {
+            deletions.incrementAndGet();
+        } else {
+            Member member = new Member(event.getCustomerId(), event.getAfter().getGithubUsername());
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                inFlight.add(member);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        inFlight.remove(member);
+                    }
+                });
+            }
+            add(member);
+        }
+        rebuildIfOutgrown();
+    }
+
+    /**
+     * Customers created on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(event.getCustomerIds());
+        if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+            customerRepository.findAllById(ids).forEach(customer -> add(new Member(customer.getId(), customer.getGithubUsername())));
+            rebuildIfOutgrown();
+            return;
+        }
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            jdbcTemplate.query("SELECT id, github_username FROM customers WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    (RowCallbackHandler) resultSet -> add(new Member(resultSet.getObject(1, UUID.class), resultSet.getString(2))),
+                    batch.toArray());
+        }
+        rebuildIfOutgrown();
+    }
+
+    private void add(Member member) {
+        synchronized (lock) {
+            if (addedDuringBuild != null) {
+                addedDuringBuild.add(member);
+            }
+            Filters current = filters;
+            if (current != null) {
+                add(current, member.id(), member.githubUsername());
+            }
+        }
+    }
+
+    private static void add(Filters target, UUID id, String githubUsername) {
+        target.ids().add(BloomFilter.hash(id));
+        if (githubUsername != null) {
+            target.githubUsernames().add(BloomFilter.hash(githubUsername));
+        }
+    }
+
+    private void rebuildIfOutgrown() {
+        Filters current = filters;
+        if (current == null) {
+            return;
+        }
+        long expected = current.ids().getExpectedInsertions();
+        if (current.ids().getInsertions() > expected || deletions.get() > expected / 2) {
+            synchronized (lock) {
+                if (addedDuringBuild != null) {
+                    return;
+                }
+                addedDuringBuild = new ArrayList<>(inFlight);
+            }
+            Thread.ofVirtual().name("customer-membership-filter-rebuild").start(this::rebuild);
+        }
+    }
+
+    private void gauges(MeterRegistry meterRegistry, String filter, Function<Filters, BloomFilter> selector) {
+        gauge(meterRegistry, "customers.membership-filter.false-positive-rate", filter, selector, BloomFilter::getFalsePositiveRate);
+        gauge(meterRegistry, "customers.membership-filter.size", filter, selector, BloomFilter::getSizeInBytes);
+        gauge(meterRegistry, "customers.membership-filter.insertions", filter, selector, BloomFilter::getInsertions);
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String filter,
+                       Function<Filters, BloomFilter> selector, ToDoubleFunction<BloomFilter> value) {
+        Gauge.builder(name, this, membershipFilter -> {
+                    Filters current = membershipFilter.filters;
+                    return current == null ? Double.NaN : value.applyAsDouble(selector.apply(current));
+                })
+                .tag("filter", filter)
+                .register(meterRegistry);
+    }
+}
@@ -3,14 +3,17 @@ package com.example.demo;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * Thrown for expected client errors, so no stack trace is captured
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class CustomerNotFoundException extends RuntimeException {
     
     public CustomerNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public CustomerNotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 }
@@ -0,0 +1,77 @@
+package com.example.demo;
+
+import java.util.UUID;
+
+/**
+ * DTO for one operation of a POST /api/customers/operations request.
+ * Create and update take all fields, patch only the fields to change, delete none.
+ */
+public class CustomerOperationDTO {
+
+    public enum Type {
+        CREATE, UPDATE, PATCH, DELETE
+    }
+    
+    private Type type;
+    private UUID id;
+    private String firstName;
+    private String lastName;
+    private String email;
+    
+    // Default constructor
+    public CustomerOperationDTO() {
+    }
+    
+    // Constructor with fields
+    public CustomerOperationDTO(Type type, UUID id, String firstName, String lastName, String email) {
+        this.type = type;
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+    }
+    
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    /**
+     * @return customer to update, patch or delete, ignored for creates
+     */
+    public UUID getId() {
+        return id;
+    }
+    
+    public void setId(UUID id) {
+        this.id = id;
+    }
+    
+    public String getFirstName() {
+        return firstName;
+    }
+    
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo;
+
+/**
+ * DTO for the result of one operation of a POST /api/customers/operations request,
+ * with the HTTP status the single operation would have returned
+ */
+public class CustomerOperationResultDTO {
+    
+    private int index;
+    private int status;
+    private CustomerResponseDTO customer;
+    private String error;
+    
+    // Default constructor
+    public CustomerOperationResultDTO() {
+    }
+    
+    // Constructor with fields
+    public CustomerOperationResultDTO(int index, int status, CustomerResponseDTO customer, String error) {
+        this.index = index;
+        this.status = status;
+        this.customer = customer;
+        this.error = error;
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public int getStatus() {
+        return status;
+    }
+    
+    public void setStatus(int status) {
+        this.status = status;
+    }
+    
+    /**
+     * @return created, updated or patched customer, null for deletes and failures
+     */
+    public CustomerResponseDTO getCustomer() {
+        return customer;
+    }
+    
+    public void setCustomer(CustomerResponseDTO customer) {
+        this.customer = customer;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
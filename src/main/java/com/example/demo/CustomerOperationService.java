@@ -0,0 +1,264 @@
+package com.example.demo;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Executes the operations of POST /api/customers/operations in chunks, each in one transaction
+ * that fails as a whole if one of its operations fails.
+ * <p>
+ * A chunk loads the customers it changes and the owners of the emails it sets with one query each,
+ * applies its operations in order, and flushes once, so Hibernate sends the inserts, updates and deletes
+ * as JDBC batches. Because Hibernate flushes inserts before updates and deletes, the chunk flushes early
+ * when an operation takes an email that an earlier operation of the chunk released.
+ * <p>
+ * The chunks can only be rolled back with a JPA repository. The {@link CustomerRepositorySupport} backends
+ * ("logstore", "sharded") apply every write immediately, so operations are rejected with them.
+ */
+@Service
+public class CustomerOperationService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerOperationService.class);
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private record Failure(HttpStatus status, String message) {
+    }
+
+    private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    public CustomerOperationService(CustomerRepository customerRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    Validator validator,
+                                    PlatformTransactionManager transactionManager) {
+        this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return whether the repository's writes take part in the chunk transactions, as operations require
+     */
+    public boolean isTransactional() {
+        return !CustomerRepositorySupport.isBackendOf(customerRepository);
+    }
+
+    /**
+     * Execute customer operations in order
+     * @param operations operations to execute
+     * @param chunkSize number of operations per transaction
+     * @param authentication caller, who needs the ADMIN role for deletes as in {@link SecurityConfig}
+     * @return one result per operation; the operations of a failed chunk are rolled back and
+     *         those that did not fail themselves have status 424
+     * @throws UnsupportedOperationException if the repository is not {@link #isTransactional()}
+     */
+    public List<CustomerOperationResultDTO> executeOperations(List<CustomerOperationDTO> operations, int chunkSize,
+                                                              Authentication authentication) {
+        if (!isTransactional()) {
+            throw new UnsupportedOperationException("Customer operations cannot be rolled back with "
+                    + AopUtils.getTargetClass(customerRepository).getSimpleName());
+        }
+        logger.info("Executing {} customer operations in chunks of {}", operations.size(), chunkSize);
+        boolean admin = authentication != null && authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(ADMIN_AUTHORITY::equals);
+        List<CustomerOperationResultDTO> results = new ArrayList<>(operations.size());
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            List<CustomerOperationDTO> chunk = operations.subList(from, Math.min(from + chunkSize, operations.size()));
+            results.addAll(executeChunk(chunk, from, admin));
+        }
+        return results;
+    }
+
+    private List<CustomerOperationResultDTO> executeChunk(List<CustomerOperationDTO> chunk, int offset, boolean admin) {
+        CustomerOperationResultDTO[] results = new CustomerOperationResultDTO[chunk.size()];
+        try {
+            List<CustomerChangeEvent> events = transactionTemplate.execute(status -> {
+                List<CustomerChangeEvent> applied = apply(chunk, offset, admin, results);
+                if (applied == null) {
+                    status.setRollbackOnly();
+                    return List.of();
+                }
+                // surface unique constraint violations here instead of at commit
+                customerRepository.flush();
+                applied.forEach(eventPublisher::publishEvent);
+                return applied;
+            });
+            logger.debug("Executed {} of {} customer operations from index {}", events.size(), chunk.size(), offset);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Customer operations from index {} conflict with a concurrent change: {}", offset, e.getMessage());
+            Failure conflict = new Failure(HttpStatus.CONFLICT, "Customer email was taken by a concurrent change, operations rolled back");
+            for (int i = 0; i < results.length; i++) {
+                results[i] = result(offset + i, conflict);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @return change events of the operations, or null if one failed
+     */
+    private List<CustomerChangeEvent> apply(List<CustomerOperationDTO> chunk, int offset, boolean admin,
+                                            CustomerOperationResultDTO[] results) {
+        // checks that need no database access
+        boolean failed = false;
+        for (int i = 0; i < chunk.size(); i++) {
+            Failure failure = check(chunk.get(i), admin);
+            if (failure != null) {
+                results[i] = result(offset + i, failure);
+                failed = true;
+            }
+        }
+        if (failed) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == null) {
+                    results[i] = result(offset + i, new Failure(HttpStatus.FAILED_DEPENDENCY,
+                            "Not executed because another operation failed"));
+                }
+            }
+            return null;
+        }
+
+        Set<UUID> ids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (CustomerOperationDTO operation : chunk) {
+            if (operation.getType() != CustomerOperationDTO.Type.CREATE) {
+                ids.add(operation.getId());
+            }
+            if (operation.getEmail() != null) {
+                emails.add(Customer.normalizeEmail(operation.getEmail()));
+            }
+        }
+        Map<UUID, Customer> customers = new HashMap<>();
+        if (!ids.isEmpty()) {
+            customerRepository.findAllById(ids).forEach(customer -> customers.put(customer.getId(), customer));
+        }
+        Map<String, UUID> emailOwners = new HashMap<>();
+        if (!emails.isEmpty()) {
+            customerRepository.findByEmailNormalizedIn(emails)
+                    .forEach(customer -> emailOwners.put(customer.getEmailNormalized(), customer.getId()));
+        }
+
+        List<CustomerChangeEvent> events = new ArrayList<>(chunk.size());
+        // emails released since the last flush, see the class comment
+        Set<String> releasedEmails = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CustomerOperationDTO operation = chunk.get(i);
+            Customer customer = operation.getType() == CustomerOperationDTO.Type.CREATE ? new Customer()
+                    : customers.get(operation.getId());
+            if (customer == null) {
+                fail(results, offset, i, new Failure(HttpStatus.NOT_FOUND, "Customer not found with ID: " + operation.getId()));
+                return null;
+            }
+            if (operation.getType() == CustomerOperationDTO.Type.DELETE) {
+                customers.remove(customer.getId());
+                String email = Customer.normalizeEmail(customer.getEmail());
+                emailOwners.remove(email, customer.getId());
+                releasedEmails.add(email);
+                customerRepository.delete(customer);
+                events.add(CustomerChangeEvent.deleted(customer));
+                results[i] = new CustomerOperationResultDTO(offset + i, HttpStatus.NO_CONTENT.value(), null, null);
+                continue;
+            }
+
+            boolean patch = operation.getType() == CustomerOperationDTO.Type.PATCH;
+            CustomerRequestDTO values = new CustomerRequestDTO(
+                    patch && operation.getFirstName() == null ? customer.getFirstName() : operation.getFirstName(),
+                    patch && operation.getLastName() == null ? customer.getLastName() : operation.getLastName(),
+                    patch && operation.getEmail() == null ? customer.getEmail() : operation.getEmail());
+            Set<ConstraintViolation<CustomerRequestDTO>> violations = validator.validate(values);
+            if (!violations.isEmpty()) {
+                fail(results, offset, i, new Failure(HttpStatus.BAD_REQUEST, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", "))));
+                return null;
+            }
+            String email = Customer.normalizeEmail(values.getEmail());
+            UUID owner = emailOwners.get(email);
+            if (owner != null && !owner.equals(customer.getId())) {
+                fail(results, offset, i, new Failure(HttpStatus.CONFLICT, "Customer with this email already exists: " + values.getEmail()));
+                return null;
+            }
+            if (releasedEmails.remove(email)) {
+                customerRepository.flush();
+                releasedEmails.clear();
+            }
+
+            Customer before = customer.getId() == null ? null : CustomerChangeEvent.copyOf(customer);
+            if (before != null) {
+                String previousEmail = Customer.normalizeEmail(before.getEmail());
+                if (!previousEmail.equals(email)) {
+                    emailOwners.remove(previousEmail, customer.getId());
+                    releasedEmails.add(previousEmail);
+                }
+            }
+            customer.setFirstName(values.getFirstName());
+            customer.setLastName(values.getLastName());
+            customer.setEmail(values.getEmail());
+            customer = customerRepository.save(customer);
+            emailOwners.put(email, customer.getId());
+            if (before == null) {
+                customers.put(customer.getId(), customer);
+                events.add(CustomerChangeEvent.created(customer));
+            } else {
+                events.add(CustomerChangeEvent.updated(before, customer));
+            }
+            results[i] = new CustomerOperationResultDTO(offset + i,
+                    (before == null ? HttpStatus.CREATED : HttpStatus.OK).value(),
+                    CustomerResponseDTO.fromCustomerDTO(CustomerService.convertToDTO(customer)), null);
+        }
+        return events;
+    }
+
+    private static Failure check(CustomerOperationDTO operation, boolean admin) {
+        if (operation == null || operation.getType() == null) {
+            return new Failure(HttpStatus.BAD_REQUEST, "Operation type is required");
+        }
+        if (operation.getType() == CustomerOperationDTO.Type.DELETE && !admin) {
+            return new Failure(HttpStatus.FORBIDDEN, "Deleting customers requires the ADMIN role");
+        }
+        if (operation.getType() != CustomerOperationDTO.Type.CREATE && operation.getId() == null) {
+            return new Failure(HttpStatus.BAD_REQUEST, "Customer ID is required");
+        }
+        return null;
+    }
+
+    /**
+     * Record the failure of an operation; the operations before it are rolled back and those after it not executed
+     */
+    private static void fail(CustomerOperationResultDTO[] results, int offset, int failed, Failure failure) {
+        for (int i = 0; i < results.length; i++) {
+            results[i] = i == failed ? result(offset + i, failure) : result(offset + i, new Failure(HttpStatus.FAILED_DEPENDENCY,
+                    (i < failed ? "Rolled back because operation " : "Not executed because operation ") + (offset + failed) + " failed"));
+        }
+    }
+
+    private static CustomerOperationResultDTO result(int index, Failure failure) {
+        return new CustomerOperationResultDTO(index, failure.status().value(), null, failure.message());
+    }
+}
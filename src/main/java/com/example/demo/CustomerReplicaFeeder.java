@@ -0,0 +1,151 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for database replication: copies the customers table to the replica at startup
+ * and then replays every committed {@link CustomerChangeEvent} on it in sequence order,
+ * optionally delayed to simulate replication lag. Listeners of concurrent commits can report them
+ * out of order, so a replayed change copies the row's current state from the primary rather than the
+ * state in the event, and the replica converges to the primary either way.
+ */
+@Component
+@Profile("replica")
+public class CustomerReplicaFeeder implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerReplicaFeeder.class);
+
+    private static final int COPY_BATCH_SIZE = 1000;
+    private static final String SELECT_SQL = "SELECT id, first_name, last_name, email, github_username FROM customers";
+    private static final String MERGE_SQL =
+            "MERGE INTO customers (id, first_name, last_name, email, github_username) KEY (id) VALUES (?, ?, ?, ?, ?)";
+
+    private record Change(long sequence, UUID customerId, long dueNanos) {
+    }
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaConsistency consistency;
+    private final Duration lag;
+    // sequence numbers are assigned and queued under one lock, so the queue is in sequence order
+    private final Object enqueueLock = new Object();
+    private final BlockingQueue<Change> changes = new LinkedBlockingQueue<>();
+    private volatile Thread worker;
+
+    public CustomerReplicaFeeder(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaConsistency consistency,
+                                 @Value("${customers.replica.lag:0ms}") Duration lag) {
+        this.primary = new JdbcTemplate(primaryDataSource);
+        this.replica = new JdbcTemplate(replicaDataSource);
+        this.consistency = consistency;
+        this.lag = lag;
+    }
+
+    /**
+     * Copy the table, then start replaying the changes queued since startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long start = System.nanoTime();
+        replica.update("DELETE FROM customers");
+        List<Object[]> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        int[] copied = new int[1];
+        primary.query(SELECT_SQL,
+                (RowCallbackHandler) resultSet -> {
+                    batch.add(row(resultSet));
+                    if (batch.size() == COPY_BATCH_SIZE) {
+                        copied[0] += batch.size();
+                        replica.batchUpdate(MERGE_SQL, batch);
+                        batch.clear();
+                    }
+                });
+        copied[0] += batch.size();
+        replica.batchUpdate(MERGE_SQL, batch);
+        logger.info("Copied {} customers to the replica in {} ms", copied[0], (System.nanoTime() - start) / 1_000_000);
+
+        worker = Thread.ofVirtual().name("customer-replica-feeder").start(this::replay);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        synchronized (enqueueLock) {
+            long sequence = consistency.recordWrite();
+            changes.add(new Change(sequence, event.getCustomerId(), System.nanoTime() + lag.toNanos()));
+        }
+    }
+
+    private void replay() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Change change = changes.take();
+                long wait = change.dueNanos() - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                try {
+                    apply(change.customerId());
+                } catch (RuntimeException e) {
+                    // the replica diverges until the next restart, reads of this customer may be stale
+                    logger.error("Failed to replay change of customer {} on the replica", change.customerId(), e);
+                }
+                consistency.applied(change.sequence());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(UUID customerId) {
+        List<Object[]> rows = primary.query(SELECT_SQL + " WHERE id = ?", (resultSet, rowNum) -> row(resultSet), customerId);
+        if (rows.isEmpty()) {
+            replica.update("DELETE FROM customers WHERE id = ?", customerId);
+            return;
+        }
+        Object[] row = rows.get(0);
+        try {
+            replica.update(MERGE_SQL, row);
+        } catch (DataIntegrityViolationException e) {
+            // another customer released the email or GitHub username on the primary but its change is still queued,
+            // drop its stale row here, replaying its change copies it back
+            replica.update("DELETE FROM customers WHERE id <> ? AND (email_normalized = LOWER(TRIM(?)) OR github_username = ?)",
+                    row[0], row[3], row[4]);
+            replica.update(MERGE_SQL, row);
+        }
+    }
+
+    private static Object[] row(ResultSet resultSet) throws SQLException {
+        return new Object[] {resultSet.getObject(1, UUID.class), resultSet.getString(2),
+                resultSet.getString(3), resultSet.getString(4), resultSet.getString(5)};
+    }
+
+    @Override
+    public void destroy() {
+        Thread replaying = worker;
+        if (replaying != null) {
+            replaying.interrupt();
+        }
+    }
+}
@@ -2,10 +2,28 @@ package com.example.demo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     Optional<Customer> findByGithubUsername(String githubUsername);
+
+    /**
+     * @param emailNormalized email as returned by {@link Customer#normalizeEmail}
+     */
+    Optional<Customer> findByEmailNormalized(String emailNormalized);
+
+    /**
+     * Range scan of the email_normalized index
+     * @param prefix normalized email prefix
+     */
+    List<Customer> findByEmailNormalizedStartingWith(String prefix);
+
+    /**
+     * @param emailsNormalized emails as returned by {@link Customer#normalizeEmail}
+     */
+    List<Customer> findByEmailNormalizedIn(Collection<String> emailsNormalized);
 }
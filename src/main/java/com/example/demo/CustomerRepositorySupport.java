@@ -0,0 +1,377 @@
+package com.example.demo;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.data.repository.query.FluentQuery;
+import org.springframework.data.support.ExampleMatcherAccessor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Base class for {@link CustomerRepository} implementations that are not backed by JPA.
+ * Subclasses implement the core lookups and writes, everything else is derived from them.
+ * Query by example compares every customer in memory, with the same matching as the JPA repository.
+ */
+public abstract class CustomerRepositorySupport implements CustomerRepository {
+
+    private static final Map<String, Function<Customer, Object>> PROPERTIES = Map.of(
+            "id", Customer::getId,
+            "firstName", Customer::getFirstName,
+            "lastName", Customer::getLastName,
+            "email", Customer::getEmail,
+            "emailNormalized", Customer::getEmailNormalized,
+            "githubUsername", Customer::getGithubUsername);
+    private static final ProjectionFactory PROJECTIONS = new SpelAwareProxyProjectionFactory();
+
+    /**
+     * @return whether the repository is one of these backends, which keep customers outside the customers table
+     *         of the primary data source, so components that read that table must go through the repository
+     */
+    public static boolean isBackendOf(CustomerRepository repository) {
+        return CustomerRepositorySupport.class.isAssignableFrom(AopUtils.getTargetClass(repository));
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public List<Customer> findAllById(Iterable<UUID> ids) {
+        List<Customer> customers = new ArrayList<>();
+        for (UUID id : ids) {
+            findById(id).ifPresent(customers::add);
+        }
+        return customers;
+    }
+
+    @Override
+    public <S extends Customer> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        for (S entity : entities) {
+            saved.add(save(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public void delete(Customer entity) {
+        if (entity.getId() != null) {
+            deleteById(entity.getId());
+        }
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends UUID> ids) {
+        for (UUID id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Customer> entities) {
+        for (Customer entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public List<Customer> findAll(Sort sort) {
+        List<Customer> customers = findAll();
+        Comparator<Customer> comparator = comparator(sort);
+        if (comparator != null) {
+            customers.sort(comparator);
+        }
+        return customers;
+    }
+
+    @Override
+    public Page<Customer> findAll(Pageable pageable) {
+        return page(findAll(pageable.getSort()), pageable);
+    }
+
+    @Override
+    public void flush() {
+        // writes are applied immediately
+    }
+
+    @Override
+    public <S extends Customer> S saveAndFlush(S entity) {
+        return save(entity);
+    }
+
+    @Override
+    public <S extends Customer> List<S> saveAllAndFlush(Iterable<S> entities) {
+        return saveAll(entities);
+    }
+
+    @Override
+    public void deleteAllInBatch(Iterable<Customer> entities) {
+        deleteAll(entities);
+    }
+
+    @Override
+    public void deleteAllByIdInBatch(Iterable<UUID> ids) {
+        deleteAllById(ids);
+    }
+
+    @Override
+    public void deleteAllInBatch() {
+        deleteAll();
+    }
+
+    @Override
+    public Customer getOne(UUID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Customer getById(UUID id) {
+        return getReferenceById(id);
+    }
+
+    @Override
+    public Customer getReferenceById(UUID id) {
+        return findById(id).orElseThrow(() -> new EntityNotFoundException("Customer not found with ID: " + id));
+    }
+
+    @Override
+    public <S extends Customer> Optional<S> findOne(Example<S> example) {
+        return Optional.ofNullable(single(findAll(example)));
+    }
+
+    @Override
+    public <S extends Customer> List<S> findAll(Example<S> example) {
+        return findAll(example, Sort.unsorted());
+    }
+
+    @Override
+    public <S extends Customer> List<S> findAll(Example<S> example, Sort sort) {
+        List<S> found = new ArrayList<>();
+        for (Customer customer : findAll(sort)) {
+            if (matches(example, customer)) {
+                found.add(example.getProbeType().cast(customer));
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public <S extends Customer> Page<S> findAll(Example<S> example, Pageable pageable) {
+        return page(findAll(example, pageable.getSort()), pageable);
+    }
+
+    @Override
+    public <S extends Customer> long count(Example<S> example) {
+        return findAll(example).size();
+    }
+
+    @Override
+    public <S extends Customer> boolean exists(Example<S> example) {
+        return findAll().stream().anyMatch(customer -> matches(example, customer));
+    }
+
+    @Override
+    public <S extends Customer, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return queryFunction.apply(new ExampleQuery<>(example, Sort.unsorted(), Integer.MAX_VALUE, example.getProbeType()::cast));
+    }
+
+    /**
+     * Fluent query of the customers matching an example, projected with the mapper
+     */
+    private final class ExampleQuery<S extends Customer, T> implements FluentQuery.FetchableFluentQuery<T> {
+        private final Example<S> example;
+        private final Sort sort;
+        private final int limit;
+        private final Function<? super S, T> mapper;
+
+        ExampleQuery(Example<S> example, Sort sort, int limit, Function<? super S, T> mapper) {
+            this.example = example;
+            this.sort = sort;
+            this.limit = limit;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> sortBy(Sort sort) {
+            return new ExampleQuery<>(example, this.sort.and(sort), limit, mapper);
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> limit(int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit must not be negative");
+            }
+            return new ExampleQuery<>(example, sort, limit, mapper);
+        }
+
+        @Override
+        public <R> FluentQuery.FetchableFluentQuery<R> as(Class<R> resultType) {
+            if (resultType.isAssignableFrom(example.getProbeType())) {
+                return new ExampleQuery<>(example, sort, limit, resultType::cast);
+            }
+            if (resultType.isInterface()) {
+                return new ExampleQuery<>(example, sort, limit, customer -> PROJECTIONS.createProjection(resultType, customer));
+            }
+            throw new IllegalArgumentException("Cannot project customers to " + resultType.getName());
+        }
+
+        @Override
+        public FluentQuery.FetchableFluentQuery<T> project(Collection<String> properties) {
+            // customers are loaded with all their properties anyway
+            return this;
+        }
+
+        @Override
+        public T oneValue() {
+            return single(all());
+        }
+
+        @Override
+        public T firstValue() {
+            List<T> found = all();
+            return found.isEmpty() ? null : found.get(0);
+        }
+
+        @Override
+        public List<T> all() {
+            return stream().toList();
+        }
+
+        @Override
+        public Page<T> page(Pageable pageable) {
+            Sort pageSort = pageable.getSort().isSorted() ? pageable.getSort() : sort;
+            return CustomerRepositorySupport.page(findAll(example, pageSort), pageable).map(mapper);
+        }
+
+        @Override
+        public Stream<T> stream() {
+            return findAll(example, sort).stream().limit(limit).map(mapper);
+        }
+
+        @Override
+        public long count() {
+            return Math.min(CustomerRepositorySupport.this.count(example), limit);
+        }
+
+        @Override
+        public boolean exists() {
+            return limit > 0 && CustomerRepositorySupport.this.exists(example);
+        }
+    }
+
+    /**
+     * @return whether the customer matches every property of the probe the matcher includes, or any of them
+     */
+    private static boolean matches(Example<? extends Customer> example, Customer customer) {
+        if (!example.getProbeType().isInstance(customer)) {
+            return false;
+        }
+        ExampleMatcher matcher = example.getMatcher();
+        ExampleMatcherAccessor accessor = new ExampleMatcherAccessor(matcher);
+        boolean constrained = false;
+        for (Map.Entry<String, Function<Customer, Object>> property : PROPERTIES.entrySet()) {
+            String path = property.getKey();
+            if (accessor.isIgnoredPath(path)) {
+                continue;
+            }
+            Optional<Object> expected = accessor.getValueTransformerForPath(path)
+                    .apply(Optional.ofNullable(property.getValue().apply(example.getProbe())));
+            if (expected.isEmpty() && accessor.getNullHandler() == ExampleMatcher.NullHandler.IGNORE) {
+                continue;
+            }
+            constrained = true;
+            boolean matched = matches(accessor, path, expected.orElse(null), property.getValue().apply(customer));
+            if (matched != matcher.isAllMatching()) {
+                return matched;
+            }
+        }
+        // like in JPA, an example without properties to match matches every customer
+        return matcher.isAllMatching() || !constrained;
+    }
+
+    private static boolean matches(ExampleMatcherAccessor accessor, String path, Object expected, Object actual) {
+        if (expected == null) {
+            return actual == null;
+        }
+        if (!(expected instanceof String pattern) || !(actual instanceof String value)) {
+            return expected.equals(actual);
+        }
+        boolean ignoreCase = accessor.isIgnoreCaseForPath(path);
+        ExampleMatcher.StringMatcher stringMatcher = accessor.getStringMatcherForPath(path);
+        // lowercasing a regular expression would change its escapes, it gets a flag instead
+        if (ignoreCase && stringMatcher != ExampleMatcher.StringMatcher.REGEX) {
+            pattern = pattern.toLowerCase(Locale.ROOT);
+            value = value.toLowerCase(Locale.ROOT);
+        }
+        return switch (stringMatcher) {
+            case DEFAULT, EXACT -> value.equals(pattern);
+            case STARTING -> value.startsWith(pattern);
+            case ENDING -> value.endsWith(pattern);
+            case CONTAINING -> value.contains(pattern);
+            case REGEX -> Pattern.compile(pattern, ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0)
+                    .matcher(value).matches();
+        };
+    }
+
+    private static <T> T single(List<T> found) {
+        if (found.size() > 1) {
+            throw new IncorrectResultSizeDataAccessException(1, found.size());
+        }
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private static <T> Page<T> page(List<T> sorted, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(sorted);
+        }
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(new ArrayList<>(sorted.subList(from, to)), pageable, sorted.size());
+    }
+
+    /**
+     * @return comparator for the sort, or null if unsorted
+     */
+    static Comparator<Customer> comparator(Sort sort) {
+        Comparator<Customer> comparator = null;
+        for (Sort.Order order : sort) {
+            Function<Customer, String> property = switch (order.getProperty()) {
+                case "id" -> customer -> customer.getId() == null ? null : customer.getId().toString();
+                case "firstName" -> Customer::getFirstName;
+                case "lastName" -> Customer::getLastName;
+                case "email" -> Customer::getEmail;
+                case "githubUsername" -> Customer::getGithubUsername;
+                default -> throw new IllegalArgumentException("Cannot sort customers by " + order.getProperty());
+            };
+            Comparator<String> values = order.isIgnoreCase()
+                    ? Comparator.comparing((String value) -> value.toLowerCase(Locale.ROOT))
+                    : Comparator.naturalOrder();
+            Comparator<Customer> next = Comparator.comparing(property, Comparator.nullsLast(values));
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo;
 
+import com.example.jsoncodegen.GenerateJsonCodec;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -7,6 +8,7 @@ import jakarta.validation.constraints.Size;
 /**
  * DTO for customer creation and update requests with input validation
  */
+@GenerateJsonCodec
 public class CustomerRequestDTO {
     
     @NotBlank(message = "First name is required")
@@ -1,10 +1,13 @@
 package com.example.demo;
 
+import com.example.jsoncodegen.GenerateJsonCodec;
+
 import java.util.UUID;
 
 /**
  * DTO for customer responses from the API
  */
+@GenerateJsonCodec
 public class CustomerResponseDTO {
     
     private UUID id;
@@ -0,0 +1,31 @@
+package com.example.demo;
+
+/**
+ * Outcome of a {@link CustomerService} write, so expected failures are returned instead of thrown
+ */
+public sealed interface CustomerResult<T> {
+
+    record Found<T>(T value) implements CustomerResult<T> {
+    }
+
+    record NotFound<T>(String message) implements CustomerResult<T> {
+    }
+
+    /**
+     * The write would violate a unique constraint, e.g. a duplicate email
+     */
+    record Conflict<T>(String message) implements CustomerResult<T> {
+    }
+
+    static <T> CustomerResult<T> found(T value) {
+        return new Found<>(value);
+    }
+
+    static <T> CustomerResult<T> notFound(String message) {
+        return new NotFound<>(message);
+    }
+
+    static <T> CustomerResult<T> conflict(String message) {
+        return new Conflict<>(message);
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.demo;
 
+import com.example.jsoncodegen.GenerateJsonCodec;
+
 /**
  * DTO for customer search requests
  */
+@GenerateJsonCodec
 public class CustomerSearchDTO {
     
     private String firstName;
     private String lastName;
     private String email;
+    private Integer maxEditDistance;
+    private boolean phonetic;
     
     // Default constructor
     public CustomerSearchDTO() {
@@ -45,8 +50,27 @@ public class CustomerSearchDTO {
         this.email = email;
     }
     
+    public Integer getMaxEditDistance() {
+        return maxEditDistance;
+    }
+    
+    public void setMaxEditDistance(Integer maxEditDistance) {
+        this.maxEditDistance = maxEditDistance;
+    }
+    
+    public boolean isPhonetic() {
+        return phonetic;
+    }
+    
+    public void setPhonetic(boolean phonetic) {
+        this.phonetic = phonetic;
+    }
+    
     // Convert to SearchCriteria model
     public SearchCriteria toSearchCriteria() {
-        return new SearchCriteria(firstName, lastName, email);
+        SearchCriteria criteria = new SearchCriteria(firstName, lastName, email);
+        criteria.setMaxEditDistance(maxEditDistance);
+        criteria.setPhonetic(phonetic);
+        return criteria;
     }
 }
@@ -0,0 +1,72 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Fills the customers table with reproducible synthetic data when the seed profile is active,
+ * e.g. ./gradlew bootRun --args='--spring.profiles.active=seed --seed.count=10000000'
+ */
+@Component
+@Profile("seed")
+public class CustomerSeedRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSeedRunner.class);
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${seed.count:1000000}")
+    private long count;
+
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${seed.threads:#{T(java.lang.Math).min(8, T(java.lang.Runtime).getRuntime().availableProcessors())}}")
+    private int threads;
+
+    @Value("${seed.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${seed.exit:false}")
+    private boolean exit;
+
+    public CustomerSeedRunner(DataSource dataSource, JdbcTemplate jdbcTemplate, ConfigurableApplicationContext context) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class);
+        if (existing != null && existing > 0) {
+            logger.warn("Skipping seed: customers table already contains {} rows", existing);
+        } else {
+            logger.info("Seeding {} customers with seed {} using {} threads", count, randomSeed, threads);
+            new CustomerBulkLoader(dataSource, threads, batchSize, true)
+                    .load(new SyntheticCustomers(randomSeed), 0, count);
+        }
+
+        if (exit) {
+            exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * Terminate the JVM once seeding is done and the context is closed, with seed.exit=true
+     */
+    void exit(int status) {
+        System.exit(status);
+    }
+}
@@ -2,35 +2,76 @@ package com.example.demo;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
- * Service class for Customer management operations
+ * Service class for Customer management operations.
+ * Every operation runs in one transaction; reads are read-only, so Hibernate skips
+ * flushing and dirty-checking snapshots and the connection is marked read-only.
  */
 @Service
 public class CustomerService {
     private static final Logger logger = LoggerFactory.getLogger(CustomerService.class);
 
+    private static final int SCAN_DEADLINE_CHECK_INTERVAL = 4096;
+
     private final CustomerRepository customerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<CustomerColumnStore> columnStore;
+    private final ObjectProvider<CustomerMembershipFilter> membershipFilter;
+    private final ObjectProvider<CustomerSuggestIndex> suggestIndex;
+    private final ObjectProvider<CustomerFuzzyIndex> fuzzyIndex;
+    private final ObjectProvider<CustomerStats> stats;
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectProvider<CustomerColumnStore> columnStore,
+                           ObjectProvider<CustomerMembershipFilter> membershipFilter,
+                           ObjectProvider<CustomerSuggestIndex> suggestIndex,
+                           ObjectProvider<CustomerFuzzyIndex> fuzzyIndex,
+                           ObjectProvider<CustomerStats> stats) {
         this.customerRepository = customerRepository;
+        this.eventPublisher = eventPublisher;
+        this.columnStore = columnStore;
+        this.membershipFilter = membershipFilter;
+        this.suggestIndex = suggestIndex;
+        this.fuzzyIndex = fuzzyIndex;
+        this.stats = stats;
     }
 
     /**
      * Create a new customer from DTO
      * @param customerDTO data transfer object with customer details
      * @return CustomerDTO with generated ID
+     * @throws CustomerConflictException if the email is already in use
      */
+    @Transactional
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
+        return orThrow(tryCreateCustomer(customerDTO));
+    }
+
+    /**
+     * Create a new customer from DTO
+     * @param customerDTO data transfer object with customer details
+     * @return the CustomerDTO with generated ID, or a conflict if the email is already in use
+     */
+    @Transactional
+    public CustomerResult<CustomerDTO> tryCreateCustomer(CustomerDTO customerDTO) {
         logger.info("Creating new customer with email: {}", customerDTO.getEmail());
         
         Customer customer = new Customer();
@@ -38,10 +79,17 @@ public class CustomerService {
         customer.setLastName(customerDTO.getLastName());
         customer.setEmail(customerDTO.getEmail());
         
-        customer = customerRepository.save(customer);
+        try {
+            customer = customerRepository.save(customer);
+            // surface unique constraint violations here instead of at commit
+            customerRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            return conflict("Customer with this email already exists: " + customerDTO.getEmail());
+        }
         logger.debug("Created customer with ID: {}", customer.getId());
+        eventPublisher.publishEvent(CustomerChangeEvent.created(customer));
         
-        return convertToDTO(customer);
+        return CustomerResult.found(convertToDTO(customer));
     }
 
     /**
@@ -49,9 +97,10 @@ public class CustomerService {
      * @param id customer UUID
      * @return Optional containing CustomerDTO if found
      */
+    @Transactional(readOnly = true)
     public Optional<CustomerDTO> findCustomerById(UUID id) {
         logger.debug("Finding customer with ID: {}", id);
-        return customerRepository.findById(id).map(this::convertToDTO);
+        return findById(id).map(CustomerService::convertToDTO);
     }
 
     /**
@@ -60,24 +109,45 @@ public class CustomerService {
      * @param customerDTO updated customer details
      * @return updated CustomerDTO
      * @throws CustomerNotFoundException if customer doesn't exist
+     * @throws CustomerConflictException if the email is already in use by another customer
      */
+    @Transactional
     public CustomerDTO updateCustomer(UUID id, CustomerDTO customerDTO) {
+        return orThrow(tryUpdateCustomer(id, customerDTO));
+    }
+
+    /**
+     * Update existing customer details
+     * @param id customer UUID
+     * @param customerDTO updated customer details
+     * @return the updated CustomerDTO, not found, or a conflict if the email is already in use by another customer
+     */
+    @Transactional
+    public CustomerResult<CustomerDTO> tryUpdateCustomer(UUID id, CustomerDTO customerDTO) {
         logger.info("Updating customer with ID: {}", id);
         
-        Customer customer = customerRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Failed to update customer: ID {} not found", id);
-                    return new CustomerNotFoundException("Customer not found with ID: " + id);
-                });
+        Optional<Customer> found = findById(id);
+        if (found.isEmpty()) {
+            logger.debug("Failed to update customer: ID {} not found", id);
+            return CustomerResult.notFound("Customer not found with ID: " + id);
+        }
+        Customer customer = found.get();
+        Customer before = CustomerChangeEvent.copyOf(customer);
         
         customer.setFirstName(customerDTO.getFirstName());
         customer.setLastName(customerDTO.getLastName());
         customer.setEmail(customerDTO.getEmail());
         
-        customer = customerRepository.save(customer);
+        try {
+            customer = customerRepository.save(customer);
+            customerRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            return conflict("Customer with this email already exists: " + customerDTO.getEmail());
+        }
         logger.debug("Updated customer with ID: {}", id);
+        eventPublisher.publishEvent(CustomerChangeEvent.updated(before, customer));
         
-        return convertToDTO(customer);
+        return CustomerResult.found(convertToDTO(customer));
     }
 
     /**
@@ -85,16 +155,32 @@ public class CustomerService {
      * @param id customer UUID
      * @throws CustomerNotFoundException if customer doesn't exist
      */
+    @Transactional
     public void deleteCustomer(UUID id) {
+        orThrow(tryDeleteCustomer(id));
+    }
+
+    /**
+     * Delete customer by ID
+     * @param id customer UUID
+     * @return found with a null value if the customer was deleted, otherwise not found
+     */
+    @Transactional
+    public CustomerResult<Void> tryDeleteCustomer(UUID id) {
         logger.info("Deleting customer with ID: {}", id);
         
-        if (!customerRepository.existsById(id)) {
-            logger.error("Failed to delete customer: ID {} not found", id);
-            throw new CustomerNotFoundException("Customer not found with ID: " + id);
+        Optional<Customer> found = findById(id);
+        if (found.isEmpty()) {
+            logger.debug("Failed to delete customer: ID {} not found", id);
+            return CustomerResult.notFound("Customer not found with ID: " + id);
         }
+        Customer customer = found.get();
         
-        customerRepository.deleteById(id);
+        // deleting the loaded entity avoids the second select of deleteById
+        customerRepository.delete(customer);
         logger.debug("Deleted customer with ID: {}", id);
+        eventPublisher.publishEvent(CustomerChangeEvent.deleted(customer));
+        return CustomerResult.found(null);
     }
 
     /**
@@ -102,6 +188,7 @@ public class CustomerService {
      * @param criteria search parameters
      * @return list of matching CustomerDTOs
      */
+    @Transactional(readOnly = true)
     public List<CustomerDTO> searchCustomers(SearchCriteria criteria) {
         logger.debug("Searching customers with criteria: firstName={}, lastName={}, email={}",
                 criteria.getFirstName(), criteria.getLastName(), criteria.getEmail());
@@ -109,14 +196,42 @@ public class CustomerService {
         if (criteria.isEmpty()) {
             logger.debug("Empty search criteria, returning all customers");
             return customerRepository.findAll().stream()
-                    .map(this::convertToDTO)
+                    .map(CustomerService::convertToDTO)
+                    .collect(Collectors.toList());
+        }
+
+        if (criteria.isFuzzy()) {
+            return fuzzySearch(criteria);
+        }
+
+        String emailPrefix = criteria.getEmailPrefix();
+        if (emailPrefix != null) {
+            // a prefix is a range of the email_normalized index, which beats scanning even the columnar replica
+            List<CustomerDTO> results = customerRepository.findByEmailNormalizedStartingWith(emailPrefix).stream()
+                    .filter(customer -> containsIgnoreCase(customer.getFirstName(), criteria.getFirstName())
+                            && containsIgnoreCase(customer.getLastName(), criteria.getLastName()))
+                    .map(CustomerService::convertToDTO)
                     .collect(Collectors.toList());
+            logger.debug("Found {} customers with email prefix {}", results.size(), emailPrefix);
+            return results;
+        }
+
+        CustomerColumnStore store = columnStore.getIfAvailable();
+        if (store != null && store.isReady()) {
+            List<CustomerDTO> results = store.search(criteria);
+            logger.debug("Found {} customers matching search criteria in the columnar replica", results.size());
+            return results;
         }
         
         List<Customer> results = new ArrayList<>();
         List<Customer> allCustomers = customerRepository.findAll();
         
+        int scanned = 0;
         for (Customer customer : allCustomers) {
+            // stop scanning once the client stopped waiting
+            if (++scanned % SCAN_DEADLINE_CHECK_INTERVAL == 0) {
+                RequestDeadline.checkCurrent();
+            }
             boolean match = true;
             
             if (criteria.getFirstName() != null && !criteria.getFirstName().isEmpty()) {
@@ -138,18 +253,90 @@ public class CustomerService {
         
         logger.debug("Found {} customers matching search criteria", results.size());
         return results.stream()
-                .map(this::convertToDTO)
+                .map(CustomerService::convertToDTO)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Search by whole first and last names within an edit distance or by sound. The fuzzy index finds the
+     * matching customers without comparing every name, without it every customer is compared.
+     */
+    private List<CustomerDTO> fuzzySearch(SearchCriteria criteria) {
+        int maxEditDistance = criteria.getMaxEditDistance() == null ? 0 : criteria.getMaxEditDistance();
+        CustomerFuzzyIndex index = fuzzyIndex.getIfAvailable();
+        List<Customer> candidates;
+        if (index != null && index.isReady()) {
+            Set<UUID> ids = index.search(criteria.getFirstName(), criteria.getLastName(), maxEditDistance, criteria.isPhonetic());
+            candidates = ids.isEmpty() ? List.of() : customerRepository.findAllById(ids);
+        } else {
+            candidates = customerRepository.findAll().stream()
+                    .filter(customer -> CustomerFuzzyIndex.matches(customer.getFirstName(), criteria.getFirstName(),
+                            maxEditDistance, criteria.isPhonetic())
+                            && CustomerFuzzyIndex.matches(customer.getLastName(), criteria.getLastName(),
+                            maxEditDistance, criteria.isPhonetic()))
+                    .toList();
+        }
+
+        String emailPrefix = criteria.getEmailPrefix();
+        List<CustomerDTO> results = candidates.stream()
+                .filter(customer -> emailPrefix == null
+                        ? containsIgnoreCase(customer.getEmail(), criteria.getEmail())
+                        : Customer.normalizeEmail(customer.getEmail()).startsWith(emailPrefix))
+                .map(CustomerService::convertToDTO)
+                .collect(Collectors.toList());
+        logger.debug("Found {} customers matching fuzzy search criteria", results.size());
+        return results;
+    }
+
+    /**
+     * Suggest customers for autocomplete
+     * @param query start of the first name, last name or email, ignoring case and accents
+     * @param limit maximum number of suggestions
+     * @return matching customers in the alphabetical order of their matching name or email
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerSuggestIndex.Suggestion> suggestCustomers(String query, int limit) {
+        CustomerSuggestIndex index = suggestIndex.getIfAvailable();
+        if (index != null && index.isReady()) {
+            return index.suggest(query, limit);
+        }
+        return CustomerSuggestIndex.scan(customerRepository.findAll(), query, limit);
+    }
+
+    /**
+     * Get customer counts for dashboards
+     * @param top number of email domains with the most customers to include
+     * @return counts of all customers, with and without GitHub username, and per email domain
+     */
+    @Transactional(readOnly = true)
+    public CustomerStats.Summary getCustomerStats(int top) {
+        CustomerStats current = stats.getIfAvailable();
+        if (current != null && current.isReady()) {
+            return current.getSummary(top);
+        }
+        return CustomerStats.count(customerRepository.findAll(), top);
+    }
+
+    /**
+     * Get customer by email, ignoring case and surrounding whitespace
+     * @param email customer email
+     * @return Optional containing CustomerDTO if found
+     */
+    @Transactional(readOnly = true)
+    public Optional<CustomerDTO> findCustomerByEmail(String email) {
+        return customerRepository.findByEmailNormalized(Customer.normalizeEmail(email))
+                .map(CustomerService::convertToDTO);
+    }
+
     /**
      * Find or create a customer for a GitHub user
      * @param githubUsername GitHub username
      * @param customerDTO initial customer data (if creating)
      * @return CustomerDTO for the existing or new customer
      */
+    @Transactional
     public CustomerDTO findOrCreateCustomerForGithubUser(String githubUsername, CustomerDTO customerDTO) {
-        Optional<Customer> existingCustomer = customerRepository.findByGithubUsername(githubUsername);
+        Optional<Customer> existingCustomer = findByGithubUsername(githubUsername);
         
         if (existingCustomer.isPresent()) {
             return convertToDTO(existingCustomer.get());
@@ -162,6 +349,7 @@ public class CustomerService {
         newCustomer.setGithubUsername(githubUsername);
         
         newCustomer = customerRepository.save(newCustomer);
+        eventPublisher.publishEvent(CustomerChangeEvent.created(newCustomer));
         return convertToDTO(newCustomer);
     }
 
@@ -170,9 +358,10 @@ public class CustomerService {
      * @param githubUsername GitHub username
      * @return Optional containing CustomerDTO if found
      */
+    @Transactional(readOnly = true)
     public Optional<CustomerDTO> findCustomerByGithubUsername(String githubUsername) {
-        return customerRepository.findByGithubUsername(githubUsername)
-                .map(this::convertToDTO);
+        return findByGithubUsername(githubUsername)
+                .map(CustomerService::convertToDTO);
     }
 
     /**
@@ -182,22 +371,68 @@ public class CustomerService {
      * @return updated CustomerDTO
      * @throws CustomerNotFoundException if customer doesn't exist
      */
+    @Transactional
     public CustomerDTO updateCustomerForGithubUser(String githubUsername, CustomerDTO customerDTO) {
-        Customer customer = customerRepository.findByGithubUsername(githubUsername)
+        Customer customer = findByGithubUsername(githubUsername)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found for GitHub user: " + githubUsername));
+        Customer before = CustomerChangeEvent.copyOf(customer);
         
         customer.setFirstName(customerDTO.getFirstName());
         customer.setLastName(customerDTO.getLastName());
         customer.setEmail(customerDTO.getEmail());
         
         customer = customerRepository.save(customer);
+        eventPublisher.publishEvent(CustomerChangeEvent.updated(before, customer));
         return convertToDTO(customer);
     }
 
+    /**
+     * Roll back the current transaction without the exception that would otherwise surface at commit,
+     * as the failed flush left it marked rollback-only
+     */
+    private static <T> CustomerResult<T> conflict(String message) {
+        logger.debug("Customer write conflicts: {}", message);
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        }
+        return CustomerResult.conflict(message);
+    }
+
+    private static <T> T orThrow(CustomerResult<T> result) {
+        return switch (result) {
+            case CustomerResult.Found<T> found -> found.value();
+            case CustomerResult.NotFound<T> notFound -> throw new CustomerNotFoundException(notFound.message());
+            case CustomerResult.Conflict<T> conflict -> throw new CustomerConflictException(conflict.message());
+        };
+    }
+
+    /**
+     * Repository lookup that skips the database for ids the membership filter rules out
+     */
+    private Optional<Customer> findById(UUID id) {
+        CustomerMembershipFilter filter = membershipFilter.getIfAvailable();
+        if (filter != null && !filter.mightContainId(id)) {
+            return Optional.empty();
+        }
+        return customerRepository.findById(id);
+    }
+
+    private Optional<Customer> findByGithubUsername(String githubUsername) {
+        CustomerMembershipFilter filter = membershipFilter.getIfAvailable();
+        if (filter != null && !filter.mightContainGithubUsername(githubUsername)) {
+            return Optional.empty();
+        }
+        return customerRepository.findByGithubUsername(githubUsername);
+    }
+
+    private static boolean containsIgnoreCase(String value, String filter) {
+        return filter == null || filter.isEmpty() || value.toLowerCase().contains(filter.toLowerCase());
+    }
+
     /**
      * Helper method to convert Customer entity to CustomerDTO
      */
-    private CustomerDTO convertToDTO(Customer customer) {
+    static CustomerDTO convertToDTO(Customer customer) {
         return new CustomerDTO(
                 customer.getId(),
                 customer.getFirstName(),
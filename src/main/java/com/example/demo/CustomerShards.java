@@ -0,0 +1,112 @@
+package com.example.demo;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Independent H2 databases that customers are partitioned across by a hash of their id.
+ * Every shard has its own connection pool and is migrated with the regular Flyway migrations.
+ * Enable with the "sharded" profile.
+ */
+@Component
+@Profile("sharded")
+public class CustomerShards implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerShards.class);
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param count number of shards, changing it requires reloading all customers
+     * @param url JDBC URL pattern, {shard} is replaced with the shard number
+     */
+    public CustomerShards(@Value("${customers.shards.count:4}") int count,
+                          @Value("${customers.shards.url}") String url,
+                          @Value("${customers.shards.pool-size:10}") int poolSize,
+                          @Value("${spring.datasource.username:sa}") String username,
+                          @Value("${spring.datasource.password:}") String password) {
+        for (int shard = 0; shard < count; shard++) {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(url.replace("{shard}", String.valueOf(shard)));
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setPoolName("customer-shard-" + shard);
+            HikariDataSource dataSource = new HikariDataSource(config);
+            dataSources.add(dataSource);
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/migration")
+                    .load()
+                    .migrate();
+            jdbcTemplates.add(new RequestDeadlineJdbcTemplate(dataSource));
+        }
+        logger.info("Opened {} customer shards", count);
+    }
+
+    public int count() {
+        return jdbcTemplates.size();
+    }
+
+    /**
+     * @return the shard owning the customer with the id
+     */
+    public JdbcTemplate shardFor(UUID id) {
+        // mix the bits, ids from other sources than UUID.randomUUID may not be uniformly distributed
+        long hash = id.getMostSignificantBits() ^ id.getLeastSignificantBits();
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return jdbcTemplates.get((int) Math.floorMod(hash, (long) jdbcTemplates.size()));
+    }
+
+    /**
+     * Run the query on all shards in parallel, within the {@link RequestDeadline} of the caller
+     * @return the results in shard order
+     */
+    public <T> List<T> fanOut(Function<JdbcTemplate, T> query) {
+        List<Future<T>> futures = new ArrayList<>(jdbcTemplates.size());
+        for (JdbcTemplate jdbcTemplate : jdbcTemplates) {
+            futures.add(executor.submit(RequestDeadline.propagate(() -> query.apply(jdbcTemplate))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying customer shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to query customer shards", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void destroy() {
+        executor.close();
+        dataSources.forEach(HikariDataSource::close);
+    }
+}
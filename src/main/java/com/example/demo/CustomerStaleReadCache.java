@@ -0,0 +1,236 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Degraded mode for read endpoints: a read that does not complete within the soft timeout,
+ * or fails, is answered with the last value loaded for the same key, as long as that value is
+ * younger than the endpoint's maximum staleness. The load keeps running in the background and
+ * refreshes the value; concurrent reads of a key share a single load.
+ * <p>
+ * Values are evicted when {@link CustomerService} changes a customer, so a stale value is only
+ * behind on writes that bypass the service. Reads without a usable value wait for the load, but not past
+ * their {@link RequestDeadline}. A load runs within the deadline of the read that started it.
+ * Enable with customers.stale-reads.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.stale-reads.enabled", havingValue = "true")
+public class CustomerStaleReadCache implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerStaleReadCache.class);
+
+    public enum Endpoint {
+        BY_ID, SEARCH
+    }
+
+    /**
+     * @param age age of a stale value, null if the value is fresh
+     * @param warning Warning header value explaining a stale value, null if the value is fresh
+     */
+    public record Result<T>(T value, Duration age, String warning) {
+
+        public boolean isStale() {
+            return age != null;
+        }
+
+        /**
+         * Age and Warning headers that mark a stale value, empty for a fresh one
+         */
+        public HttpHeaders headers() {
+            HttpHeaders headers = new HttpHeaders();
+            if (isStale()) {
+                headers.set(HttpHeaders.AGE, Long.toString(age.toSeconds()));
+                headers.set(HttpHeaders.WARNING, warning);
+            }
+            return headers;
+        }
+    }
+
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    private static final String REVALIDATION_FAILED_WARNING = "111 - \"Revalidation Failed\"";
+
+    private record Key(Endpoint endpoint, Object key) {
+    }
+
+    private record Cached(Object value, long loadedNanos) {
+    }
+
+    private final Map<Key, Cached> values = new ConcurrentHashMap<>();
+    private final Map<Key, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService loaders = Executors.newVirtualThreadPerTaskExecutor();
+    // loads run with the security context of the read that started them, which replica routing depends on
+    private final Executor executor = new DelegatingSecurityContextExecutor(loaders);
+    private final MeterRegistry meterRegistry;
+    private final Duration softTimeout;
+    private final Duration byIdMaxStaleness;
+    private final Duration searchMaxStaleness;
+    private final int maxEntries;
+
+    public CustomerStaleReadCache(MeterRegistry meterRegistry,
+                                  @Value("${customers.stale-reads.soft-timeout:200ms}") Duration softTimeout,
+                                  @Value("${customers.stale-reads.max-staleness.by-id:30s}") Duration byIdMaxStaleness,
+                                  @Value("${customers.stale-reads.max-staleness.search:2m}") Duration searchMaxStaleness,
+                                  @Value("${customers.stale-reads.max-entries:10000}") int maxEntries) {
+        this.meterRegistry = meterRegistry;
+        this.softTimeout = softTimeout;
+        this.byIdMaxStaleness = byIdMaxStaleness;
+        this.searchMaxStaleness = searchMaxStaleness;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Load the value for the key, or fall back to the last loaded value if the load is slow or fails
+     * @param key identifies the read within the endpoint, must implement equals and hashCode
+     * @param loader performs the read, runs on another thread
+     * @throws RequestDeadlineExceededException if there is no usable value and the load does not complete
+     *                                          within the current request's deadline
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> read(Endpoint endpoint, Object key, Supplier<T> loader) {
+        Key cacheKey = new Key(endpoint, key);
+        CompletableFuture<Object> load = load(cacheKey, loader);
+        Cached cached = values.get(cacheKey);
+        Duration maxStaleness = endpoint == Endpoint.BY_ID ? byIdMaxStaleness : searchMaxStaleness;
+        long ageNanos = cached == null ? Long.MAX_VALUE : System.nanoTime() - cached.loadedNanos();
+        boolean usable = ageNanos <= maxStaleness.toNanos();
+        RequestDeadline deadline = RequestDeadline.current();
+        try {
+            Object value;
+            if (usable) {
+                value = load.get(softTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } else if (deadline != null) {
+                value = load.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                value = load.get();
+            }
+            return new Result<>((T) value, null, null);
+        } catch (TimeoutException e) {
+            if (!usable) {
+                throw new RequestDeadlineExceededException("Deadline of request to " + deadline.getEndpoint()
+                        + " exceeded while waiting for a " + endpoint + " read");
+            }
+            return stale(endpoint, cached, ageNanos, false);
+        } catch (ExecutionException e) {
+            if (usable) {
+                logger.warn("Serving stale {} read after the load failed", endpoint, e.getCause());
+                return stale(endpoint, cached, ageNanos, true);
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (usable) {
+                return stale(endpoint, cached, ageNanos, false);
+            }
+            throw new IllegalStateException("Interrupted while reading customers", e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void beforeCustomerChangeCommit(CustomerChangeEvent event) {
+        generation.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        generation.incrementAndGet();
+        values.remove(new Key(Endpoint.BY_ID, event.getCustomerId()));
+        values.keySet().removeIf(key -> key.endpoint() == Endpoint.SEARCH);
+    }
+
+    /**
+     * Changes made on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        generation.incrementAndGet();
+        if (event.isAll()) {
+            values.clear();
+            return;
+        }
+        event.getCustomerIds().forEach(id -> values.remove(new Key(Endpoint.BY_ID, id)));
+        values.keySet().removeIf(key -> key.endpoint() == Endpoint.SEARCH);
+    }
+
+    private CompletableFuture<Object> load(Key key, Supplier<?> loader) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> running = loads.putIfAbsent(key, created);
+        if (running != null) {
+            return running;
+        }
+        // a load that overlaps a change may have read the old state and is not kept
+        long loadGeneration = generation.get();
+        Callable<?> task = RequestDeadline.propagate(loader::get);
+        executor.execute(() -> {
+            try {
+                Object value = task.call();
+                if (generation.get() == loadGeneration) {
+                    Cached cached = new Cached(value, System.nanoTime());
+                    store(key, cached);
+                    // a change may have evicted the key between the check and the store, it bumps the generation first
+                    if (generation.get() != loadGeneration) {
+                        values.remove(key, cached);
+                    }
+                }
+                created.complete(value);
+            } catch (Throwable e) {
+                created.completeExceptionally(e);
+            } finally {
+                loads.remove(key, created);
+            }
+        });
+        return created;
+    }
+
+    private void store(Key key, Cached cached) {
+        if (values.size() >= maxEntries && !values.containsKey(key)) {
+            long oldest = System.nanoTime() - Math.max(byIdMaxStaleness.toNanos(), searchMaxStaleness.toNanos());
+            values.values().removeIf(existing -> existing.loadedNanos() - oldest < 0);
+            if (values.size() >= maxEntries) {
+                return;
+            }
+        }
+        values.put(key, cached);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> stale(Endpoint endpoint, Cached cached, long ageNanos, boolean failed) {
+        meterRegistry.counter("customers.stale-reads", "endpoint", endpoint.name().toLowerCase(Locale.ROOT),
+                "reason", failed ? "failure" : "timeout").increment();
+        return new Result<>((T) cached.value(), Duration.ofNanos(ageNanos),
+                failed ? REVALIDATION_FAILED_WARNING : STALE_WARNING);
+    }
+
+    @Override
+    public void destroy() {
+        loaders.shutdownNow();
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer counts for dashboards, kept current from {@link CustomerChangeEvent}s so reading them does not
+ * depend on the table size: the number of customers, how many have a GitHub username, and the number of
+ * customers per email domain, with the domains also kept ranked by that number for the top domains.
+ * <p>
+ * The counts are loaded from the database at startup and reconciled with it every reconcile-interval,
+ * which corrects drift, e.g. from changes on other nodes: those only arrive as
+ * {@link CustomerInvalidatedEvent}s without the previous values, so they bring the next reconciliation forward.
+ * Until the first load {@link CustomerService} counts the customers instead.
+ * With a {@link CustomerRepositorySupport} backend the customers are counted through the repository.
+ * Enable with customers.stats.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.stats.enabled", havingValue = "true")
+public class CustomerStats implements DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerStats.class);
+
+    // invalidations arrive in batches every few ms, do not reconcile for every one of them
+    private static final Duration MIN_RECONCILE_INTERVAL = Duration.ofSeconds(5);
+    private static final Comparator<DomainCount> RANKING =
+            Comparator.comparingLong(DomainCount::customers).reversed().thenComparing(DomainCount::domain);
+
+    public record DomainCount(String domain, long customers) {
+    }
+
+    /**
+     * @param domains number of distinct email domains
+     * @param topDomains email domains with the most customers, most first
+     * @param reconciledAt last reconciliation with the database, null if counted from the database on request
+     */
+    public record Summary(long customers, long withGithubUsername, long withoutGithubUsername, long domains,
+                          List<DomainCount> topDomains, Instant reconciledAt) {
+    }
+
+    private record Change(Customer before, Customer after) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final Duration reconcileInterval;
+    private final Object lock = new Object();
+    private final Object reconcileLock = new Object();
+    private final Semaphore reconcileRequests = new Semaphore(0);
+
+    // guarded by lock
+    private long customers;
+    private long withGithubUsername;
+    private final Map<String, Long> customersByDomain = new HashMap<>();
+    private final TreeSet<DomainCount> ranking = new TreeSet<>(RANKING);
+    // changes applied while a reconciliation reads the database, null if none runs
+    private List<Change> changedDuringReconcile;
+
+    private volatile Instant reconciledAt;
+    private volatile Thread worker;
+
+    public CustomerStats(JdbcTemplate jdbcTemplate, CustomerRepository customerRepository,
+                         @Value("${customers.stats.reconcile-interval:10m}") Duration reconcileInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+        worker = Thread.ofVirtual().name("customer-stats-reconciliation").start(this::reconcilePeriodically);
+    }
+
+    public boolean isReady() {
+        return reconciledAt != null;
+    }
+
+    /**
+     * @param top number of email domains to rank
+     */
+    public Summary getSummary(int top) {
+        synchronized (lock) {
+            List<DomainCount> topDomains = new ArrayList<>(Math.min(top, ranking.size()));
+            Iterator<DomainCount> domains = ranking.iterator();
+            while (topDomains.size() < top && domains.hasNext()) {
+                topDomains.add(domains.next());
+            }
+            return new Summary(customers, withGithubUsername, customers - withGithubUsername,
+                    customersByDomain.size(), topDomains, reconciledAt);
+        }
+    }
+
+    /**
+     * Same counts as {@link #getSummary} from the given customers, for when the stats are disabled or not loaded yet
+     */
+    public static Summary count(Collection<Customer> all, int top) {
+        Map<String, Long> byDomain = new HashMap<>();
+        long withGithubUsername = 0;
+        for (Customer customer : all) {
+            byDomain.merge(domain(customer.getEmail()), 1L, Long::sum);
+            if (customer.getGithubUsername() != null) {
+                withGithubUsername++;
+            }
+        }
+        List<DomainCount> topDomains = byDomain.entrySet().stream()
+                .map(entry -> new DomainCount(entry.getKey(), entry.getValue()))
+                .sorted(RANKING)
+                .limit(top)
+                .toList();
+        return new Summary(all.size(), withGithubUsername, all.size() - withGithubUsername, byDomain.size(),
+                topDomains, null);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        synchronized (lock) {
+            if (changedDuringReconcile != null) {
+                changedDuringReconcile.add(new Change(event.getBefore(), event.getAfter()));
+            }
+            if (isReady()) {
+                apply(event.getBefore(), -1);
+                apply(event.getAfter(), 1);
+            }
+        }
+    }
+
+    /**
+     * Customers changed on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        reconcileRequests.release();
+    }
+
+    /**
+     * Replace the counts with those of the stored customers
+     */
+    public void reconcile() {
+        synchronized (reconcileLock) {
+            long start = System.nanoTime();
+            synchronized (lock) {
+                changedDuringReconcile = new ArrayList<>();
+            }
+            Map<String, long[]> byDomain;
+            try {
+                byDomain = countByDomain();
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    changedDuringReconcile = null;
+                }
+                throw e;
+            }
+
+            synchronized (lock) {
+                long previousCustomers = customers;
+                customers = 0;
+                withGithubUsername = 0;
+                customersByDomain.clear();
+                ranking.clear();
+                byDomain.forEach((domain, counts) -> {
+                    customers += counts[0];
+                    withGithubUsername += counts[1];
+                    customersByDomain.put(domain, counts[0]);
+                    ranking.add(new DomainCount(domain, counts[0]));
+                });
+                // changes committed while the query ran may be counted by it too, their error lasts until the next reconciliation
+                for (Change change : changedDuringReconcile) {
+                    apply(change.before(), -1);
+                    apply(change.after(), 1);
+                }
+                changedDuringReconcile = null;
+                if (isReady() && customers != previousCustomers) {
+                    logger.info("Reconciled customer stats: {} customers instead of {}", customers, previousCustomers);
+                }
+                reconciledAt = Instant.now();
+            }
+            logger.debug("Reconciled customer stats of {} domains in {} ms", byDomain.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * @return number of customers and of those with a GitHub username per email domain
+     */
+    private Map<String, long[]> countByDomain() {
+        Map<String, long[]> byDomain = new HashMap<>();
+        if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+            for (Customer customer : customerRepository.findAll()) {
+                long[] counts = byDomain.computeIfAbsent(domain(customer.getEmail()), domain -> new long[2]);
+                counts[0]++;
+                if (customer.getGithubUsername() != null) {
+                    counts[1]++;
+                }
+            }
+            return byDomain;
+        }
+        // the same domain as domain(), LOCATE is 0 without an @
+        jdbcTemplate.query("SELECT SUBSTRING(email_normalized, LOCATE('@', email_normalized) + 1), COUNT(*), COUNT(github_username) "
+                        + "FROM customers GROUP BY SUBSTRING(email_normalized, LOCATE('@', email_normalized) + 1)",
+                (RowCallbackHandler) resultSet -> byDomain.put(resultSet.getString(1),
+                        new long[] {resultSet.getLong(2), resultSet.getLong(3)}));
+        return byDomain;
+    }
+
+    private void reconcilePeriodically() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                reconcileRequests.tryAcquire(reconcileInterval.toNanos(), TimeUnit.NANOSECONDS);
+                reconcileRequests.drainPermits();
+                try {
+                    reconcile();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to reconcile customer stats", e);
+                }
+                TimeUnit.NANOSECONDS.sleep(MIN_RECONCILE_INTERVAL.toNanos());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apply(Customer customer, int delta) {
+        if (customer == null) {
+            return;
+        }
+        customers += delta;
+        if (customer.getGithubUsername() != null) {
+            withGithubUsername += delta;
+        }
+        String domain = domain(customer.getEmail());
+        long previous = customersByDomain.getOrDefault(domain, 0L);
+        long current = previous + delta;
+        ranking.remove(new DomainCount(domain, previous));
+        if (current > 0) {
+            customersByDomain.put(domain, current);
+            ranking.add(new DomainCount(domain, current));
+        } else {
+            customersByDomain.remove(domain);
+        }
+    }
+
+    private static String domain(String email) {
+        String normalized = Customer.normalizeEmail(email);
+        return normalized.substring(normalized.indexOf('@') + 1);
+    }
+
+    @Override
+    public void destroy() {
+        Thread reconciling = worker;
+        if (reconciling != null) {
+            reconciling.interrupt();
+        }
+    }
+}
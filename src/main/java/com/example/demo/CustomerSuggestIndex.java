@@ -0,0 +1,355 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory prefix index of customer names and emails for autocomplete. Every customer has the terms
+ * "first last", "last first" and its email, normalized to lowercase without accents and with single
+ * spaces, so a query matches the start of either name or of the email.
+ * <p>
+ * Most terms are in an immutable {@link SortedTermArray}. Changes go to a small sorted delta and leave
+ * stale entries behind in the array, which lookups skip. When the delta and the stale entries outgrow
+ * a fraction of the array, it is rebuilt in the background.
+ * The index is built at startup, until then {@link CustomerService} scans the customers instead.
+ * With a {@link CustomerRepositorySupport} backend the customers are loaded through the repository.
+ * Enable with customers.suggest.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "customers.suggest.enabled", havingValue = "true")
+public class CustomerSuggestIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSuggestIndex.class);
+
+    private static final int RELOAD_BATCH_SIZE = 500;
+    private static final int MAX_TERM_LENGTH = 200;
+    // small arrays are not worth rebuilding for a few changes
+    private static final int MIN_COMPACTION_CHANGES = 1024;
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("[\\s\\p{Cntrl}]+");
+    private static final char KEY_SEPARATOR = '\0';
+
+    public record Suggestion(UUID id, String displayName) {
+    }
+
+    private record Entry(String displayName, List<String> terms) {
+    }
+
+    /**
+     * @param delta terms added since the array was built, keyed by term, separator and id
+     */
+    private record State(SortedTermArray array, ConcurrentSkipListMap<String, UUID> delta, Map<UUID, Entry> entries) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomerRepository customerRepository;
+    private final double maxFragmentation;
+    private final Object lock = new Object();
+    private final Object buildLock = new Object();
+    // delta entries plus stale array entries
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private volatile State state;
+    // customers changed while a build runs, null for deleted ones, guarded by lock
+    private Map<UUID, Entry> changedDuringBuild;
+
+    public CustomerSuggestIndex(JdbcTemplate jdbcTemplate, CustomerRepository customerRepository,
+                                @Value("${customers.suggest.max-fragmentation:0.25}") double maxFragmentation) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.customerRepository = customerRepository;
+        this.maxFragmentation = maxFragmentation;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Build the index from the stored customers
+     */
+    public void rebuild() {
+        build("database", () -> {
+            Map<UUID, Entry> entries = new HashMap<>();
+            if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+                customerRepository.findAll().forEach(customer -> entries.put(customer.getId(),
+                        entry(customer.getFirstName(), customer.getLastName(), customer.getEmail())));
+                return entries;
+            }
+            jdbcTemplate.query("SELECT id, first_name, last_name, email FROM customers",
+                    (RowCallbackHandler) resultSet -> entries.put(resultSet.getObject(1, UUID.class),
+                            entry(resultSet.getString(2), resultSet.getString(3), resultSet.getString(4))));
+            return entries;
+        });
+    }
+
+    /**
+     * Merge the delta into a new array without the stale entries
+     */
+    public void compact() {
+        State current = state;
+        if (current != null) {
+            build("compaction", current::entries);
+        }
+    }
+
+    /**
+     * @return up to limit customers with a term starting with the query, in the order of their first matching term
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        State current = state;
+        String prefix = normalize(query);
+        if (current == null || prefix.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Suggestion> found = new LinkedHashMap<>();
+        SortedTermArray.Cursor cursor = current.array().seek(prefix);
+        Iterator<Map.Entry<String, UUID>> delta = current.delta().tailMap(prefix).entrySet().iterator();
+        Map.Entry<String, UUID> nextDelta = next(delta, prefix);
+        while (found.size() < limit) {
+            boolean inArray = cursor.isValid() && cursor.startsWith(prefix);
+            if (!inArray && nextDelta == null) {
+                break;
+            }
+            String term;
+            UUID id;
+            if (inArray && (nextDelta == null || cursor.compareTo(termOf(nextDelta.getKey())) <= 0)) {
+                term = cursor.term();
+                id = cursor.id();
+                cursor.advance();
+            } else {
+                term = termOf(nextDelta.getKey());
+                id = nextDelta.getValue();
+                nextDelta = next(delta, prefix);
+            }
+            Entry entry = current.entries().get(id);
+            if (entry != null && entry.terms().contains(term)) {
+                found.putIfAbsent(id, new Suggestion(id, entry.displayName()));
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    /**
+     * Same matching and order as {@link #suggest} without an index, for when it is disabled or not built yet
+     */
+    public static List<Suggestion> scan(Collection<Customer> customers, String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        record Match(String term, UUID id, String displayName) {
+        }
+        List<Match> matches = new ArrayList<>();
+        for (Customer customer : customers) {
+            Entry entry = entry(customer.getFirstName(), customer.getLastName(), customer.getEmail());
+            entry.terms().stream()
+                    .filter(term -> term.startsWith(prefix))
+                    .min(Comparator.naturalOrder())
+                    .ifPresent(term -> matches.add(new Match(term, customer.getId(), entry.displayName())));
+        }
+        return matches.stream()
+                .sorted(Comparator.comparing(Match::term).thenComparing(Match::id))
+                .limit(limit)
+                .map(match -> new Suggestion(match.id(), match.displayName()))
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCustomerChange(CustomerChangeEvent event) {
+        Customer after = event.getAfter();
+        apply(event.getCustomerId(), after == null ? null : entry(after.getFirstName(), after.getLastName(), after.getEmail()));
+    }
+
+    /**
+     * Customers changed on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        if (event.isAll()) {
+            rebuild();
+            return;
+        }
+        List<UUID> ids = new ArrayList<>(event.getCustomerIds());
+        if (CustomerRepositorySupport.isBackendOf(customerRepository)) {
+            Set<UUID> deleted = new HashSet<>(ids);
+            customerRepository.findAllById(ids).forEach(customer -> {
+                deleted.remove(customer.getId());
+                apply(customer.getId(), entry(customer.getFirstName(), customer.getLastName(), customer.getEmail()));
+            });
+            deleted.forEach(id -> apply(id, null));
+            return;
+        }
+        for (int from = 0; from < ids.size(); from += RELOAD_BATCH_SIZE) {
+            List<UUID> batch = ids.subList(from, Math.min(from + RELOAD_BATCH_SIZE, ids.size()));
+            Set<UUID> deleted = new HashSet<>(batch);
+            jdbcTemplate.query("SELECT id, first_name, last_name, email FROM customers WHERE id IN ("
+                            + String.join(", ", Collections.nCopies(batch.size(), "?")) + ")",
+                    (RowCallbackHandler) resultSet -> {
+                        UUID id = resultSet.getObject(1, UUID.class);
+                        deleted.remove(id);
+                        apply(id, entry(resultSet.getString(2), resultSet.getString(3), resultSet.getString(4)));
+                    },
+                    batch.toArray());
+            deleted.forEach(id -> apply(id, null));
+        }
+    }
+
+    private void build(String source, Supplier<Map<UUID, Entry>> loader) {
+        synchronized (buildLock) {
+            long start = System.nanoTime();
+            synchronized (lock) {
+                changedDuringBuild = new HashMap<>();
+            }
+            Map<UUID, Entry> entries;
+            SortedTermArray array;
+            try {
+                entries = new ConcurrentHashMap<>(loader.get());
+                List<SortedTermArray.Term> terms = new ArrayList<>(entries.size() * 3);
+                entries.forEach((id, entry) -> entry.terms().forEach(term -> terms.add(new SortedTermArray.Term(term, id))));
+                array = SortedTermArray.of(terms);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    changedDuringBuild = null;
+                }
+                throw e;
+            }
+
+            synchronized (lock) {
+                ConcurrentSkipListMap<String, UUID> delta = new ConcurrentSkipListMap<>();
+                changedDuringBuild.forEach((id, entry) -> {
+                    if (entry == null) {
+                        entries.remove(id);
+                    } else {
+                        entries.put(id, entry);
+                        entry.terms().forEach(term -> delta.put(key(term, id), id));
+                    }
+                });
+                // the array may also hold outdated terms of the changed customers
+                changes.set(delta.size() + changedDuringBuild.size());
+                changedDuringBuild = null;
+                state = new State(array, delta, entries);
+            }
+            logger.info("Built customer suggest index from {} with {} terms of {} customers in {} KB in {} ms", source,
+                    array.size(), entries.size(), array.getSizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void apply(UUID id, Entry entry) {
+        synchronized (lock) {
+            if (changedDuringBuild != null) {
+                changedDuringBuild.put(id, entry);
+            }
+            State current = state;
+            if (current == null) {
+                return;
+            }
+            Entry previous = entry == null ? current.entries().remove(id) : current.entries().put(id, entry);
+            if (previous != null) {
+                for (String term : previous.terms()) {
+                    if ((entry == null || !entry.terms().contains(term)) && current.delta().remove(key(term, id)) == null) {
+                        // left behind in the array
+                        changes.incrementAndGet();
+                    }
+                }
+            }
+            if (entry != null) {
+                for (String term : entry.terms()) {
+                    if (current.delta().put(key(term, id), id) == null) {
+                        changes.incrementAndGet();
+                    }
+                }
+            }
+        }
+        compactIfFragmented();
+    }
+
+    private void compactIfFragmented() {
+        State current = state;
+        if (current == null || changes.get() <= Math.max(MIN_COMPACTION_CHANGES, maxFragmentation * current.array().size())) {
+            return;
+        }
+        if (compacting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("customer-suggest-compaction").start(() -> {
+                try {
+                    compact();
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+
+    private static Entry entry(String firstName, String lastName, String email) {
+        List<String> terms = List.of(normalize(firstName + " " + lastName), normalize(lastName + " " + firstName),
+                        normalize(email))
+                .stream()
+                .distinct()
+                .toList();
+        return new Entry(firstName + " " + lastName + " <" + email + ">", terms);
+    }
+
+    /**
+     * Lowercase without accents, with runs of whitespace replaced by a single space
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String withoutAccents = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        String normalized = WHITESPACE.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return normalized.length() > MAX_TERM_LENGTH ? normalized.substring(0, MAX_TERM_LENGTH) : normalized;
+    }
+
+    private static String key(String term, UUID id) {
+        return term + KEY_SEPARATOR + id;
+    }
+
+    private static String termOf(String key) {
+        return key.substring(0, key.lastIndexOf(KEY_SEPARATOR));
+    }
+
+    private static Map.Entry<String, UUID> next(Iterator<Map.Entry<String, UUID>> delta, String prefix) {
+        if (delta.hasNext()) {
+            Map.Entry<String, UUID> next = delta.next();
+            if (next.getKey().startsWith(prefix)) {
+                return next;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Drives synthetic requests through Jackson, validation and {@link CustomerService} before
+ * the instance reports ready, so the hot paths are JIT-compiled before real traffic arrives.
+ * Application runners complete before Spring Boot publishes the ACCEPTING_TRAFFIC readiness state,
+ * so /actuator/health/readiness stays DOWN while this runs.
+ * <p>
+ * Every iteration runs in a transaction that is rolled back, so nothing is persisted and no change
+ * events are published. Backends that do not take part in JPA transactions only get the read paths.
+ * Enable with customers.warmup.enabled=true.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "customers.warmup.enabled", havingValue = "true")
+public class CustomerWarmup implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerWarmup.class);
+
+    private static final int ROUND_ITERATIONS = 250;
+    private static final long WARMUP_SEED = 0x5741524dL;
+    private static final int SEARCH_ALL_ROWS_LIMIT = 10_000;
+
+    /**
+     * @param compilationMillis JIT compilation time spent during the warm-up, -1 if not supported
+     */
+    public record Report(long iterations, Duration duration, long compilationMillis,
+                         double firstRoundMicrosPerIteration, double lastRoundMicrosPerIteration) {
+    }
+
+    private final CustomerService customerService;
+    private final CustomerRepository customerRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SyntheticCustomers syntheticCustomers = new SyntheticCustomers(WARMUP_SEED);
+
+    @Value("${customers.warmup.min-iterations:2000}")
+    private long minIterations;
+
+    @Value("${customers.warmup.max-iterations:20000}")
+    private long maxIterations;
+
+    @Value("${customers.warmup.max-duration:60s}")
+    private Duration maxDuration;
+
+    @Value("${customers.warmup.settled-compilation-millis:5}")
+    private long settledCompilationMillis;
+
+    private volatile Report report;
+
+    public CustomerWarmup(CustomerService customerService, CustomerRepository customerRepository,
+                          ObjectMapper objectMapper, Validator validator,
+                          PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.customerService = customerService;
+        this.customerRepository = customerRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs rounds of iterations until at least min-iterations ran and a round caused less than
+     * settled-compilation-millis of JIT compilation, or a maximum is reached
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        boolean writes = !CustomerRepositorySupport.class.isAssignableFrom(AopProxyUtils.ultimateTargetClass(customerRepository));
+        int searchEvery = customerRepository.count() <= SEARCH_ALL_ROWS_LIMIT ? 1 : 100;
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean compilationTimed = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        logger.info("Warming up customer request paths (writes {})", writes ? "rolled back" : "skipped");
+
+        long start = System.nanoTime();
+        long compilationStart = compilationTimed ? compilation.getTotalCompilationTime() : 0;
+        long deadline = start + maxDuration.toNanos();
+        long iterations = 0;
+        double firstRound = 0;
+        double lastRound = 0;
+        try {
+            while (iterations < maxIterations && System.nanoTime() < deadline) {
+                long roundCompilation = compilationTimed ? compilation.getTotalCompilationTime() : 0;
+                long roundStart = System.nanoTime();
+                for (int i = 0; i < ROUND_ITERATIONS; i++) {
+                    iterate(iterations++, writes, searchEvery);
+                }
+                lastRound = (System.nanoTime() - roundStart) / 1000.0 / ROUND_ITERATIONS;
+                if (firstRound == 0) {
+                    firstRound = lastRound;
+                }
+                boolean settled = compilationTimed
+                        && compilation.getTotalCompilationTime() - roundCompilation < settledCompilationMillis;
+                if (iterations >= minIterations && (settled || !compilationTimed)) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // a cold instance is still better than none
+            logger.warn("Warm-up aborted after {} iterations", iterations, e);
+        }
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        long compilationMillis = compilationTimed ? compilation.getTotalCompilationTime() - compilationStart : -1;
+        report = new Report(iterations, duration, compilationMillis, firstRound, lastRound);
+        meterRegistry.timer("customers.warmup").record(duration);
+        meterRegistry.counter("customers.warmup.iterations").increment(iterations);
+        logger.info("Warm-up finished after {} iterations in {} ms, {} ms JIT compilation, "
+                        + "{} us per iteration in the first round and {} us in the last",
+                iterations, duration.toMillis(), compilationMillis,
+                String.format("%.1f", firstRound), String.format("%.1f", lastRound));
+    }
+
+    /**
+     * @return result of the last warm-up, null until it finished
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    private void iterate(long index, boolean writes, int searchEvery) {
+        Customer synthetic = syntheticCustomers.customer(index);
+        try {
+            // the prefix keeps the emails apart from customers seeded with the same generator
+            String requestJson = objectMapper.writeValueAsString(new CustomerRequestDTO(
+                    synthetic.getFirstName(), synthetic.getLastName(), "warmup." + synthetic.getEmail()));
+            CustomerRequestDTO request = objectMapper.readValue(requestJson, CustomerRequestDTO.class);
+            if (!validator.validate(request).isEmpty()) {
+                throw new IllegalStateException("Synthetic warm-up customer failed validation: " + requestJson);
+            }
+
+            if (writes) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    status.setRollbackOnly();
+                    CustomerDTO created = customerService.createCustomer(request.toCustomerDTO());
+                    customerRepository.flush();
+                    render(customerService.findCustomerById(created.getId()).orElseThrow());
+                    customerService.updateCustomer(created.getId(), request.toCustomerDTO());
+                    customerRepository.flush();
+                    search(index, searchEvery, synthetic);
+                    customerService.deleteCustomer(created.getId());
+                    customerRepository.flush();
+                });
+            } else {
+                customerService.findCustomerById(UUID.randomUUID());
+                search(index, searchEvery, synthetic);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize warm-up request", e);
+        }
+    }
+
+    private void search(long index, int searchEvery, Customer synthetic) {
+        if (index % searchEvery == 0) {
+            List<CustomerResponseDTO> results = customerService
+                    .searchCustomers(new SearchCriteria(synthetic.getFirstName(), synthetic.getLastName(), null))
+                    .stream()
+                    .map(CustomerResponseDTO::fromCustomerDTO)
+                    .collect(Collectors.toList());
+            render(results);
+        }
+    }
+
+    private void render(Object body) {
+        try {
+            objectMapper.writeValueAsBytes(body instanceof CustomerDTO dto ? CustomerResponseDTO.fromCustomerDTO(dto) : body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize warm-up response", e);
+        }
+    }
+}
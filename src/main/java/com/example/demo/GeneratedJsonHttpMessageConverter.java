@@ -0,0 +1,153 @@
+package com.example.demo;
+
+import com.example.jsoncodegen.JsonCodec;
+import com.example.jsoncodegen.JsonCodecException;
+import com.example.jsoncodegen.JsonReader;
+import com.example.jsoncodegen.JsonWriter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes the classes that have a generated {@link JsonCodec}, and writes collections of them,
+ * as UTF-8 JSON without reflection. The codecs write the same JSON as Jackson's default ObjectMapper.
+ * <p>
+ * Collections whose element type is only known at runtime, e.g. the body of a ResponseEntity&lt;?&gt;,
+ * are written by the fallback converter if one of their elements has no codec.
+ */
+public class GeneratedJsonHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final Map<Class<?>, JsonCodec<?>> codecs = new HashMap<>();
+    private final GenericHttpMessageConverter<Object> fallback;
+
+    /**
+     * @param fallback converter for collections with elements without codec
+     */
+    public GeneratedJsonHttpMessageConverter(Collection<JsonCodec<?>> codecs, GenericHttpMessageConverter<Object> fallback) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        codecs.forEach(codec -> this.codecs.put(codec.type(), codec));
+        this.fallback = fallback;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return codecs.containsKey(clazz) || Collection.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return codecs.containsKey(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return canRead(ResolvableType.forType(type).resolve(), mediaType);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        // the codecs read UTF-8 only, Jackson also detects UTF-16 and UTF-32
+        Charset charset = mediaType == null ? null : mediaType.getCharset();
+        return super.canRead(mediaType) && (charset == null || charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return canWrite(null, clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (codecs.containsKey(clazz)) {
+            return true;
+        }
+        if (!Collection.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> elementType = ResolvableType.forType(type != null ? type : clazz).asCollection().resolveGeneric(0);
+        // unknown element types are checked when writing
+        return elementType == null || elementType == Object.class || codecs.containsKey(elementType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(ResolvableType.forType(type).resolve(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] body = inputMessage.getBody().readAllBytes();
+        try {
+            return codecs.get(clazz).read(new JsonReader(body));
+        } catch (JsonCodecException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        JsonWriter writer = new JsonWriter();
+        if (!write(object, writer)) {
+            fallback.write(object, type, outputMessage.getHeaders().getContentType(), outputMessage);
+            return;
+        }
+        outputMessage.getHeaders().setContentLength(writer.size());
+        writer.writeTo(outputMessage.getBody());
+    }
+
+    /**
+     * @return false if the value is a collection with an element without codec, then nothing was written
+     */
+    boolean write(Object object, JsonWriter writer) {
+        JsonCodec<Object> codec = codec(object.getClass());
+        if (codec != null) {
+            codec.write(object, writer);
+            return true;
+        }
+        Collection<?> values = (Collection<?>) object;
+        for (Object value : values) {
+            if (value != null && codec(value.getClass()) == null) {
+                return false;
+            }
+        }
+        writer.beginArray();
+        boolean first = true;
+        for (Object value : values) {
+            if (!first) {
+                writer.writeComma();
+            }
+            first = false;
+            if (value == null) {
+                writer.writeNull();
+            } else {
+                if (codec == null || codec.type() != value.getClass()) {
+                    codec = codec(value.getClass());
+                }
+                codec.write(value, writer);
+            }
+        }
+        writer.endArray();
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JsonCodec<Object> codec(Class<?> clazz) {
+        return (JsonCodec<Object>) codecs.get(clazz);
+    }
+}
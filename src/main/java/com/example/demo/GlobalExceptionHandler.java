@@ -2,8 +2,11 @@ package com.example.demo;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -38,11 +41,11 @@ public class GlobalExceptionHandler {
     }
 
     /**
-     * Handle customer not found exception
+     * Handle customer not found exception, an expected client error that is not logged as an error
      */
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleCustomerNotFoundException(CustomerNotFoundException ex) {
-        logger.error("Customer not found: {}", ex.getMessage());
+        logger.debug("Customer not found: {}", ex.getMessage());
         
         Map<String, String> error = new HashMap<>();
         error.put("error", ex.getMessage());
@@ -50,11 +53,43 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    /**
+     * Handle writes that violate a unique constraint, e.g. a duplicate email
+     */
+    @ExceptionHandler({CustomerConflictException.class, DataIntegrityViolationException.class})
+    public ResponseEntity<Map<String, String>> handleConflictExceptions(RuntimeException ex) {
+        logger.debug("Customer conflict: {}", ex.getMessage());
+        
+        Map<String, String> error = new HashMap<>();
+        // constraint violations carry SQL details that are not meant for clients
+        error.put("error", ex instanceof CustomerConflictException ? ex.getMessage() : "Customer conflicts with an existing customer");
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    /**
+     * Handle requests that ran past their {@link RequestDeadline}, whose client has likely given up on them
+     */
+    @ExceptionHandler({RequestDeadlineExceededException.class, QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ResponseEntity<Map<String, String>> handleDeadlineExceededExceptions(RuntimeException ex) {
+        logger.info("Request deadline exceeded: {}", ex.getMessage());
+        
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Request deadline exceeded");
+        
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(error);
+    }
+
     /**
      * Handle general exceptions
      */
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneralExceptions(Exception ex) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null && deadline.isExceeded() && ex instanceof RuntimeException runtimeException) {
+            // e.g. Hibernate's timeout of a transaction that ran out of time between statements
+            return handleDeadlineExceededExceptions(runtimeException);
+        }
         logger.error("Unexpected error: {}", ex.getMessage(), ex);
         
         Map<String, String> error = new HashMap<>();
@@ -0,0 +1,129 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidation transport through the customer_invalidations table, which every node polls.
+ * Works wherever the nodes share a database; a batch is delayed by up to one poll interval.
+ * <p>
+ * Rows are read in sequence order. A sequence value skipped by a poll may belong to an insert that
+ * commits later, so skipped values are looked for again until the gap timeout passes.
+ * Rows older than the retention are deleted.
+ */
+public class JdbcCustomerInvalidationTransport implements CustomerInvalidationTransport {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcCustomerInvalidationTransport.class);
+
+    private static final int MAX_TRACKED_GAPS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration pollInterval;
+    private final Duration gapTimeout;
+    private final Duration retention;
+    // sequence values not seen yet, with the time at which they are given up, only used by the poller
+    private final NavigableMap<Long, Long> gaps = new TreeMap<>();
+    private long lastSequence;
+    private long lastPurgeNanos;
+    private volatile Thread poller;
+
+    public JdbcCustomerInvalidationTransport(DataSource dataSource, Duration pollInterval, Duration gapTimeout,
+                                             Duration retention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.pollInterval = pollInterval;
+        this.gapTimeout = gapTimeout;
+        this.retention = retention;
+    }
+
+    @Override
+    public void start(Consumer<CustomerInvalidationBatch> receiver) {
+        Long maxSequence = jdbcTemplate.queryForObject("SELECT MAX(seq) FROM customer_invalidations", Long.class);
+        lastSequence = maxSequence == null ? 0 : maxSequence;
+        lastPurgeNanos = System.nanoTime();
+        poller = Thread.ofVirtual().name("customer-invalidation-poller").start(() -> poll(receiver));
+    }
+
+    @Override
+    public void publish(CustomerInvalidationBatch batch) {
+        jdbcTemplate.update("INSERT INTO customer_invalidations (node, published_at, all_customers, customer_ids) VALUES (?, ?, ?, ?)",
+                batch.node(), batch.publishedAtMillis(), batch.all(),
+                batch.customerIds().stream().map(UUID::toString).collect(Collectors.joining(",")));
+    }
+
+    private void poll(Consumer<CustomerInvalidationBatch> receiver) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                pollOnce(receiver);
+                purge();
+            } catch (RuntimeException e) {
+                logger.warn("Failed to poll customer invalidations", e);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(pollInterval.toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void pollOnce(Consumer<CustomerInvalidationBatch> receiver) {
+        long now = System.nanoTime();
+        gaps.values().removeIf(expiry -> expiry - now < 0);
+        long from = gaps.isEmpty() ? lastSequence : Math.min(lastSequence, gaps.firstKey() - 1);
+        jdbcTemplate.query("SELECT seq, node, published_at, all_customers, customer_ids FROM customer_invalidations "
+                        + "WHERE seq > ? ORDER BY seq",
+                (RowCallbackHandler) resultSet -> {
+                    long sequence = resultSet.getLong(1);
+                    if (sequence <= lastSequence) {
+                        if (gaps.remove(sequence) == null) {
+                            return;
+                        }
+                    } else {
+                        for (long gap = Math.max(lastSequence + 1, sequence - MAX_TRACKED_GAPS); gap < sequence; gap++) {
+                            gaps.put(gap, now + gapTimeout.toNanos());
+                        }
+                        lastSequence = sequence;
+                    }
+                    receiver.accept(new CustomerInvalidationBatch(resultSet.getString(2), resultSet.getLong(3),
+                            resultSet.getBoolean(4), parseIds(resultSet.getString(5))));
+                }, from);
+    }
+
+    private void purge() {
+        if (System.nanoTime() - lastPurgeNanos < retention.toNanos() / 2) {
+            return;
+        }
+        lastPurgeNanos = System.nanoTime();
+        int purged = jdbcTemplate.update("DELETE FROM customer_invalidations WHERE published_at < ?",
+                System.currentTimeMillis() - retention.toMillis());
+        logger.debug("Purged {} customer invalidations", purged);
+    }
+
+    private static Set<UUID> parseIds(String ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return Arrays.stream(ids.split(",")).map(UUID::fromString).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    @Override
+    public void close() {
+        Thread polling = poller;
+        if (polling != null) {
+            polling.interrupt();
+        }
+    }
+}
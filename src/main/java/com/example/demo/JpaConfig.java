@@ -1,21 +1,91 @@
 package com.example.demo;
 
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
 
 import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class JpaConfig {
 
+    /**
+     * Entity classes found by scanning the package, precomputed at build time when Spring AOT is enabled
+     */
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public static PersistenceManagedTypes persistenceManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan("com.example.demo");
+    }
+
+    /**
+     * Since this factory replaces Spring Boot's, spring.jpa.properties.* are passed to Hibernate here.
+     * Flushes send their inserts, updates and deletes as JDBC batches unless those properties say otherwise,
+     * see CustomerOperationService.
+     *
+     * @param backgroundBootstrap bootstrap Hibernate on a background thread, so the rest of the context
+     *                            and the web server start without waiting for it; pair with
+     *                            spring.data.jpa.repositories.bootstrap-mode=deferred
+     */
+    @Bean
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(
+            DataSource dataSource,
+            PersistenceManagedTypes persistenceManagedTypes,
+            JpaProperties jpaProperties,
+            @Value("${customers.jpa.background-bootstrap:false}") boolean backgroundBootstrap) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource);
-        em.setPackagesToScan("com.example.demo");
+        em.setManagedTypes(persistenceManagedTypes);
         em.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.STATEMENT_BATCH_SIZE, "100");
+        properties.put(AvailableSettings.ORDER_INSERTS, "true");
+        properties.put(AvailableSettings.ORDER_UPDATES, "true");
+        properties.putAll(jpaProperties.getProperties());
+        em.setJpaPropertyMap(properties);
+        if (backgroundBootstrap) {
+            em.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+        }
         return em;
     }
+
+    /**
+     * Spring Boot's transaction manager, except that transactions of API requests time out at the
+     * {@link RequestDeadline}. Hibernate applies the time left as the query timeout of every statement.
+     */
+    @Bean
+    public JpaTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            protected int determineTimeout(TransactionDefinition definition) {
+                int timeout = super.determineTimeout(definition);
+                RequestDeadline deadline = RequestDeadline.current();
+                if (deadline == null) {
+                    return timeout;
+                }
+                // a TransactionException, which doBegin does not wrap
+                if (deadline.isExceeded()) {
+                    throw new TransactionTimedOutException("Deadline of request to " + deadline.getEndpoint() + " exceeded");
+                }
+                int remaining = deadline.remainingSeconds();
+                return timeout == TransactionDefinition.TIMEOUT_DEFAULT ? remaining : Math.min(timeout, remaining);
+            }
+        };
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
 }
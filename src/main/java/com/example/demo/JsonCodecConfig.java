@@ -0,0 +1,34 @@
+package com.example.demo;
+
+import com.example.jsoncodegen.JsonCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Binds the customer DTOs with the codecs generated for their @GenerateJsonCodec annotations instead of
+ * Jackson's reflection, by registering a {@link GeneratedJsonHttpMessageConverter} before Jackson's converter.
+ * Disable with customers.json.generated-codecs=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customers.json.generated-codecs", havingValue = "true", matchIfMissing = true)
+public class JsonCodecConfig implements WebMvcConfigurer {
+
+    static List<JsonCodec<?>> codecs() {
+        return List.of(new CustomerRequestDTOJsonCodec(), new CustomerResponseDTOJsonCodec(), new CustomerSearchDTOJsonCodec());
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter jackson) {
+                converters.add(i, new GeneratedJsonHttpMessageConverter(codecs(), jackson));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.demo;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Customer repository that keeps all customers in memory and persists every write to a
+ * {@link CustomerLogStore} instead of the database. Enable with the "logstore" profile.
+ * <p>
+ * Stored customers are copies, so callers can modify returned entities without affecting
+ * the store until they save them, like detached JPA entities.
+ */
+@Repository
+@Primary
+@Profile("logstore")
+public class LogStructuredCustomerRepository extends CustomerRepositorySupport {
+
+    private final ConcurrentHashMap<UUID, Customer> customers = new ConcurrentHashMap<>();
+    // keyed by normalized email, sorted for prefix searches
+    private final ConcurrentSkipListMap<String, UUID> idByEmail = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, UUID> idByGithubUsername = new ConcurrentHashMap<>();
+    private final CustomerLogStore store;
+
+    public LogStructuredCustomerRepository(
+            @Value("${customers.logstore.directory:./data/customer-log}") String directory,
+            @Value("${customers.logstore.region-size:67108864}") int regionSize,
+            @Value("${customers.logstore.snapshot-every:1000000}") long snapshotEvery,
+            @Value("${customers.logstore.sync:true}") boolean sync) throws IOException {
+        this.store = new CustomerLogStore(Path.of(directory), regionSize, snapshotEvery, sync);
+        store.open(new CustomerLogStore.Replay() {
+            @Override
+            public void put(Customer customer) {
+                apply(customer);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                remove(id);
+            }
+
+            @Override
+            public void clear() {
+                clearAll();
+            }
+        }, () -> new ArrayList<>(customers.values()));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        store.close();
+    }
+
+    @Override
+    public <S extends Customer> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(UUID.randomUUID());
+        }
+        Customer copy = CustomerChangeEvent.copyOf(entity);
+        store.write(() -> {
+            checkConstraints(copy);
+            return CustomerLogStore.putRecord(copy);
+        }, () -> apply(copy));
+        return entity;
+    }
+
+    @Override
+    public Optional<Customer> findById(UUID id) {
+        return Optional.ofNullable(customers.get(id)).map(CustomerChangeEvent::copyOf);
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        return customers.containsKey(id);
+    }
+
+    @Override
+    public Optional<Customer> findByGithubUsername(String githubUsername) {
+        if (githubUsername == null) {
+            return Optional.empty();
+        }
+        UUID id = idByGithubUsername.get(githubUsername);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public Optional<Customer> findByEmailNormalized(String emailNormalized) {
+        if (emailNormalized == null) {
+            return Optional.empty();
+        }
+        UUID id = idByEmail.get(emailNormalized);
+        return id == null ? Optional.empty() : findById(id);
+    }
+
+    @Override
+    public List<Customer> findByEmailNormalizedStartingWith(String prefix) {
+        List<Customer> found = new ArrayList<>();
+        for (Map.Entry<String, UUID> entry : idByEmail.tailMap(prefix).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            findById(entry.getValue()).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<Customer> findByEmailNormalizedIn(Collection<String> emailsNormalized) {
+        List<Customer> found = new ArrayList<>();
+        for (String emailNormalized : emailsNormalized) {
+            findByEmailNormalized(emailNormalized).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        List<Customer> all = new ArrayList<>(customers.size());
+        for (Customer customer : customers.values()) {
+            all.add(CustomerChangeEvent.copyOf(customer));
+        }
+        return all;
+    }
+
+    @Override
+    public long count() {
+        return customers.size();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        store.write(() -> customers.containsKey(id) ? CustomerLogStore.deleteRecord(id) : null, () -> remove(id));
+    }
+
+    @Override
+    public void deleteAll() {
+        store.write(CustomerLogStore::clearRecord, this::clearAll);
+    }
+
+    /**
+     * Same constraints as the customers table, called under the store's write lock
+     */
+    private void checkConstraints(Customer customer) {
+        if (customer.getFirstName() == null || customer.getLastName() == null || customer.getEmail() == null) {
+            throw new DataIntegrityViolationException("First name, last name and email must not be null");
+        }
+        UUID emailOwner = idByEmail.get(Customer.normalizeEmail(customer.getEmail()));
+        if (emailOwner != null && !emailOwner.equals(customer.getId())) {
+            throw new DataIntegrityViolationException("Email already in use: " + customer.getEmail());
+        }
+        if (customer.getGithubUsername() != null) {
+            UUID githubOwner = idByGithubUsername.get(customer.getGithubUsername());
+            if (githubOwner != null && !githubOwner.equals(customer.getId())) {
+                throw new DataIntegrityViolationException("GitHub username already in use: " + customer.getGithubUsername());
+            }
+        }
+    }
+
+    private void apply(Customer customer) {
+        Customer previous = customers.put(customer.getId(), customer);
+        if (previous != null) {
+            unindex(previous);
+        }
+        idByEmail.put(Customer.normalizeEmail(customer.getEmail()), customer.getId());
+        if (customer.getGithubUsername() != null) {
+            idByGithubUsername.put(customer.getGithubUsername(), customer.getId());
+        }
+    }
+
+    private void remove(UUID id) {
+        Customer previous = customers.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    private void unindex(Customer customer) {
+        idByEmail.remove(Customer.normalizeEmail(customer.getEmail()), customer.getId());
+        if (customer.getGithubUsername() != null) {
+            idByGithubUsername.remove(customer.getGithubUsername(), customer.getId());
+        }
+    }
+
+    private void clearAll() {
+        customers.clear();
+        idByEmail.clear();
+        idByGithubUsername.clear();
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.demo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.StandardSocketOptions;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation transport over UDP multicast, for nodes in one network segment.
+ * Multicast loopback is enabled, so several JVMs on one machine receive each other's batches.
+ * <p>
+ * A batch is split into datagrams of up to {@value #IDS_PER_DATAGRAM} customer ids. UDP gives no
+ * delivery guarantee: a lost datagram leaves other nodes with stale values until the customer
+ * changes again, so prefer the JDBC transport where that matters.
+ */
+public class MulticastCustomerInvalidationTransport implements CustomerInvalidationTransport {
+    private static final Logger logger = LoggerFactory.getLogger(MulticastCustomerInvalidationTransport.class);
+
+    private static final int MAGIC = 0x43494e56;
+    static final int IDS_PER_DATAGRAM = 80;
+    private static final int MAX_DATAGRAM_BYTES = 1500;
+
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final MulticastSocket socket;
+    private volatile Thread receiver;
+
+    /**
+     * @param networkInterface interface to join the group on, null for the system default
+     */
+    public MulticastCustomerInvalidationTransport(InetAddress groupAddress, int port, NetworkInterface networkInterface,
+                                                  int timeToLive) {
+        this.group = new InetSocketAddress(groupAddress, port);
+        this.networkInterface = networkInterface;
+        try {
+            socket = new MulticastSocket(port);
+            socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            socket.setTimeToLive(timeToLive);
+            if (networkInterface != null) {
+                socket.setNetworkInterface(networkInterface);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open multicast socket on port " + port, e);
+        }
+    }
+
+    @Override
+    public void start(Consumer<CustomerInvalidationBatch> consumer) {
+        try {
+            socket.joinGroup(group, networkInterface);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to join multicast group " + group, e);
+        }
+        receiver = Thread.ofVirtual().name("customer-invalidation-receiver").start(() -> receive(consumer));
+    }
+
+    @Override
+    public void publish(CustomerInvalidationBatch batch) {
+        try {
+            for (byte[] datagram : encode(batch)) {
+                socket.send(new DatagramPacket(datagram, datagram.length, group));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to send customer invalidation", e);
+        }
+    }
+
+    private void receive(Consumer<CustomerInvalidationBatch> consumer) {
+        byte[] buffer = new byte[MAX_DATAGRAM_BYTES];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+                CustomerInvalidationBatch batch = decode(packet.getData(), packet.getOffset(), packet.getLength());
+                if (batch != null) {
+                    consumer.accept(batch);
+                }
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    logger.warn("Failed to receive customer invalidation", e);
+                }
+            }
+        }
+    }
+
+    static List<byte[]> encode(CustomerInvalidationBatch batch) throws IOException {
+        List<UUID> ids = new ArrayList<>(batch.customerIds());
+        List<byte[]> datagrams = new ArrayList<>();
+        int from = 0;
+        do {
+            List<UUID> chunk = ids.subList(from, Math.min(from + IDS_PER_DATAGRAM, ids.size()));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + chunk.size() * 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeUTF(batch.node());
+            out.writeLong(batch.publishedAtMillis());
+            out.writeBoolean(batch.all());
+            out.writeShort(chunk.size());
+            for (UUID id : chunk) {
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+            }
+            datagrams.add(bytes.toByteArray());
+            from += IDS_PER_DATAGRAM;
+        } while (from < ids.size());
+        return datagrams;
+    }
+
+    /**
+     * @return the batch, null if the datagram is not an invalidation
+     */
+    static CustomerInvalidationBatch decode(byte[] data, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length));
+        if (length < Integer.BYTES || in.readInt() != MAGIC) {
+            return null;
+        }
+        String node = in.readUTF();
+        long publishedAtMillis = in.readLong();
+        boolean all = in.readBoolean();
+        int count = in.readUnsignedShort();
+        Set<UUID> ids = new LinkedHashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            ids.add(new UUID(in.readLong(), in.readLong()));
+        }
+        return new CustomerInvalidationBatch(node, publishedAtMillis, all, ids);
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+        Thread receiving = receiver;
+        if (receiving != null) {
+            receiving.interrupt();
+        }
+    }
+}
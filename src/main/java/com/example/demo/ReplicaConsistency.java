@@ -0,0 +1,93 @@
+package com.example.demo;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks how far the replica has caught up with the writes on the primary,
+ * so a user who just wrote reads from the primary until the replica has applied that write.
+ * Writes are numbered in commit order and attributed to the authenticated user;
+ * the applied sequence only advances over writes whose predecessors are all applied.
+ */
+public class ReplicaConsistency {
+
+    private final AtomicLong lastSequence = new AtomicLong();
+    private final AtomicLong appliedSequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    // writes applied before an earlier one, guarded by this
+    private final TreeSet<Long> appliedAhead = new TreeSet<>();
+
+    /**
+     * Record a committed write by the current user
+     * @return sequence number of the write
+     */
+    public long recordWrite() {
+        long sequence = lastSequence.incrementAndGet();
+        lastWriteByUser.merge(currentUser(), sequence, Math::max);
+        return sequence;
+    }
+
+    /**
+     * Mark the write as applied to the replica, the applied sequence advances once all earlier writes are applied too
+     */
+    public synchronized void applied(long sequence) {
+        long applied = appliedSequence.get();
+        if (sequence <= applied) {
+            return;
+        }
+        appliedAhead.add(sequence);
+        while (!appliedAhead.isEmpty() && appliedAhead.first() == applied + 1) {
+            applied = appliedAhead.pollFirst();
+        }
+        if (applied == appliedSequence.get()) {
+            return;
+        }
+        appliedSequence.set(applied);
+        long contiguous = applied;
+        lastWriteByUser.values().removeIf(lastWrite -> lastWrite <= contiguous);
+        notifyAll();
+    }
+
+    /**
+     * @return whether the current user wrote something the replica has not applied yet
+     */
+    public boolean mustReadPrimary() {
+        Long lastWrite = lastWriteByUser.get(currentUser());
+        return lastWrite != null && lastWrite > appliedSequence.get();
+    }
+
+    public long getLastSequence() {
+        return lastSequence.get();
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence.get();
+    }
+
+    /**
+     * Wait until the replica applied the write
+     * @return whether it was applied within the timeout
+     */
+    public synchronized boolean awaitApplied(long sequence, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (appliedSequence.get() < sequence) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            Duration wait = Duration.ofNanos(remaining);
+            wait(Math.max(1, wait.toMillis()));
+        }
+        return true;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.demo;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time by which the API request handled by the current thread must be answered, bound by
+ * {@link RequestDeadlineInterceptor}. Transactions and statements started for the request are limited to the
+ * time left, see {@link JpaConfig#transactionManager} and {@link RequestDeadlineJdbcTemplate}, so the
+ * database stops working on requests the client has given up on.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final long deadlineNanos;
+
+    /**
+     * @param endpoint name of the endpoint, for errors and metrics
+     * @param timeout time from now
+     */
+    public RequestDeadline(String endpoint, Duration timeout) {
+        this.endpoint = endpoint;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * @return deadline of the request handled by the current thread, null if none
+     */
+    public static RequestDeadline current() {
+        return CURRENT.get();
+    }
+
+    static void set(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Fail the request handled by the current thread, if any, once its deadline has passed,
+     * for work between database calls that may take long
+     * @throws RequestDeadlineExceededException if the deadline has passed
+     */
+    public static void checkCurrent() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    /**
+     * @return the task with the current thread's deadline bound while it runs, for work handed to other threads
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return task;
+        }
+        return () -> {
+            RequestDeadline previous = CURRENT.get();
+            CURRENT.set(deadline);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public boolean isExceeded() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return time left, zero once the deadline has passed
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(deadlineNanos - System.nanoTime(), 0));
+    }
+
+    /**
+     * Time left as a JDBC query or transaction timeout, which are in whole seconds
+     * @return seconds left rounded up, at least 1
+     * @throws RequestDeadlineExceededException if the deadline has passed
+     */
+    public int remainingSeconds() {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        if (remainingNanos <= 0) {
+            throw exceeded();
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @throws RequestDeadlineExceededException if the deadline has passed
+     */
+    public void check() {
+        if (isExceeded()) {
+            throw exceeded();
+        }
+    }
+
+    private RequestDeadlineExceededException exceeded() {
+        return new RequestDeadlineExceededException("Deadline of request to " + endpoint + " exceeded");
+    }
+}
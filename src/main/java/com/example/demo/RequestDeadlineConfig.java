@@ -0,0 +1,53 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registers the {@link RequestDeadlineInterceptor} for the API.
+ * Disable with customers.deadline.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "customers.deadline.enabled", havingValue = "true", matchIfMissing = true)
+public class RequestDeadlineConfig implements WebMvcConfigurer {
+
+    private final RequestDeadlineInterceptor interceptor;
+
+    /**
+     * @param defaultTimeout timeout of endpoints without their own
+     * @param endpointTimeouts timeouts of endpoints by handler method name, e.g. "searchCustomers=10s"
+     */
+    public RequestDeadlineConfig(@Value("${customers.deadline.default-timeout:30s}") Duration defaultTimeout,
+                                 @Value("${customers.deadline.endpoint-timeouts:}") List<String> endpointTimeouts,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Duration> timeouts = new HashMap<>();
+        for (String endpointTimeout : endpointTimeouts) {
+            if (endpointTimeout.isBlank()) {
+                continue;
+            }
+            int separator = endpointTimeout.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected <endpoint>=<timeout> in customers.deadline.endpoint-timeouts: " + endpointTimeout);
+            }
+            timeouts.put(endpointTimeout.substring(0, separator).trim(),
+                    DurationStyle.detectAndParse(endpointTimeout.substring(separator + 1).trim()));
+        }
+        this.interceptor = new RequestDeadlineInterceptor(defaultTimeout, timeouts, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+    }
+}
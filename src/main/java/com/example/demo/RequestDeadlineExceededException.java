@@ -0,0 +1,11 @@
+package com.example.demo;
+
+/**
+ * Thrown when a request runs past its {@link RequestDeadline}, so no stack trace is captured
+ */
+public class RequestDeadlineExceededException extends RuntimeException {
+
+    public RequestDeadlineExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
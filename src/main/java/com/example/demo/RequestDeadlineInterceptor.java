@@ -0,0 +1,81 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+/**
+ * Binds a {@link RequestDeadline} to every API request while its handler runs. The timeout is that of the
+ * endpoint, named after its handler method, or the default; clients may shorten it with the X-Request-Timeout
+ * header, e.g. "2s" or "500" milliseconds, to the time they wait for the answer. Requests answered with
+ * 504 because they ran out of time are counted per endpoint in customers.requests.deadline.exceeded.
+ */
+public class RequestDeadlineInterceptor implements HandlerInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(RequestDeadlineInterceptor.class);
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final Duration defaultTimeout;
+    private final Map<String, Duration> endpointTimeouts;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RequestDeadlineInterceptor(Duration defaultTimeout, Map<String, Duration> endpointTimeouts,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.defaultTimeout = defaultTimeout;
+        this.endpointTimeouts = Map.copyOf(endpointTimeouts);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            String endpoint = handlerMethod.getMethod().getName();
+            RequestDeadline.set(new RequestDeadline(endpoint, timeout(endpoint, request.getHeader(TIMEOUT_HEADER))));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline == null) {
+            return;
+        }
+        RequestDeadline.clear();
+        if (response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value()) {
+            meterRegistry.ifAvailable(registry -> registry.counter("customers.requests.deadline.exceeded",
+                    "endpoint", deadline.getEndpoint()).increment());
+        }
+    }
+
+    /**
+     * @param header value of the X-Request-Timeout header, may be null
+     * @return the endpoint's timeout, or the requested one if shorter
+     */
+    Duration timeout(String endpoint, String header) {
+        Duration timeout = endpointTimeouts.getOrDefault(endpoint, defaultTimeout);
+        if (header == null || header.isBlank()) {
+            return timeout;
+        }
+        try {
+            Duration requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+            if (!requested.isNegative() && requested.compareTo(timeout) < 0) {
+                return requested;
+            }
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring invalid {} header: {}", TIMEOUT_HEADER, header);
+        }
+        return timeout;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate that limits the query timeout of its statements to the time left until the current
+ * {@link RequestDeadline}, for statements outside of JPA transactions
+ */
+public class RequestDeadlineJdbcTemplate extends JdbcTemplate {
+
+    public RequestDeadlineJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        super.applyStatementSettings(stmt);
+        RequestDeadline deadline = RequestDeadline.current();
+        if (deadline != null) {
+            int timeout = deadline.remainingSeconds();
+            if (stmt.getQueryTimeout() == 0 || timeout < stmt.getQueryTimeout()) {
+                stmt.setQueryTimeout(timeout);
+            }
+        }
+    }
+}
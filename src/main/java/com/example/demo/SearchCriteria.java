@@ -4,9 +4,13 @@ package com.example.demo;
  * Class to hold search criteria for customer filtering
  */
 public class SearchCriteria {
+    public static final int MAX_EDIT_DISTANCE = 2;
+
     private String firstName;
     private String lastName;
     private String email;
+    private Integer maxEditDistance;
+    private boolean phonetic;
 
     public SearchCriteria() {
     }
@@ -41,6 +45,47 @@ public class SearchCriteria {
         this.email = email;
     }
 
+    public Integer getMaxEditDistance() {
+        return maxEditDistance;
+    }
+
+    /**
+     * @param maxEditDistance maximum edit distance of matching names, limited to {@value #MAX_EDIT_DISTANCE}
+     */
+    public void setMaxEditDistance(Integer maxEditDistance) {
+        this.maxEditDistance = maxEditDistance == null ? null : Math.clamp(maxEditDistance, 0, MAX_EDIT_DISTANCE);
+    }
+
+    public boolean isPhonetic() {
+        return phonetic;
+    }
+
+    /**
+     * @param phonetic whether names that sound like the given ones match too
+     */
+    public void setPhonetic(boolean phonetic) {
+        this.phonetic = phonetic;
+    }
+
+    /**
+     * @return whether first and last name match whole names within the maximum edit distance or by sound,
+     * instead of as substrings
+     */
+    public boolean isFuzzy() {
+        return (maxEditDistance != null || phonetic)
+                && ((firstName != null && !firstName.isEmpty()) || (lastName != null && !lastName.isEmpty()));
+    }
+
+    /**
+     * @return the normalized email prefix if the email filter ends with "*", e.g. "john.doe@*", otherwise null
+     */
+    public String getEmailPrefix() {
+        if (email == null || !email.endsWith("*")) {
+            return null;
+        }
+        return Customer.normalizeEmail(email.substring(0, email.length() - 1));
+    }
+
     public boolean isEmpty() {
         return (firstName == null || firstName.isEmpty()) &&
                (lastName == null || lastName.isEmpty()) &&
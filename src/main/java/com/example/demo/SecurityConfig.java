@@ -17,10 +17,12 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.ignoringRequestMatchers("/api/**")) // Disable CSRF for API endpoints
             .authorizeHttpRequests(authorizeRequests ->
                 authorizeRequests
+                    .requestMatchers("/api/admin/**").hasRole("ADMIN")
                     .requestMatchers(HttpMethod.DELETE, "/api/customers/**").hasRole("ADMIN")
                     .requestMatchers("/api/customers/**").authenticated()
                     .requestMatchers("/secured-ping").authenticated()
                     .requestMatchers("/oauth2/authorization/**", "/login/oauth2/code/**").permitAll()
+                    .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                     .anyRequest().authenticated()
             )
             .oauth2Login(oauth2 -> oauth2
@@ -0,0 +1,330 @@
+package com.example.demo;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Customer repository that partitions customers across {@link CustomerShards} by id.
+ * Point operations go to the owning shard, listing fans out to all shards in parallel.
+ * GitHub usernames are looked up through an in-memory index of username to id, which is loaded
+ * from the shards at startup and also enforces their uniqueness across shards. A shard's unique
+ * email_normalized index only covers its own customers, so normalized emails are indexed the same way.
+ */
+@Repository
+@Primary
+@Profile("sharded")
+public class ShardedCustomerRepository extends CustomerRepositorySupport {
+
+    private static final String COLUMNS = "id, first_name, last_name, email, github_username";
+    private static final RowMapper<Customer> ROW_MAPPER = (resultSet, rowNum) -> {
+        Customer customer = new Customer();
+        customer.setId(resultSet.getObject(1, UUID.class));
+        customer.setFirstName(resultSet.getString(2));
+        customer.setLastName(resultSet.getString(3));
+        customer.setEmail(resultSet.getString(4));
+        customer.setGithubUsername(resultSet.getString(5));
+        return customer;
+    };
+
+    private final CustomerShards shards;
+    private final UniqueIndex githubUsernames = new UniqueIndex("GitHub username");
+    private final UniqueIndex emails = new UniqueIndex("Email");
+
+    public ShardedCustomerRepository(CustomerShards shards) {
+        this.shards = shards;
+        shards.fanOut(jdbcTemplate -> {
+            jdbcTemplate.query("SELECT id, github_username, email_normalized FROM customers",
+                    (RowCallbackHandler) resultSet -> {
+                        UUID id = resultSet.getObject(1, UUID.class);
+                        githubUsernames.reindex(id, resultSet.getString(2));
+                        emails.reindex(id, resultSet.getString(3));
+                    });
+            return null;
+        });
+    }
+
+    @Override
+    public <S extends Customer> S save(S entity) {
+        if (entity.getId() == null) {
+            entity.setId(UUID.randomUUID());
+        }
+        UUID id = entity.getId();
+        String githubUsername = entity.getGithubUsername();
+        String email = Customer.normalizeEmail(entity.getEmail());
+        boolean githubUsernameClaimed = githubUsernames.claim(githubUsername, id);
+        boolean emailClaimed;
+        try {
+            emailClaimed = emails.claim(email, id);
+        } catch (DataIntegrityViolationException e) {
+            githubUsernames.release(githubUsername, id, githubUsernameClaimed);
+            throw e;
+        }
+        try {
+            shards.shardFor(id).update("MERGE INTO customers (" + COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?)",
+                    id, entity.getFirstName(), entity.getLastName(), entity.getEmail(), githubUsername);
+        } catch (DataAccessException e) {
+            githubUsernames.release(githubUsername, id, githubUsernameClaimed);
+            emails.release(email, id, emailClaimed);
+            throw e;
+        }
+        githubUsernames.reindex(id, githubUsername);
+        emails.reindex(id, email);
+        return entity;
+    }
+
+    @Override
+    public Optional<Customer> findById(UUID id) {
+        return shards.shardFor(id)
+                .query("SELECT " + COLUMNS + " FROM customers WHERE id = ?", ROW_MAPPER, id)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public boolean existsById(UUID id) {
+        Integer count = shards.shardFor(id).queryForObject("SELECT COUNT(*) FROM customers WHERE id = ?", Integer.class, id);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public Optional<Customer> findByGithubUsername(String githubUsername) {
+        UUID id = githubUsernames.get(githubUsername);
+        if (id == null) {
+            return Optional.empty();
+        }
+        return findById(id).filter(customer -> githubUsername.equals(customer.getGithubUsername()));
+    }
+
+    /**
+     * Customers are partitioned by id, so every shard looks the email up in its email_normalized index
+     */
+    @Override
+    public Optional<Customer> findByEmailNormalized(String emailNormalized) {
+        return concat(shards.fanOut(jdbcTemplate -> jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM customers WHERE email_normalized = ?", ROW_MAPPER, emailNormalized)))
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Customer> findByEmailNormalizedStartingWith(String prefix) {
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return concat(shards.fanOut(jdbcTemplate -> jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM customers WHERE email_normalized LIKE ? ESCAPE '\\'", ROW_MAPPER, pattern)));
+    }
+
+    @Override
+    public List<Customer> findByEmailNormalizedIn(Collection<String> emailsNormalized) {
+        if (emailsNormalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT " + COLUMNS + " FROM customers WHERE email_normalized IN ("
+                + String.join(", ", Collections.nCopies(emailsNormalized.size(), "?")) + ")";
+        Object[] args = emailsNormalized.toArray();
+        return concat(shards.fanOut(jdbcTemplate -> jdbcTemplate.query(sql, ROW_MAPPER, args)));
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        return concat(shards.fanOut(jdbcTemplate ->
+                jdbcTemplate.query("SELECT " + COLUMNS + " FROM customers", ROW_MAPPER)));
+    }
+
+    @Override
+    public List<Customer> findAll(Sort sort) {
+        if (sort.isUnsorted()) {
+            return findAll();
+        }
+        String sql = "SELECT " + COLUMNS + " FROM customers ORDER BY " + orderBy(sort);
+        List<Customer> customers = concat(shards.fanOut(jdbcTemplate -> jdbcTemplate.query(sql, ROW_MAPPER)));
+        // the shard results are sorted runs, which the sort merges in linear time per run
+        customers.sort(comparator(sort));
+        return customers;
+    }
+
+    /**
+     * Every shard returns its first offset + size rows in order, the page is taken from the merged rows
+     */
+    @Override
+    public Page<Customer> findAll(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(findAll(pageable.getSort()));
+        }
+        // without an order pages would not be stable across requests
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by("id");
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        String sql = "SELECT " + COLUMNS + " FROM customers ORDER BY " + orderBy(sort) + " LIMIT ?";
+        List<Customer> customers = concat(shards.fanOut(jdbcTemplate -> jdbcTemplate.query(sql, ROW_MAPPER, limit)));
+        customers.sort(comparator(sort));
+        int from = (int) Math.min(pageable.getOffset(), customers.size());
+        int to = (int) Math.min(limit, customers.size());
+        return new PageImpl<>(new ArrayList<>(customers.subList(from, to)), pageable, count());
+    }
+
+    @Override
+    public long count() {
+        return shards.fanOut(jdbcTemplate -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    @Override
+    public void deleteById(UUID id) {
+        shards.shardFor(id).update("DELETE FROM customers WHERE id = ?", id);
+        githubUsernames.reindex(id, null);
+        emails.reindex(id, null);
+    }
+
+    @Override
+    public void deleteAll() {
+        shards.fanOut(jdbcTemplate -> jdbcTemplate.update("DELETE FROM customers"));
+        githubUsernames.clear();
+        emails.clear();
+    }
+
+    /**
+     * Reload the GitHub usernames and emails of customers changed on other nodes, see {@link CustomerInvalidationBus}
+     */
+    @EventListener
+    public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+        if (event.isAll()) {
+            Map<UUID, String[]> current = new ConcurrentHashMap<>();
+            shards.fanOut(jdbcTemplate -> {
+                jdbcTemplate.query("SELECT id, github_username, email_normalized FROM customers",
+                        (RowCallbackHandler) resultSet -> current.put(resultSet.getObject(1, UUID.class),
+                                new String[] {resultSet.getString(2), resultSet.getString(3)}));
+                return null;
+            });
+            githubUsernames.retainAll(current.keySet());
+            emails.retainAll(current.keySet());
+            current.forEach((id, keys) -> {
+                githubUsernames.reindex(id, keys[0]);
+                emails.reindex(id, keys[1]);
+            });
+            return;
+        }
+        for (UUID id : event.getCustomerIds()) {
+            List<String[]> keys = shards.shardFor(id).query("SELECT github_username, email_normalized FROM customers WHERE id = ?",
+                    (resultSet, rowNum) -> new String[] {resultSet.getString(1), resultSet.getString(2)}, id);
+            githubUsernames.reindex(id, keys.isEmpty() ? null : keys.get(0)[0]);
+            emails.reindex(id, keys.isEmpty() ? null : keys.get(0)[1]);
+        }
+    }
+
+    private static List<Customer> concat(List<List<Customer>> shardResults) {
+        List<Customer> customers = new ArrayList<>(shardResults.stream().mapToInt(List::size).sum());
+        shardResults.forEach(customers::addAll);
+        return customers;
+    }
+
+    /**
+     * ORDER BY clause that sorts like {@link CustomerRepositorySupport#comparator}, nulls last in ascending order
+     */
+    private static String orderBy(Sort sort) {
+        List<String> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            String column = switch (order.getProperty()) {
+                case "id" -> "id";
+                case "firstName" -> "first_name";
+                case "lastName" -> "last_name";
+                case "email" -> "email";
+                case "githubUsername" -> "github_username";
+                default -> throw new IllegalArgumentException("Cannot sort customers by " + order.getProperty());
+            };
+            if (order.isIgnoreCase()) {
+                column = "LOWER(" + column + ")";
+            }
+            orders.add(column + (order.isAscending() ? " ASC NULLS LAST" : " DESC NULLS FIRST"));
+        }
+        return String.join(", ", orders);
+    }
+
+    /**
+     * Unique values of a column across all shards, by customer id
+     */
+    private static final class UniqueIndex {
+        private final String name;
+        private final ConcurrentHashMap<String, UUID> idByValue = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<UUID, String> valueById = new ConcurrentHashMap<>();
+
+        UniqueIndex(String name) {
+            this.name = name;
+        }
+
+        UUID get(String value) {
+            return value == null ? null : idByValue.get(value);
+        }
+
+        /**
+         * Reserve the value for the customer before it is written
+         * @return whether the value was reserved now, rather than already owned by the customer
+         * @throws DataIntegrityViolationException if another customer owns the value
+         */
+        boolean claim(String value, UUID id) {
+            if (value == null) {
+                return false;
+            }
+            UUID owner = idByValue.putIfAbsent(value, id);
+            if (owner != null && !owner.equals(id)) {
+                throw new DataIntegrityViolationException(name + " already in use: " + value);
+            }
+            return owner == null;
+        }
+
+        /**
+         * Undo {@link #claim} after the write failed
+         */
+        void release(String value, UUID id, boolean claimed) {
+            if (claimed) {
+                idByValue.remove(value, id);
+            }
+        }
+
+        /**
+         * Record the customer's current value, null if it has none or was deleted
+         */
+        void reindex(UUID id, String value) {
+            String previous = value == null ? valueById.remove(id) : valueById.put(id, value);
+            if (previous != null && !previous.equals(value)) {
+                idByValue.remove(previous, id);
+            }
+            if (value != null) {
+                idByValue.put(value, id);
+            }
+        }
+
+        void retainAll(Set<UUID> ids) {
+            for (UUID id : List.copyOf(valueById.keySet())) {
+                if (!ids.contains(id)) {
+                    reindex(id, null);
+                }
+            }
+        }
+
+        void clear() {
+            idByValue.clear();
+            valueById.clear();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Immutable sorted list of (term, customer id) pairs with front-coded terms: every term stores only
+ * the suffix it does not share with the previous term, and every {@value #BLOCK_SIZE}th term is stored
+ * whole, so lookups binary search those and decode at most one block before reaching their position.
+ * Sorted terms share long prefixes, so this takes a fraction of the memory of separate strings.
+ */
+public final class SortedTermArray {
+
+    static final int BLOCK_SIZE = 16;
+
+    public record Term(String term, UUID id) {
+    }
+
+    private static final Comparator<Term> ORDER = Comparator.comparing(Term::term).thenComparing(Term::id);
+
+    // per term: shared prefix length, suffix length, suffix
+    private final char[] data;
+    private final int[] blockOffsets;
+    private final long[] mostSignificantBits;
+    private final long[] leastSignificantBits;
+    private final int maxTermLength;
+
+    private SortedTermArray(char[] data, int[] blockOffsets, long[] mostSignificantBits,
+                            long[] leastSignificantBits, int maxTermLength) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.mostSignificantBits = mostSignificantBits;
+        this.leastSignificantBits = leastSignificantBits;
+        this.maxTermLength = maxTermLength;
+    }
+
+    /**
+     * @param terms terms in any order, each at most {@link Character#MAX_VALUE} characters long
+     */
+    public static SortedTermArray of(Collection<Term> terms) {
+        List<Term> sorted = new ArrayList<>(terms);
+        sorted.sort(ORDER);
+        int size = sorted.size();
+
+        int length = 0;
+        int maxTermLength = 0;
+        for (int i = 0; i < size; i++) {
+            String term = sorted.get(i).term();
+            length += 2 + term.length() - sharedPrefix(sorted, i);
+            maxTermLength = Math.max(maxTermLength, term.length());
+        }
+
+        char[] data = new char[length];
+        int[] blockOffsets = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        long[] mostSignificantBits = new long[size];
+        long[] leastSignificantBits = new long[size];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            Term term = sorted.get(i);
+            if (i % BLOCK_SIZE == 0) {
+                blockOffsets[i / BLOCK_SIZE] = offset;
+            }
+            int shared = sharedPrefix(sorted, i);
+            int suffix = term.term().length() - shared;
+            data[offset] = (char) shared;
+            data[offset + 1] = (char) suffix;
+            term.term().getChars(shared, shared + suffix, data, offset + 2);
+            offset += 2 + suffix;
+            mostSignificantBits[i] = term.id().getMostSignificantBits();
+            leastSignificantBits[i] = term.id().getLeastSignificantBits();
+        }
+        return new SortedTermArray(data, blockOffsets, mostSignificantBits, leastSignificantBits, maxTermLength);
+    }
+
+    public int size() {
+        return mostSignificantBits.length;
+    }
+
+    public long getSizeInBytes() {
+        return data.length * 2L + blockOffsets.length * 4L + size() * 16L;
+    }
+
+    /**
+     * @return cursor at the first term that is not less than from
+     */
+    public Cursor seek(String from) {
+        // the first term >= from follows the last block whose first term is < from
+        int block = 0;
+        int low = 0;
+        int high = blockOffsets.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareBlockHead(mid, from) < 0) {
+                block = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        Cursor cursor = new Cursor(block * BLOCK_SIZE, blockOffsets.length == 0 ? 0 : blockOffsets[block]);
+        while (cursor.isValid() && cursor.compareTo(from) < 0) {
+            cursor.advance();
+        }
+        return cursor;
+    }
+
+    private int compareBlockHead(int block, String other) {
+        int offset = blockOffsets[block];
+        return compare(data, offset + 2, data[offset + 1], other);
+    }
+
+    private static int sharedPrefix(List<Term> sorted, int index) {
+        if (index % BLOCK_SIZE == 0) {
+            return 0;
+        }
+        String previous = sorted.get(index - 1).term();
+        String term = sorted.get(index).term();
+        int max = Math.min(previous.length(), term.length());
+        int shared = 0;
+        while (shared < max && previous.charAt(shared) == term.charAt(shared)) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private static int compare(char[] chars, int offset, int length, String other) {
+        int max = Math.min(length, other.length());
+        for (int i = 0; i < max; i++) {
+            int difference = chars[offset + i] - other.charAt(i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - other.length();
+    }
+
+    /**
+     * Position in the array, moving forward in term order
+     */
+    public final class Cursor {
+        private final char[] term = new char[maxTermLength];
+        private int length;
+        private int ordinal;
+        private int next;
+
+        private Cursor(int ordinal, int offset) {
+            this.ordinal = ordinal;
+            if (isValid()) {
+                read(offset);
+            }
+        }
+
+        public boolean isValid() {
+            return ordinal < size();
+        }
+
+        public void advance() {
+            if (++ordinal < size()) {
+                read(next);
+            }
+        }
+
+        public String term() {
+            return new String(term, 0, length);
+        }
+
+        public UUID id() {
+            return new UUID(mostSignificantBits[ordinal], leastSignificantBits[ordinal]);
+        }
+
+        public boolean startsWith(String prefix) {
+            return length >= prefix.length() && compare(term, 0, prefix.length(), prefix) == 0;
+        }
+
+        public int compareTo(String other) {
+            return compare(term, 0, length, other);
+        }
+
+        private void read(int offset) {
+            int shared = data[offset];
+            int suffix = data[offset + 1];
+            System.arraycopy(data, offset + 2, term, shared, suffix);
+            length = shared + suffix;
+            next = offset + 2 + suffix;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Deterministic generator for synthetic customers.
+ * The customer at a given index only depends on the seed and the index,
+ * so datasets are reproducible between runs and can be generated in any order.
+ */
+public class SyntheticCustomers {
+
+    static final String[] FIRST_NAMES = {
+            "James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael", "Linda",
+            "William", "Elizabeth", "David", "Barbara", "Richard", "Susan", "Joseph", "Jessica",
+            "Thomas", "Sarah", "Charles", "Karen", "Moritz", "Anna", "Lukas", "Lea",
+            "Jonas", "Hannah", "Felix", "Emma", "Paul", "Mia", "Noah", "Sophie"
+    };
+
+    static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis",
+            "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas",
+            "Mueller", "Schmidt", "Schneider", "Fischer", "Weber", "Meyer", "Wagner", "Becker",
+            "Schulz", "Hoffmann", "Koch", "Richter", "Klein", "Wolf", "Neumann", "Schwarz"
+    };
+
+    static final String[] DOMAINS = {
+            "example.com", "example.org", "mail.example.net", "corp.example.com",
+            "gmail.example", "web.example", "posteo.example", "outlook.example"
+    };
+
+    private static final double GITHUB_RATIO = 0.3;
+
+    private final long seed;
+
+    public SyntheticCustomers(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Create the customer with the given index
+     * @param index position of the customer in the dataset
+     * @return customer with id, names, a unique email and optionally a unique GitHub username
+     */
+    public Customer customer(long index) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(index)));
+
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+
+        Customer customer = new Customer();
+        customer.setId(new UUID(
+                (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L,
+                (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L));
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setEmail(firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + index + "@" + domain);
+        if (random.nextDouble() < GITHUB_RATIO) {
+            customer.setGithubUsername(firstName.toLowerCase() + "-" + lastName.toLowerCase() + "-" + index);
+        }
+        return customer;
+    }
+
+    /**
+     * Create the customers with indexes 0 (inclusive) to count (exclusive)
+     */
+    public List<Customer> customers(int count) {
+        List<Customer> customers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            customers.add(customer(i));
+        }
+        return customers;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,9 @@
+CREATE TABLE customer_invalidations (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    node VARCHAR(36) NOT NULL,
+    published_at BIGINT NOT NULL,
+    all_customers BOOLEAN NOT NULL,
+    customer_ids CLOB NOT NULL
+);
+
+CREATE INDEX idx_customer_invalidations_published_at ON customer_invalidations(published_at);
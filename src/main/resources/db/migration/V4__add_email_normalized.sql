@@ -0,0 +1,4 @@
+-- Lowercased and trimmed email, computed by the database so every write path maintains it.
+-- The unique index makes emails unique regardless of case and serves exact and prefix lookups.
+ALTER TABLE customers ADD COLUMN email_normalized VARCHAR(100) GENERATED ALWAYS AS (LOWER(TRIM(email)));
+CREATE UNIQUE INDEX idx_customers_email_normalized ON customers(email_normalized);
@@ -0,0 +1,13 @@
+-- Append-only history of customer changes, written in batches by CustomerAuditTrail.
+-- Before and after values are JSON, null for created and deleted customers respectively.
+CREATE TABLE customer_audit (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    customer_id UUID NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    actor VARCHAR(100) NOT NULL,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    before_values CLOB,
+    after_values CLOB
+);
+
+CREATE INDEX idx_customer_audit_customer_id ON customer_audit(customer_id, seq);
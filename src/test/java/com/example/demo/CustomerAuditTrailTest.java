@@ -0,0 +1,82 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CustomerAuditTrailTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerAuditTrail auditTrail;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @WithMockUser(username = "auditor")
+    void history_ShouldRecordCommittedChangesNewestFirst() {
+        String email = "audit." + UUID.randomUUID() + "@example.com";
+        CustomerDTO created = customerService.createCustomer(new CustomerDTO(null, "Ada", "Lovelace", email));
+        customerService.updateCustomer(created.getId(), new CustomerDTO(null, "Ada", "King", email));
+        customerService.deleteCustomer(created.getId());
+
+        assertThat(await(() -> auditTrail.getHistory(created.getId(), 0, 10).size() == 3)).isTrue();
+        List<CustomerAuditTrail.Change> history = auditTrail.getHistory(created.getId(), 0, 10);
+        assertThat(history).extracting(CustomerAuditTrail.Change::type).containsExactly(
+                CustomerChangeEvent.Type.DELETED, CustomerChangeEvent.Type.UPDATED, CustomerChangeEvent.Type.CREATED);
+        assertThat(history).extracting(CustomerAuditTrail.Change::actor).containsOnly("auditor");
+        assertThat(history.get(1).before()).isEqualTo(new CustomerAuditTrail.Values("Ada", "Lovelace", email, null));
+        assertThat(history.get(1).after()).isEqualTo(new CustomerAuditTrail.Values("Ada", "King", email, null));
+        assertThat(history.get(0).after()).isNull();
+        assertThat(history.get(2).before()).isNull();
+
+        assertThat(auditTrail.getHistory(created.getId(), 1, 2)).extracting(CustomerAuditTrail.Change::type)
+                .containsExactly(CustomerChangeEvent.Type.CREATED);
+    }
+
+    @Test
+    void history_ShouldNotRecordRolledBackChanges() {
+        UUID rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return customerService.createCustomer(
+                    new CustomerDTO(null, "Rolled", "Back", "rolled.back." + UUID.randomUUID() + "@example.com")).getId();
+        });
+        CustomerDTO committed = customerService.createCustomer(
+                new CustomerDTO(null, "Committed", "Change", "committed." + UUID.randomUUID() + "@example.com"));
+
+        // changes are written in commit order, so the rolled back one would be written by now
+        assertThat(await(() -> auditTrail.getHistory(committed.getId(), 0, 10).size() == 1)).isTrue();
+        assertThat(auditTrail.getHistory(committed.getId(), 0, 10).get(0).actor()).isEqualTo("system");
+        assertThat(auditTrail.getHistory(rolledBack, 0, 10)).isEmpty();
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
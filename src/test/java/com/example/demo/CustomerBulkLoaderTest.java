@@ -0,0 +1,103 @@
+package com.example.demo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CustomerBulkLoaderTest {
+
+    private static final String SELECT_ALL = "SELECT id, first_name, last_name, email, github_username FROM customers ORDER BY id";
+
+    @Test
+    void load_ShouldInsertTheSameCustomersForTheSameSeed() {
+        JdbcTemplate parallel = new JdbcTemplate(migratedDataSource());
+        JdbcTemplate sequential = new JdbcTemplate(migratedDataSource());
+        JdbcTemplate otherSeed = new JdbcTemplate(migratedDataSource());
+
+        assertThat(new CustomerBulkLoader(parallel.getDataSource(), 3, 100, false).load(new SyntheticCustomers(42), 0, 1000))
+                .isEqualTo(1000);
+        new CustomerBulkLoader(sequential.getDataSource(), 1, 250, false).load(new SyntheticCustomers(42), 0, 1000);
+        new CustomerBulkLoader(otherSeed.getDataSource(), 3, 100, false).load(new SyntheticCustomers(7), 0, 1000);
+
+        List<Map<String, Object>> loaded = parallel.queryForList(SELECT_ALL);
+        assertThat(loaded).hasSize(1000).isEqualTo(sequential.queryForList(SELECT_ALL));
+        assertThat(loaded).isNotEqualTo(otherSeed.queryForList(SELECT_ALL));
+        Customer first = new SyntheticCustomers(42).customer(0);
+        assertThat(parallel.queryForObject("SELECT email FROM customers WHERE id = ?", String.class, first.getId()))
+                .isEqualTo(first.getEmail());
+    }
+
+    @Test
+    void load_WithRebuildIndexes_ShouldDropAndRecreateTheUniqueIndexes() {
+        DataSource dataSource = migratedDataSource();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        AtomicReference<List<String>> indexesDuringLoad = new AtomicReference<>();
+        SyntheticCustomers customers = new SyntheticCustomers(42) {
+            @Override
+            public Customer customer(long index) {
+                if (index == 0) {
+                    indexesDuringLoad.set(uniqueIndexes(jdbcTemplate));
+                }
+                return super.customer(index);
+            }
+        };
+
+        new CustomerBulkLoader(dataSource, 2, 100, true).load(customers, 0, 500);
+
+        assertThat(indexesDuringLoad.get()).isEmpty();
+        assertThat(uniqueIndexes(jdbcTemplate)).containsExactlyInAnyOrder(
+                "idx_customers_github_username", "idx_customers_email_normalized");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class)).isEqualTo(500);
+        assertUniqueEmails(jdbcTemplate, new SyntheticCustomers(42).customer(0).getEmail());
+    }
+
+    @Test
+    void load_WhenABatchFails_ShouldStillRecreateTheUniqueIndexes() {
+        DataSource dataSource = migratedDataSource();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // a customer of the second worker's range is already there, so its batch violates the primary key
+        Customer existing = new SyntheticCustomers(42).customer(350);
+        jdbcTemplate.update(CustomerBulkLoader.INSERT_SQL, existing.getId(), existing.getFirstName(), existing.getLastName(),
+                existing.getEmail(), existing.getGithubUsername());
+
+        assertThatThrownBy(() -> new CustomerBulkLoader(dataSource, 2, 100, true).load(new SyntheticCustomers(42), 0, 500))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Bulk load failed");
+
+        assertThat(uniqueIndexes(jdbcTemplate)).containsExactlyInAnyOrder(
+                "idx_customers_github_username", "idx_customers_email_normalized");
+        assertUniqueEmails(jdbcTemplate, existing.getEmail());
+    }
+
+    /**
+     * Empty in-memory database with the application's schema
+     */
+    static DataSource migratedDataSource() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bulk-load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        return dataSource;
+    }
+
+    private static List<String> uniqueIndexes(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE TABLE_NAME = 'CUSTOMERS' AND INDEX_TYPE_NAME = 'UNIQUE INDEX' "
+                + "AND LOWER(INDEX_NAME) LIKE 'idx_customers_%'", String.class);
+    }
+
+    private static void assertUniqueEmails(JdbcTemplate jdbcTemplate, String email) {
+        assertThatThrownBy(() -> jdbcTemplate.update(CustomerBulkLoader.INSERT_SQL, UUID.randomUUID(), "Copy", "Cat",
+                email.toUpperCase(), null)).isInstanceOf(DuplicateKeyException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerColumnStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CustomerColumnStore columnStore;
+
+    @BeforeEach
+    void setUp() {
+        // the mocked query returns no rows, so the replica starts empty
+        columnStore = new CustomerColumnStore(jdbcTemplate);
+        columnStore.rebuild();
+    }
+
+    @Test
+    void search_ShouldMatchSubstringsIgnoringCase() {
+        Customer john = customer("John", "Doe", "john.doe@example.com");
+        Customer jane = customer("Jane", "Smith", "jane.smith@example.com");
+        columnStore.onCustomerChange(CustomerChangeEvent.created(john));
+        columnStore.onCustomerChange(CustomerChangeEvent.created(jane));
+
+        List<CustomerDTO> results = columnStore.search(new SearchCriteria("JA", null, null));
+
+        assertThat(columnStore.isReady()).isTrue();
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).getId()).isEqualTo(jane.getId());
+        assertThat(results.get(0).getFirstName()).isEqualTo("Jane");
+        assertThat(results.get(0).getEmail()).isEqualTo("jane.smith@example.com");
+    }
+
+    @Test
+    void search_WithMultipleCriteria_ShouldRequireAllToMatch() {
+        columnStore.onCustomerChange(CustomerChangeEvent.created(customer("John", "Doe", "john.doe@example.com")));
+        columnStore.onCustomerChange(CustomerChangeEvent.created(customer("John", "Smith", "john.smith@example.com")));
+
+        List<CustomerDTO> results = columnStore.search(new SearchCriteria("john", "doe", "example"));
+
+        assertThat(results).extracting(CustomerDTO::getLastName).containsExactly("Doe");
+    }
+
+    @Test
+    void search_ShouldReflectUpdatesAndDeletes() {
+        Customer customer = customer("Jürgen", "Müller", "juergen@example.com");
+        columnStore.onCustomerChange(CustomerChangeEvent.created(customer));
+
+        Customer updated = CustomerChangeEvent.copyOf(customer);
+        updated.setLastName("Meier");
+        columnStore.onCustomerChange(CustomerChangeEvent.updated(customer, updated));
+
+        assertThat(columnStore.search(new SearchCriteria(null, "müller", null))).isEmpty();
+        assertThat(columnStore.search(new SearchCriteria("JÜR", "meier", null))).hasSize(1);
+
+        columnStore.onCustomerChange(CustomerChangeEvent.deleted(updated));
+
+        assertThat(columnStore.search(new SearchCriteria("jür", null, null))).isEmpty();
+    }
+
+    @Test
+    void search_AcrossManyChunks_ShouldFindAllMatches() {
+        for (int i = 0; i < 50_000; i++) {
+            String firstName = i % 1000 == 0 ? "Needle" : "Hay";
+            columnStore.onCustomerChange(CustomerChangeEvent.created(customer(firstName, "Stack", i + "@example.com")));
+        }
+
+        assertThat(columnStore.search(new SearchCriteria("needle", null, null))).hasSize(50);
+    }
+
+    private static Customer customer(String firstName, String lastName, String email) {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setEmail(email);
+        return customer;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement and allocation budgets per CustomerController endpoint.
+ * A failing budget means a change added queries or allocation to a request path;
+ * raise the budget only if that is intended.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(StatementCountingConfiguration.class)
+@WithMockUser(roles = "ADMIN")
+public class CustomerControllerBudgetTest {
+
+    // Allocation budgets include MockMvc and the security filter chain and leave headroom for JVM differences
+    private static final long POINT_REQUEST_ALLOCATION_BUDGET = 2 * 1024 * 1024;
+    private static final long SEARCH_1000_ROWS_ALLOCATION_BUDGET = 16 * 1024 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @BeforeEach
+    void cleanUp() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    void createCustomer_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget(() -> post("/api/customers")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(customerJson("budget.create." + UUID.randomUUID() + "@example.com")),
+                201, 1, POINT_REQUEST_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void getCustomerById_ShouldStayWithinBudget() throws Exception {
+        UUID id = saveCustomer("budget.get@example.com").getId();
+
+        assertWithinBudget(() -> get("/api/customers/{id}", id).with(csrf()),
+                200, 1, POINT_REQUEST_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void getCustomerById_WhenMissing_ShouldStayWithinBudget() throws Exception {
+        assertWithinBudget(() -> get("/api/customers/{id}", UUID.randomUUID()).with(csrf()),
+                404, 1, POINT_REQUEST_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void updateCustomer_ShouldStayWithinBudget() throws Exception {
+        UUID id = saveCustomer("budget.update@example.com").getId();
+
+        // select + update
+        assertWithinBudget(() -> put("/api/customers/{id}", id)
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(customerJson("budget.update." + UUID.randomUUID() + "@example.com")),
+                200, 2, POINT_REQUEST_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void deleteCustomer_ShouldStayWithinBudget() throws Exception {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ids.add(saveCustomer("budget.delete." + i + "@example.com").getId());
+        }
+
+        // select + delete
+        assertWithinBudget(() -> delete("/api/customers/{id}", ids.remove(0)).with(csrf()),
+                204, 2, POINT_REQUEST_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void executeOperations_ShouldBatchStatementsRegardlessOfOperationCount() throws Exception {
+        List<UUID> patched = new ArrayList<>();
+        List<List<UUID>> deletedPerRequest = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            patched.add(saveCustomer("budget.patch." + i + "@example.com").getId());
+        }
+        for (int request = 0; request < 2; request++) {
+            List<UUID> deleted = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                deleted.add(saveCustomer("budget.operations." + request + "." + i + "@example.com").getId());
+            }
+            deletedPerRequest.add(deleted);
+        }
+
+        // select by id + select by email + one batch each of inserts, updates and deletes
+        assertWithinBudget(() -> post("/api/customers/operations")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(operationsJson(50, patched, deletedPerRequest.remove(0))),
+                200, 5, SEARCH_1000_ROWS_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void searchCustomers_ShouldIssueOneStatementRegardlessOfTableSize() throws Exception {
+        seed(10);
+        ResourceUsage small = measure(get("/api/customers").with(csrf()).param("firstName", "match"), 200);
+
+        seed(990);
+        ResourceUsage large = measure(get("/api/customers").with(csrf()).param("firstName", "match"), 200);
+
+        assertThat(small.getStatements()).as("search on 10 rows: %s", small).isEqualTo(1);
+        assertThat(large.getStatements()).as("search on 1000 rows: %s", large).isEqualTo(1);
+        assertThat(large.getAllocatedBytes()).as("search on 1000 rows: %s", large)
+                .isLessThanOrEqualTo(SEARCH_1000_ROWS_ALLOCATION_BUDGET);
+    }
+
+    @Test
+    void listCustomers_ShouldIssueOneStatement() throws Exception {
+        seed(100);
+
+        assertWithinBudget(() -> get("/api/customers").with(csrf()), 200, 1, SEARCH_1000_ROWS_ALLOCATION_BUDGET);
+    }
+
+    /**
+     * Perform the request once to warm up caches, then measure a second request
+     */
+    private void assertWithinBudget(RequestSupplier request, int expectedStatus, long statementBudget,
+                                    long allocationBudget) throws Exception {
+        measure(request.get(), expectedStatus);
+        ResourceUsage usage = measure(request.get(), expectedStatus);
+
+        assertThat(usage.getStatements()).as("statements: %s", usage).isLessThanOrEqualTo(statementBudget);
+        assertThat(usage.getAllocatedBytes()).as("allocation: %s", usage).isLessThanOrEqualTo(allocationBudget);
+    }
+
+    private ResourceUsage measure(RequestBuilder request, int expectedStatus) throws Exception {
+        return ResourceUsage.measure(() -> mockMvc.perform(request).andExpect(status().is(expectedStatus)));
+    }
+
+    private Customer saveCustomer(String email) {
+        Customer customer = new Customer();
+        customer.setFirstName("Budget");
+        customer.setLastName("Test");
+        customer.setEmail(email);
+        return customerRepository.save(customer);
+    }
+
+    private void seed(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String firstName = i % 10 == 0 ? "Match" : "Other";
+            rows.add(new Object[] {UUID.randomUUID(), firstName, "Seed", "seed." + UUID.randomUUID() + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customers (id, first_name, last_name, email) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private static String operationsJson(int creates, List<UUID> patched, List<UUID> deleted) {
+        List<String> operations = new ArrayList<>();
+        for (int i = 0; i < creates; i++) {
+            operations.add("{\"type\":\"CREATE\",\"firstName\":\"Budget\",\"lastName\":\"Test\",\"email\":\"budget.operations."
+                    + UUID.randomUUID() + "@example.com\"}");
+        }
+        for (UUID id : patched) {
+            operations.add("{\"type\":\"PATCH\",\"id\":\"" + id + "\",\"firstName\":\"Patched" + UUID.randomUUID().toString().substring(0, 8) + "\"}");
+        }
+        for (UUID id : deleted) {
+            operations.add("{\"type\":\"DELETE\",\"id\":\"" + id + "\"}");
+        }
+        return "[" + String.join(",", operations) + "]";
+    }
+
+    private static String customerJson(String email) {
+        return "{\"firstName\":\"Budget\",\"lastName\":\"Test\",\"email\":\"" + email + "\"}";
+    }
+
+    @FunctionalInterface
+    private interface RequestSupplier {
+        RequestBuilder get();
+    }
+}
@@ -37,6 +37,9 @@ public class CustomerControllerTest {
     @MockBean
     private CustomerService customerService;
 
+    @MockBean
+    private CustomerOperationService operationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -71,6 +74,78 @@ public class CustomerControllerTest {
         verify(customerService).findCustomerById(testId);
     }
 
+    @Test
+    void testGetCustomerByEmail_ShouldReturnCustomer() throws Exception {
+        when(customerService.findCustomerByEmail("John.Doe@Example.com")).thenReturn(Optional.of(testCustomerDTO));
+
+        mockMvc.perform(get("/api/customers/by-email/{email}", "John.Doe@Example.com")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(testId.toString()))
+                .andExpect(jsonPath("$.email").value("john.doe@example.com"));
+
+        mockMvc.perform(get("/api/customers/by-email/{email}", "nobody@example.com")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testSuggestCustomers_ShouldClampLimit() throws Exception {
+        when(customerService.suggestCustomers("jo", 100))
+                .thenReturn(List.of(new CustomerSuggestIndex.Suggestion(testId, "John Doe <john.doe@example.com>")));
+
+        mockMvc.perform(get("/api/customers/suggest")
+                .param("q", "jo")
+                .param("limit", "5000")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(testId.toString()))
+                .andExpect(jsonPath("$[0].displayName").value("John Doe <john.doe@example.com>"));
+    }
+
+    @Test
+    void testGetCustomerStats_ShouldClampTop() throws Exception {
+        when(customerService.getCustomerStats(100)).thenReturn(new CustomerStats.Summary(3, 1, 2, 2,
+                List.of(new CustomerStats.DomainCount("example.com", 2)), null));
+
+        mockMvc.perform(get("/api/customers/stats")
+                .param("top", "5000")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customers").value(3))
+                .andExpect(jsonPath("$.withoutGithubUsername").value(2))
+                .andExpect(jsonPath("$.topDomains[0].domain").value("example.com"))
+                .andExpect(jsonPath("$.topDomains[0].customers").value(2));
+    }
+
+    @Test
+    void testExecuteOperations_WhenOneFails_ShouldReturnMultiStatus() throws Exception {
+        List<CustomerOperationDTO> operations = List.of(
+                new CustomerOperationDTO(CustomerOperationDTO.Type.CREATE, null, "John", "Doe", "john.doe@example.com"),
+                new CustomerOperationDTO(CustomerOperationDTO.Type.DELETE, testId, null, null, null));
+        when(operationService.executeOperations(any(), eq(2), any())).thenReturn(List.of(
+                new CustomerOperationResultDTO(0, 424, null, "Rolled back because operation 1 failed"),
+                new CustomerOperationResultDTO(1, 403, null, "Deleting customers requires the ADMIN role")));
+
+        mockMvc.perform(post("/api/customers/operations")
+                .param("chunkSize", "5")
+                .with(SecurityMockMvcRequestPostProcessors.csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(operations)))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$[0].status").value(424))
+                .andExpect(jsonPath("$[1].status").value(403))
+                .andExpect(jsonPath("$[1].error").value("Deleting customers requires the ADMIN role"));
+    }
+
+    @Test
+    void testGetCustomerHistory_WhenAuditTrailIsDisabled_ShouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/customers/{id}/history", testId)
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("Customer audit trail is disabled"));
+    }
+
     @Test
     void testGetCustomerById_WhenCustomerDoesNotExist_ShouldReturnNotFound() throws Exception {
         // Arrange
@@ -87,7 +162,7 @@ public class CustomerControllerTest {
     @Test
     void testCreateCustomer_WithValidData_ShouldReturnCreated() throws Exception {
         // Arrange
-        when(customerService.createCustomer(any(CustomerDTO.class))).thenReturn(testCustomerDTO);
+        when(customerService.tryCreateCustomer(any(CustomerDTO.class))).thenReturn(CustomerResult.found(testCustomerDTO));
 
         // Act & Assert
         mockMvc.perform(post("/api/customers")
@@ -101,7 +176,7 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.email").value("john.doe@example.com"));
 
         ArgumentCaptor<CustomerDTO> customerCaptor = ArgumentCaptor.forClass(CustomerDTO.class);
-        verify(customerService).createCustomer(customerCaptor.capture());
+        verify(customerService).tryCreateCustomer(customerCaptor.capture());
         
         CustomerDTO capturedCustomer = customerCaptor.getValue();
         assertEquals("John", capturedCustomer.getFirstName());
@@ -124,13 +199,13 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.lastName").exists())
                 .andExpect(jsonPath("$.email").exists());
 
-        verify(customerService, never()).createCustomer(any());
+        verify(customerService, never()).tryCreateCustomer(any());
     }
 
     @Test
     void testUpdateCustomer_WithValidData_ShouldReturnOk() throws Exception {
         // Arrange
-        when(customerService.updateCustomer(eq(testId), any(CustomerDTO.class))).thenReturn(testCustomerDTO);
+        when(customerService.tryUpdateCustomer(eq(testId), any(CustomerDTO.class))).thenReturn(CustomerResult.found(testCustomerDTO));
 
         // Act & Assert
         mockMvc.perform(put("/api/customers/{id}", testId)
@@ -144,7 +219,7 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.email").value("john.doe@example.com"));
 
         ArgumentCaptor<CustomerDTO> customerCaptor = ArgumentCaptor.forClass(CustomerDTO.class);
-        verify(customerService).updateCustomer(eq(testId), customerCaptor.capture());
+        verify(customerService).tryUpdateCustomer(eq(testId), customerCaptor.capture());
         
         CustomerDTO capturedCustomer = customerCaptor.getValue();
         assertEquals("John", capturedCustomer.getFirstName());
@@ -155,8 +230,8 @@ public class CustomerControllerTest {
     @Test
     void testUpdateCustomer_WhenCustomerDoesNotExist_ShouldReturnNotFound() throws Exception {
         // Arrange
-        when(customerService.updateCustomer(eq(testId), any(CustomerDTO.class)))
-                .thenThrow(new CustomerNotFoundException("Customer not found"));
+        when(customerService.tryUpdateCustomer(eq(testId), any(CustomerDTO.class)))
+                .thenReturn(CustomerResult.notFound("Customer not found"));
 
         // Act & Assert
         mockMvc.perform(put("/api/customers/{id}", testId)
@@ -165,33 +240,48 @@ public class CustomerControllerTest {
                 .content(objectMapper.writeValueAsString(testRequestDTO)))
                 .andExpect(status().isNotFound());
 
-        verify(customerService).updateCustomer(eq(testId), any(CustomerDTO.class));
+        verify(customerService).tryUpdateCustomer(eq(testId), any(CustomerDTO.class));
+    }
+
+    @Test
+    void testUpdateCustomer_WhenEmailIsInUse_ShouldReturnConflict() throws Exception {
+        // Arrange
+        when(customerService.tryUpdateCustomer(eq(testId), any(CustomerDTO.class)))
+                .thenReturn(CustomerResult.conflict("Customer with this email already exists: john.doe@example.com"));
+
+        // Act & Assert
+        mockMvc.perform(put("/api/customers/{id}", testId)
+                .with(SecurityMockMvcRequestPostProcessors.csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(testRequestDTO)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Customer with this email already exists: john.doe@example.com"));
     }
 
     @Test
     void testDeleteCustomer_WhenCustomerExists_ShouldReturnNoContent() throws Exception {
         // Arrange
-        doNothing().when(customerService).deleteCustomer(testId);
+        when(customerService.tryDeleteCustomer(testId)).thenReturn(CustomerResult.found(null));
 
         // Act & Assert
         mockMvc.perform(delete("/api/customers/{id}", testId)
                 .with(SecurityMockMvcRequestPostProcessors.csrf()))
                 .andExpect(status().isNoContent());
 
-        verify(customerService).deleteCustomer(testId);
+        verify(customerService).tryDeleteCustomer(testId);
     }
 
     @Test
     void testDeleteCustomer_WhenCustomerDoesNotExist_ShouldReturnNotFound() throws Exception {
         // Arrange
-        doThrow(new CustomerNotFoundException("Customer not found")).when(customerService).deleteCustomer(testId);
+        when(customerService.tryDeleteCustomer(testId)).thenReturn(CustomerResult.notFound("Customer not found"));
 
         // Act & Assert
         mockMvc.perform(delete("/api/customers/{id}", testId)
                 .with(SecurityMockMvcRequestPostProcessors.csrf()))
                 .andExpect(status().isNotFound());
 
-        verify(customerService).deleteCustomer(testId);
+        verify(customerService).tryDeleteCustomer(testId);
     }
 
     @Test
@@ -0,0 +1,142 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "customers.duplicates.partitions=8",
+        "customers.duplicates.report-directory=${java.io.tmpdir}/customer-duplicate-reports"
+})
+public class CustomerDuplicateDetectorTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerDuplicateDetector duplicateDetector;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void detection_ShouldClusterNearDuplicateCustomers() throws Exception {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        UUID original = create("Jonathan", "Smithers", "jonathan.smithers." + tag + "@example.com");
+        UUID typo = create("Jonathon", "Smithers", "jonathan.smithers." + tag + "@mail.example.org");
+        UUID reordered = create("Jonathan", "Smithers", "smithers.jonathan." + tag + "@example.com");
+        UUID other = create("Priscilla", "Vandenberg", "p.vandenberg." + tag + "@example.com");
+
+        assertThat(duplicateDetector.start()).isTrue();
+        CustomerDuplicateDetector.Status status = awaitCompletion(duplicateDetector);
+
+        assertThat(status.state()).isEqualTo(CustomerDuplicateDetector.State.COMPLETED);
+        assertThat(status.partitionsScored()).isEqualTo(8);
+        assertThat(status.customersRead()).isGreaterThanOrEqualTo(4);
+        Path report = duplicateDetector.getReport().orElseThrow();
+        List<UUID> cluster = null;
+        for (String line : Files.readAllLines(report)) {
+            JsonNode node = objectMapper.readTree(line);
+            List<UUID> ids = new ArrayList<>();
+            node.get("customers").forEach(customer -> ids.add(UUID.fromString(customer.get("id").asText())));
+            assertThat(node.get("size").asInt()).isEqualTo(ids.size());
+            if (ids.contains(original)) {
+                cluster = ids;
+            }
+        }
+        assertThat(cluster).contains(original, typo, reordered).doesNotContain(other);
+    }
+
+    @Test
+    void detection_ShouldHoldAtMostMaxRecordsPerPartitionInMemory() throws Exception {
+        CustomerDuplicateDetector detector = new CustomerDuplicateDetector(customersWithCommonName("duplicate-detection-bound"),
+                objectMapper, 0.7, 1, 512, 200, 200, 2, Files.createTempDirectory("customer-duplicate-reports").toString());
+
+        assertThat(detector.start()).isTrue();
+        CustomerDuplicateDetector.Status status = awaitCompletion(detector);
+
+        assertThat(status.state()).isEqualTo(CustomerDuplicateDetector.State.COMPLETED);
+        assertThat(status.customersRead()).isEqualTo(2500);
+        // 25000 records at half of 200 per partition
+        assertThat(status.partitions()).isEqualTo(250);
+        assertThat(status.largestPartition()).isPositive().isLessThanOrEqualTo(200);
+        assertThat(status.oversizedBuckets()).isPositive();
+    }
+
+    @Test
+    void detection_ShouldSplitPartitionsBeyondMaxPartitions() throws Exception {
+        CustomerDuplicateDetector detector = new CustomerDuplicateDetector(customersWithCommonName("duplicate-detection-capped"),
+                objectMapper, 0.7, 1, 16, 200, 200, 2, Files.createTempDirectory("customer-duplicate-reports").toString());
+
+        assertThat(detector.start()).isTrue();
+        CustomerDuplicateDetector.Status status = awaitCompletion(detector);
+
+        assertThat(status.state()).isEqualTo(CustomerDuplicateDetector.State.COMPLETED);
+        assertThat(status.customersRead()).isEqualTo(2500);
+        // 250 partitions would be needed, each of the 16 is split until it fits
+        assertThat(status.partitions()).isEqualTo(16);
+        assertThat(status.partitionsScored()).isEqualTo(16);
+        assertThat(status.largestPartition()).isPositive().isLessThanOrEqualTo(200);
+        assertThat(status.oversizedBuckets()).isPositive();
+    }
+
+    @Test
+    void keys_ShouldBeSharedByNearDuplicatesOnly() {
+        long[] original = CustomerDuplicateDetector.keys(
+                new CustomerDuplicateDetector.Row(UUID.randomUUID(), "Jonathan Smithers", "jon.smithers@example.com"));
+        long[] typo = CustomerDuplicateDetector.keys(
+                new CustomerDuplicateDetector.Row(UUID.randomUUID(), "Jonathon Smithers", "Jon.Smithers@example.org"));
+        long[] other = CustomerDuplicateDetector.keys(
+                new CustomerDuplicateDetector.Row(UUID.randomUUID(), "Priscilla Vandenberg", "pv@example.com"));
+
+        assertThat(original).containsAnyOf(typo);
+        assertThat(original).doesNotContain(other);
+    }
+
+    /**
+     * 2000 distinct customers and 500 with one name, shared by more customers than a partition may hold
+     */
+    private static DriverManagerDataSource customersWithCommonName(String database) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE customers (id UUID PRIMARY KEY, first_name VARCHAR(100), last_name VARCHAR(100), email VARCHAR(100))");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String firstName = "First" + UUID.randomUUID().toString().substring(0, 8);
+            rows.add(new Object[] {UUID.randomUUID(), firstName, "Last" + i, firstName + "." + i + "@example.com"});
+        }
+        for (int i = 0; i < 500; i++) {
+            rows.add(new Object[] {UUID.randomUUID(), "Common", "Name", "common.name." + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO customers (id, first_name, last_name, email) VALUES (?, ?, ?, ?)", rows);
+        return dataSource;
+    }
+
+    private UUID create(String firstName, String lastName, String email) {
+        return customerService.createCustomer(new CustomerDTO(null, firstName, lastName, email)).getId();
+    }
+
+    private static CustomerDuplicateDetector.Status awaitCompletion(CustomerDuplicateDetector detector) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (detector.getStatus().state() == CustomerDuplicateDetector.State.RUNNING
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        return detector.getStatus();
+    }
+}
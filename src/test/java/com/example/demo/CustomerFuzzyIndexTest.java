@@ -0,0 +1,97 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = "customers.fuzzy.enabled=true")
+public class CustomerFuzzyIndexTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerFuzzyIndex fuzzyIndex;
+
+    @Test
+    void fuzzySearch_ShouldMatchMisspelledAndSimilarSoundingNames() {
+        String email = "fuzzy." + UUID.randomUUID() + "@example.com";
+        CustomerDTO created = customerService.createCustomer(new CustomerDTO(null, "Katherine", "Müller", email));
+
+        assertThat(search("Katherine", "Mueller", 1, false)).contains(created.getId());
+        assertThat(search("Katharine", "Muller", 1, false)).contains(created.getId());
+        assertThat(search("Kathrin", null, 1, false)).doesNotContain(created.getId());
+        assertThat(search("Kathrin", null, 2, false)).contains(created.getId());
+        assertThat(search(null, "Miller", 0, true)).contains(created.getId());
+        assertThat(search(null, "Miller", 0, false)).doesNotContain(created.getId());
+
+        customerService.updateCustomer(created.getId(), new CustomerDTO(null, "Kate", "Müller", email));
+        assertThat(fuzzyIndex.search("Katherine", null, 0, false)).doesNotContain(created.getId());
+        assertThat(fuzzyIndex.search("Kate", null, 0, false)).contains(created.getId());
+
+        customerService.deleteCustomer(created.getId());
+        assertThat(fuzzyIndex.search("Kate", null, 0, false)).doesNotContain(created.getId());
+    }
+
+    @Test
+    void rebuild_ShouldIndexTheStoredCustomers() {
+        CustomerDTO created = customerService.createCustomer(
+                new CustomerDTO(null, "Bartholomew", "Quigley", "rebuild." + UUID.randomUUID() + "@example.com"));
+
+        fuzzyIndex.rebuild();
+        assertThat(fuzzyIndex.search("Bartolomew", "Quigly", 1, false)).contains(created.getId());
+
+        customerService.deleteCustomer(created.getId());
+        fuzzyIndex.rebuild();
+        assertThat(fuzzyIndex.search("Bartholomew", null, 0, false)).doesNotContain(created.getId());
+    }
+
+    @Test
+    void bkTree_ShouldFindTheSameNamesAsComparingAll() {
+        Random random = new Random(11);
+        BkTree tree = new BkTree();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                name.append((char) ('a' + random.nextInt(26)));
+            }
+            if (tree.add(name.toString())) {
+                names.add(name.toString());
+            }
+        }
+
+        for (int i = 0; i < 20; i++) {
+            String query = names.get(random.nextInt(names.size())).substring(1) + "e";
+            for (int maxDistance = 0; maxDistance <= SearchCriteria.MAX_EDIT_DISTANCE; maxDistance++) {
+                int distance = maxDistance;
+                Set<String> expected = names.stream()
+                        .filter(name -> BkTree.distance(name, query) <= distance)
+                        .collect(Collectors.toSet());
+                assertThat(new HashSet<>(tree.search(query, maxDistance))).isEqualTo(expected);
+            }
+        }
+        assertThat(CustomerFuzzyIndex.soundex("robert")).isEqualTo("R163").isEqualTo(CustomerFuzzyIndex.soundex("rupert"));
+        assertThat(CustomerFuzzyIndex.soundex("ashcraft")).isEqualTo("A261");
+    }
+
+    private List<UUID> search(String firstName, String lastName, int maxEditDistance, boolean phonetic) {
+        SearchCriteria criteria = new SearchCriteria(firstName, lastName, null);
+        criteria.setMaxEditDistance(maxEditDistance);
+        criteria.setPhonetic(phonetic);
+        return customerService.searchCustomers(criteria).stream().map(CustomerDTO::getId).toList();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "customers.invalidation.enabled=true",
+        "customers.invalidation.transport=jdbc",
+        "customers.invalidation.batch-interval=200ms",
+        "customers.invalidation.jdbc.poll-interval=20ms"
+})
+public class CustomerInvalidationBusTest {
+
+    @TestConfiguration
+    static class RecorderConfiguration {
+
+        @Bean
+        InvalidationRecorder invalidationRecorder() {
+            return new InvalidationRecorder();
+        }
+    }
+
+    static class InvalidationRecorder {
+        final List<CustomerInvalidatedEvent> events = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        public void onCustomerInvalidated(CustomerInvalidatedEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerInvalidationBus invalidationBus;
+
+    @Autowired
+    private InvalidationRecorder recorder;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void localChanges_ShouldBePublishedCoalescedButNotDeliveredLocally() throws InterruptedException {
+        CustomerDTO created = customerService.createCustomer(
+                new CustomerDTO(null, "Bus", "Local", "bus." + UUID.randomUUID() + "@example.com"));
+        customerService.updateCustomer(created.getId(),
+                new CustomerDTO(null, "Bus", "Updated", created.getEmail()));
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String pattern = "%" + created.getId() + "%";
+        assertThat(await(() -> count(jdbcTemplate, pattern) > 0)).isTrue();
+        // a second batch would have been published by now
+        Thread.sleep(300);
+
+        assertThat(count(jdbcTemplate, pattern)).isEqualTo(1);
+        assertThat(recorder.events).noneMatch(event -> event.getCustomerIds().contains(created.getId()));
+        customerService.deleteCustomer(created.getId());
+    }
+
+    @Test
+    void batchFromOtherNode_ShouldBeDeliveredWithPropagationDelay() {
+        UUID changed = UUID.randomUUID();
+        JdbcCustomerInvalidationTransport otherNode = new JdbcCustomerInvalidationTransport(dataSource,
+                Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(10));
+
+        otherNode.publish(new CustomerInvalidationBatch("other-node", System.currentTimeMillis(), false, Set.of(changed)));
+
+        assertThat(await(() -> recorder.events.stream().anyMatch(event -> event.getCustomerIds().contains(changed)))).isTrue();
+        assertThat(meterRegistry.get("customers.invalidation.propagation").timer().count()).isPositive();
+        assertThat(invalidationBus.getNode()).isNotEqualTo("other-node");
+    }
+
+    @Test
+    void multicastEncoding_ShouldSplitLargeBatchesAndRoundTrip() throws Exception {
+        Set<UUID> ids = IntStream.range(0, MulticastCustomerInvalidationTransport.IDS_PER_DATAGRAM + 1)
+                .mapToObj(i -> UUID.randomUUID())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        CustomerInvalidationBatch batch = new CustomerInvalidationBatch("node", 42, false, ids);
+
+        List<byte[]> datagrams = MulticastCustomerInvalidationTransport.encode(batch);
+
+        assertThat(datagrams).hasSize(2);
+        Set<UUID> decoded = new LinkedHashSet<>();
+        for (byte[] datagram : datagrams) {
+            CustomerInvalidationBatch part = MulticastCustomerInvalidationTransport.decode(datagram, 0, datagram.length);
+            assertThat(part.node()).isEqualTo("node");
+            assertThat(part.publishedAtMillis()).isEqualTo(42);
+            decoded.addAll(part.customerIds());
+        }
+        assertThat(decoded).containsExactlyElementsOf(ids);
+        assertThat(MulticastCustomerInvalidationTransport.decode(new byte[] {1, 2, 3, 4}, 0, 4)).isNull();
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate, String pattern) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM customer_invalidations WHERE customer_ids LIKE ?", Integer.class, pattern);
+        return count == null ? 0 : count;
+    }
+
+    private static boolean await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
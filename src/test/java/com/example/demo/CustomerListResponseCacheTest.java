@@ -0,0 +1,132 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every test searches by its own last name, so the tests do not share cache entries
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "customers.response-cache.enabled=true")
+@WithMockUser
+public class CustomerListResponseCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerListResponseCache responseCache;
+
+    @MockBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @Test
+    void repeatedSearch_ShouldReturnSameETagAndNotModified() throws Exception {
+        String lastName = createCustomers(2);
+
+        String etag = mockMvc.perform(get("/api/customers").param("lastName", lastName))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        mockMvc.perform(get("/api/customers").param("lastName", lastName.toUpperCase()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/api/customers").param("lastName", lastName).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void createCustomer_ShouldInvalidateCachedResponses() throws Exception {
+        String lastName = createCustomers(1);
+        String etag = mockMvc.perform(get("/api/customers").param("lastName", lastName))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long generation = responseCache.getGeneration();
+
+        mockMvc.perform(post("/api/customers")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Cache\",\"lastName\":\"" + lastName
+                                + "\",\"email\":\"" + lastName + ".new@example.com\"}"))
+                .andExpect(status().isCreated());
+
+        assertThat(responseCache.getGeneration()).isGreaterThan(generation);
+        mockMvc.perform(get("/api/customers").param("lastName", lastName).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void search_ShouldServeGzipToClientsThatAcceptIt() throws Exception {
+        String lastName = createCustomers(20);
+
+        MvcResult plain = mockMvc.perform(get("/api/customers").param("lastName", lastName))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andReturn();
+        MvcResult compressed = mockMvc.perform(get("/api/customers").param("lastName", lastName)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br;q=1.0, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andReturn();
+
+        assertThat(compressed.getResponse().getHeader(HttpHeaders.ETAG))
+                .isNotEqualTo(plain.getResponse().getHeader(HttpHeaders.ETAG));
+        assertThat(gunzip(compressed.getResponse().getContentAsByteArray()))
+                .isEqualTo(plain.getResponse().getContentAsString());
+    }
+
+    @Test
+    void pagedSearch_ShouldCachePagesSeparately() throws Exception {
+        String lastName = createCustomers(3);
+
+        mockMvc.perform(get("/api/customers").param("lastName", lastName).param("page", "0").param("size", "2"))
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/customers").param("lastName", lastName).param("page", "1").param("size", "2"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    private String createCustomers(int count) {
+        String lastName = "Cache" + UUID.randomUUID().toString().replace("-", "");
+        for (int i = 0; i < count; i++) {
+            customerService.createCustomer(new CustomerDTO(null, "Customer" + i, lastName, lastName + "." + i + "@example.com"));
+        }
+        return lastName;
+    }
+
+    private static String gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CustomerLogStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRecoversWritesAfterReopen() throws IOException {
+        Map<UUID, Customer> state = new ConcurrentHashMap<>();
+        CustomerLogStore store = open(state, 1000);
+        Customer john = customer("John", "john@example.com");
+        Customer jane = customer("Jane", "jane@example.com");
+        put(store, state, john);
+        put(store, state, jane);
+        john.setFirstName("Johnny");
+        put(store, state, john);
+        delete(store, state, jane.getId());
+        store.close();
+
+        Map<UUID, Customer> recovered = new ConcurrentHashMap<>();
+        open(recovered, 1000).close();
+
+        assertThat(recovered).containsOnlyKeys(john.getId());
+        assertThat(recovered.get(john.getId()).getFirstName()).isEqualTo("Johnny");
+        assertThat(recovered.get(john.getId()).getGithubUsername()).isNull();
+    }
+
+    @Test
+    public void testRecoversFromSnapshotAndLaterLog() throws IOException {
+        Map<UUID, Customer> state = new ConcurrentHashMap<>();
+        CustomerLogStore store = open(state, 1000);
+        Customer john = customer("John", "john@example.com");
+        john.setGithubUsername("johnny-gh");
+        put(store, state, john);
+        store.snapshot();
+        Customer jane = customer("Jäne", "jane@example.com");
+        put(store, state, jane);
+        store.close();
+
+        assertThat(files("log-")).containsExactly("log-1.dat");
+        assertThat(files("snapshot-")).containsExactly("snapshot-1.dat");
+
+        Map<UUID, Customer> recovered = new ConcurrentHashMap<>();
+        open(recovered, 1000).close();
+
+        assertThat(recovered).containsOnlyKeys(john.getId(), jane.getId());
+        assertThat(recovered.get(john.getId()).getGithubUsername()).isEqualTo("johnny-gh");
+        assertThat(recovered.get(jane.getId()).getFirstName()).isEqualTo("Jäne");
+    }
+
+    @Test
+    public void testSnapshotsAutomaticallyAfterConfiguredRecords() throws Exception {
+        Map<UUID, Customer> state = new ConcurrentHashMap<>();
+        CustomerLogStore store = open(state, 10);
+        for (int i = 0; i < 25; i++) {
+            put(store, state, customer("Customer" + i, "customer" + i + "@example.com"));
+        }
+        // waits for the background snapshot
+        store.close();
+
+        assertThat(files("snapshot-")).isNotEmpty();
+        Map<UUID, Customer> recovered = new ConcurrentHashMap<>();
+        open(recovered, 10).close();
+        assertThat(recovered).hasSize(25);
+    }
+
+    @Test
+    public void testDiscardsTornRecordAtEndOfLog() throws IOException {
+        Map<UUID, Customer> state = new ConcurrentHashMap<>();
+        CustomerLogStore store = open(state, 1000);
+        Customer john = customer("John", "john@example.com");
+        put(store, state, john);
+        store.close();
+
+        // a record header whose payload never made it to disk
+        Path log = directory.resolve("log-0.dat");
+        long end = CustomerLogStore.putRecord(john).length + 8;
+        try (SeekableByteChannel channel = Files.newByteChannel(log, StandardOpenOption.WRITE)) {
+            channel.position(end);
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5, 6}));
+        }
+
+        Map<UUID, Customer> recovered = new ConcurrentHashMap<>();
+        store = open(recovered, 1000);
+        assertThat(recovered).containsOnlyKeys(john.getId());
+        Customer jane = customer("Jane", "jane@example.com");
+        put(store, recovered, jane);
+        store.close();
+
+        Map<UUID, Customer> reopened = new ConcurrentHashMap<>();
+        open(reopened, 1000).close();
+        assertThat(reopened).containsOnlyKeys(john.getId(), jane.getId());
+    }
+
+    @Test
+    public void testConcurrentWritersAreAllDurable() throws Exception {
+        Map<UUID, Customer> state = new ConcurrentHashMap<>();
+        CustomerLogStore store = open(state, 100_000);
+        List<Future<?>> writers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1000;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 250; i++) {
+                        put(store, state, customer("Customer" + (offset + i), (offset + i) + "@example.com"));
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        }
+        store.close();
+
+        Map<UUID, Customer> recovered = new ConcurrentHashMap<>();
+        open(recovered, 100_000).close();
+        assertThat(recovered).hasSize(2000);
+    }
+
+    private CustomerLogStore open(Map<UUID, Customer> state, long snapshotEvery) throws IOException {
+        // a small region so the tests also cover remapping
+        CustomerLogStore store = new CustomerLogStore(directory, 4096, snapshotEvery, true);
+        store.open(new CustomerLogStore.Replay() {
+            @Override
+            public void put(Customer customer) {
+                state.put(customer.getId(), customer);
+            }
+
+            @Override
+            public void delete(UUID id) {
+                state.remove(id);
+            }
+
+            @Override
+            public void clear() {
+                state.clear();
+            }
+        }, () -> new ArrayList<>(state.values()));
+        return store;
+    }
+
+    private static void put(CustomerLogStore store, Map<UUID, Customer> state, Customer customer) {
+        Customer copy = CustomerChangeEvent.copyOf(customer);
+        store.write(() -> CustomerLogStore.putRecord(copy), () -> state.put(copy.getId(), copy));
+    }
+
+    private static void delete(CustomerLogStore store, Map<UUID, Customer> state, UUID id) {
+        store.write(() -> CustomerLogStore.deleteRecord(id), () -> state.remove(id));
+    }
+
+    private static Customer customer(String firstName, String email) {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName(firstName);
+        customer.setLastName("Doe");
+        customer.setEmail(email);
+        return customer;
+    }
+
+    private List<String> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(".dat"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "customers.membership-filter.enabled=true",
+        "customers.membership-filter.min-expected-insertions=1000"
+})
+public class CustomerMembershipFilterTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerMembershipFilter membershipFilter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void createdCustomers_ShouldBeFoundAndUnknownIdsAnsweredInMemory() {
+        String githubUsername = "filter-" + UUID.randomUUID();
+        CustomerDTO created = customerService.findOrCreateCustomerForGithubUser(githubUsername,
+                new CustomerDTO(null, "Filter", "Created", githubUsername + "@example.com"));
+
+        assertThat(membershipFilter.mightContainId(created.getId())).isTrue();
+        assertThat(membershipFilter.mightContainGithubUsername(githubUsername)).isTrue();
+        assertThat(customerService.findCustomerById(created.getId())).isPresent();
+        assertThat(customerService.findCustomerByGithubUsername(githubUsername)).isPresent();
+
+        double negatives = meterRegistry.get("customers.membership-filter.negatives").tag("filter", "id").counter().count();
+        for (int i = 0; i < 100; i++) {
+            assertThat(customerService.findCustomerById(UUID.randomUUID())).isEmpty();
+        }
+        assertThat(meterRegistry.get("customers.membership-filter.negatives").tag("filter", "id").counter().count())
+                .isGreaterThan(negatives + 80);
+
+        customerService.deleteCustomer(created.getId());
+    }
+
+    @Test
+    void rebuild_ShouldKeepExistingCustomers() {
+        CustomerDTO created = customerService.createCustomer(
+                new CustomerDTO(null, "Filter", "Rebuilt", "filter." + UUID.randomUUID() + "@example.com"));
+
+        membershipFilter.rebuild();
+
+        assertThat(membershipFilter.mightContainId(created.getId())).isTrue();
+        assertThat(meterRegistry.get("customers.membership-filter.size").tag("filter", "id").gauge().value()).isPositive();
+        customerService.deleteCustomer(created.getId());
+    }
+
+    @Test
+    void bloomFilter_ShouldHaveNoFalseNegativesAndAboutTheConfiguredFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add(BloomFilter.hash("user-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain(BloomFilter.hash("user-" + i))).isTrue();
+            if (filter.mightContain(BloomFilter.hash("other-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(200);
+        assertThat(filter.getFalsePositiveRate()).isBetween(0.005, 0.02);
+    }
+}
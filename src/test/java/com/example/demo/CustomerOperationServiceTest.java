@@ -0,0 +1,83 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CustomerOperationServiceTest {
+
+    private static final Authentication USER = new TestingAuthenticationToken("user", null, "ROLE_USER");
+    private static final Authentication ADMIN = new TestingAuthenticationToken("admin", null, "ROLE_ADMIN");
+
+    @Autowired
+    private CustomerOperationService operationService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Test
+    void executeOperations_ShouldApplyOperationsInOrder() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        CustomerDTO existing = customerService.createCustomer(new CustomerDTO(null, "Ada", "Lovelace", "ada." + tag + "@example.com"));
+
+        List<CustomerOperationResultDTO> results = operationService.executeOperations(List.of(
+                operation(CustomerOperationDTO.Type.PATCH, existing.getId(), null, "King", null),
+                // the email is released by the delete before the create takes it
+                operation(CustomerOperationDTO.Type.DELETE, existing.getId(), null, null, null),
+                operation(CustomerOperationDTO.Type.CREATE, null, "Ada", "King", "ada." + tag + "@example.com")), 10, ADMIN);
+
+        assertThat(results).extracting(CustomerOperationResultDTO::getStatus).containsExactly(200, 204, 201);
+        assertThat(results.get(0).getCustomer().getLastName()).isEqualTo("King");
+        assertThat(results.get(0).getCustomer().getEmail()).isEqualTo("ada." + tag + "@example.com");
+        UUID created = results.get(2).getCustomer().getId();
+        assertThat(customerService.findCustomerById(existing.getId())).isEmpty();
+        assertThat(customerService.findCustomerByEmail("ada." + tag + "@example.com"))
+                .get().extracting(CustomerDTO::getId).isEqualTo(created);
+    }
+
+    @Test
+    void executeOperations_WhenOneFails_ShouldRollBackItsChunkOnly() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        CustomerDTO existing = customerService.createCustomer(new CustomerDTO(null, "Alan", "Turing", "alan." + tag + "@example.com"));
+
+        List<CustomerOperationResultDTO> results = operationService.executeOperations(List.of(
+                operation(CustomerOperationDTO.Type.CREATE, null, "Grace", "Hopper", "grace." + tag + "@example.com"),
+                operation(CustomerOperationDTO.Type.CREATE, null, "Alan", "Turing", "Alan." + tag + "@Example.com"),
+                operation(CustomerOperationDTO.Type.UPDATE, existing.getId(), "Alan", "Turing", "turing." + tag + "@example.com"),
+                operation(CustomerOperationDTO.Type.UPDATE, UUID.randomUUID(), "Nobody", "Here", "nobody." + tag + "@example.com")), 2, USER);
+
+        assertThat(results).extracting(CustomerOperationResultDTO::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(CustomerOperationResultDTO::getStatus).containsExactly(424, 409, 424, 404);
+        assertThat(customerService.findCustomerByEmail("grace." + tag + "@example.com")).isEmpty();
+        assertThat(customerService.findCustomerById(existing.getId()))
+                .get().extracting(CustomerDTO::getEmail).isEqualTo("alan." + tag + "@example.com");
+    }
+
+    @Test
+    void executeOperations_ShouldRequireAdminRoleForDeletes() {
+        CustomerDTO existing = customerService.createCustomer(
+                new CustomerDTO(null, "Edsger", "Dijkstra", "edsger." + UUID.randomUUID() + "@example.com"));
+
+        List<CustomerOperationResultDTO> results = operationService.executeOperations(List.of(
+                operation(CustomerOperationDTO.Type.PATCH, existing.getId(), "Edsger W.", null, null),
+                operation(CustomerOperationDTO.Type.DELETE, existing.getId(), null, null, null),
+                operation(CustomerOperationDTO.Type.CREATE, null, "", "Invalid", "not-an-email")), 3, USER);
+
+        assertThat(results).extracting(CustomerOperationResultDTO::getStatus).containsExactly(424, 403, 424);
+        assertThat(customerService.findCustomerById(existing.getId()))
+                .get().extracting(CustomerDTO::getFirstName).isEqualTo("Edsger");
+    }
+
+    private static CustomerOperationDTO operation(CustomerOperationDTO.Type type, UUID id, String firstName,
+                                                  String lastName, String email) {
+        return new CustomerOperationDTO(type, id, firstName, lastName, email);
+    }
+}
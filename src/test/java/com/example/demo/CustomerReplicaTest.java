@@ -0,0 +1,80 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("replica")
+@TestPropertySource(properties = {
+        "customers.replica.url=jdbc:h2:mem:replica-test;DB_CLOSE_DELAY=-1",
+        "customers.replica.lag=2s"
+})
+public class CustomerReplicaTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ReplicaConsistency replicaConsistency;
+
+    @AfterEach
+    public void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testWriterReadsOwnWriteBeforeReplicaCatchesUp() throws InterruptedException {
+        authenticate("alice");
+        CustomerDTO created = customerService.createCustomer(
+                new CustomerDTO(null, "Alice", "Replica", "alice." + UUID.randomUUID() + "@example.com"));
+        long sequence = replicaConsistency.getLastSequence();
+
+        assertThat(customerService.findCustomerById(created.getId())).isPresent();
+
+        authenticate("bob");
+        assertThat(customerService.findCustomerById(created.getId())).isEmpty();
+
+        assertThat(replicaConsistency.awaitApplied(sequence, Duration.ofSeconds(10))).isTrue();
+        assertThat(customerService.findCustomerById(created.getId())).isPresent();
+        authenticate("alice");
+        assertThat(customerService.findCustomerById(created.getId())).isPresent();
+
+        customerService.deleteCustomer(created.getId());
+    }
+
+    @Test
+    public void testAppliedSequenceOnlyAdvancesOverContiguousWrites() {
+        ReplicaConsistency consistency = new ReplicaConsistency();
+        authenticate("alice");
+        long first = consistency.recordWrite();
+        authenticate("bob");
+        long second = consistency.recordWrite();
+
+        consistency.applied(second);
+        assertThat(consistency.getAppliedSequence()).isZero();
+        assertThat(consistency.mustReadPrimary()).isTrue();
+        authenticate("alice");
+        assertThat(consistency.mustReadPrimary()).isTrue();
+
+        consistency.applied(first);
+        assertThat(consistency.getAppliedSequence()).isEqualTo(second);
+        assertThat(consistency.mustReadPrimary()).isFalse();
+        authenticate("bob");
+        assertThat(consistency.mustReadPrimary()).isFalse();
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(username, null));
+    }
+}
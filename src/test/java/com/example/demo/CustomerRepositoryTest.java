@@ -4,12 +4,19 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ExampleMatcher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
 import java.util.Optional;
 import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 public class CustomerRepositoryTest {
@@ -54,4 +61,101 @@ public class CustomerRepositoryTest {
         List<Customer> customers = customerRepository.findAll();
         assertThat(customers).hasSize(2);
     }
+
+    @Test
+    public void testFindByEmailNormalizedIgnoresCase() {
+        Customer customer = new Customer();
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmail("John.EmailTest@Example.com");
+        customer = customerRepository.save(customer);
+
+        assertThat(customerRepository.findByEmailNormalized(Customer.normalizeEmail(" john.emailtest@EXAMPLE.com ")))
+                .get().extracting(Customer::getId).isEqualTo(customer.getId());
+        assertThat(customerRepository.findByEmailNormalized("jane.emailtest@example.com")).isEmpty();
+
+        Customer sameEmail = new Customer();
+        sameEmail.setFirstName("Johnny");
+        sameEmail.setLastName("Doe");
+        sameEmail.setEmail("john.emailtest@example.com");
+        assertThatThrownBy(() -> customerRepository.save(sameEmail))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    public void testFindByEmailNormalizedStartingWith() {
+        for (String email : List.of("anna@example.com", "anna.b@example.com", "annabel@example.com", "bob@example.com")) {
+            Customer customer = new Customer();
+            customer.setFirstName("Test");
+            customer.setLastName("Prefix");
+            customer.setEmail(email);
+            customerRepository.save(customer);
+        }
+
+        assertThat(customerRepository.findByEmailNormalizedStartingWith("anna"))
+                .extracting(Customer::getEmail)
+                .containsExactlyInAnyOrder("anna@example.com", "anna.b@example.com", "annabel@example.com");
+        assertThat(customerRepository.findByEmailNormalizedStartingWith("anna_")).isEmpty();
+    }
+
+    @Test
+    public void testFindByEmailNormalizedIn() {
+        for (String email : List.of("carl@example.com", "Dora@Example.com", "emil@example.com")) {
+            Customer customer = new Customer();
+            customer.setFirstName("Test");
+            customer.setLastName("In");
+            customer.setEmail(email);
+            customerRepository.save(customer);
+        }
+
+        assertThat(customerRepository.findByEmailNormalizedIn(List.of("carl@example.com", "dora@example.com", "fred@example.com")))
+                .extracting(Customer::getEmail)
+                .containsExactlyInAnyOrder("carl@example.com", "Dora@Example.com");
+        assertThat(customerRepository.findByEmailNormalizedIn(List.of())).isEmpty();
+    }
+
+    @Test
+    public void testQueryByExample() {
+        for (String[] names : List.of(new String[] {"Ada", "Lovelace"}, new String[] {"Alan", "Turing"},
+                new String[] {"Grace", "Hopper"})) {
+            Customer customer = new Customer();
+            customer.setFirstName(names[0]);
+            customer.setLastName(names[1]);
+            customer.setEmail(names[0].toLowerCase() + ".example@Example.com");
+            customerRepository.save(customer);
+        }
+
+        Customer byLastName = new Customer();
+        byLastName.setLastName("turing");
+        ExampleMatcher ignoringCase = ExampleMatcher.matching().withIgnoreCase();
+        assertThat(customerRepository.findOne(Example.of(byLastName, ignoringCase)))
+                .map(Customer::getFirstName).hasValue("Alan");
+        assertThat(customerRepository.findOne(Example.of(byLastName))).isEmpty();
+
+        Customer byFirstName = new Customer();
+        byFirstName.setFirstName("A");
+        Example<Customer> startingWithA = Example.of(byFirstName,
+                ExampleMatcher.matching().withStringMatcher(ExampleMatcher.StringMatcher.STARTING));
+        assertThat(customerRepository.findAll(startingWithA, Sort.by(Sort.Direction.DESC, "firstName")))
+                .extracting(Customer::getFirstName).containsExactly("Alan", "Ada");
+        assertThat(customerRepository.findAll(startingWithA, PageRequest.of(1, 1, Sort.by("firstName"))).getContent())
+                .extracting(Customer::getFirstName).containsExactly("Alan");
+        assertThat(customerRepository.count(startingWithA)).isEqualTo(2);
+        assertThatThrownBy(() -> customerRepository.findOne(startingWithA))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+
+        Customer anyName = new Customer();
+        anyName.setFirstName("Grace");
+        anyName.setLastName("Lovelace");
+        assertThat(customerRepository.findAll(Example.of(anyName, ExampleMatcher.matchingAny())))
+                .extracting(Customer::getFirstName).containsExactlyInAnyOrder("Ada", "Grace");
+        assertThat(customerRepository.exists(Example.of(anyName))).isFalse();
+
+        Customer byEmail = new Customer();
+        byEmail.setEmail("grace.example@example.com");
+        assertThat(customerRepository.findBy(Example.of(byEmail, ExampleMatcher.matching().withIgnorePaths("email")),
+                query -> query.oneValue())).extracting(Customer::getLastName).isEqualTo("Hopper");
+        assertThat(customerRepository.findBy(startingWithA, query -> query.sortBy(Sort.by("lastName")).limit(1).all()))
+                .extracting(Customer::getLastName).containsExactly("Lovelace");
+    }
 }
@@ -53,6 +53,14 @@ public class CustomerSecurityIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void userRoleCannotStartAdminJobs() throws Exception {
+        mockMvc.perform(post("/api/admin/customers/duplicates")
+                .with(SecurityMockMvcRequestPostProcessors.csrf()))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void adminRoleCanDeleteCustomers() throws Exception {
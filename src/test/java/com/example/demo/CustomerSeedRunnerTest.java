@@ -0,0 +1,61 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CustomerSeedRunnerTest {
+
+    private final DataSource dataSource = CustomerBulkLoaderTest.migratedDataSource();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final GenericApplicationContext context = new GenericApplicationContext();
+    private final List<Integer> exitStatuses = new ArrayList<>();
+
+    @Test
+    void run_ShouldSeedAnEmptyTableOnlyAndKeepRunning() {
+        CustomerSeedRunner runner = runner(false);
+
+        runner.run(null);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class)).isEqualTo(300);
+        Customer last = new SyntheticCustomers(7).customer(299);
+        assertThat(jdbcTemplate.queryForObject("SELECT email FROM customers WHERE id = ?", String.class, last.getId()))
+                .isEqualTo(last.getEmail());
+
+        runner.run(null);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class)).isEqualTo(300);
+        assertThat(exitStatuses).isEmpty();
+        assertThat(context.isActive()).isTrue();
+    }
+
+    @Test
+    void run_WithExit_ShouldCloseTheContextAndExit() {
+        runner(true).run(null);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM customers", Long.class)).isEqualTo(300);
+        assertThat(context.isActive()).isFalse();
+        assertThat(exitStatuses).containsExactly(0);
+    }
+
+    private CustomerSeedRunner runner(boolean exit) {
+        context.refresh();
+        CustomerSeedRunner runner = new CustomerSeedRunner(dataSource, jdbcTemplate, context) {
+            @Override
+            void exit(int status) {
+                exitStatuses.add(status);
+            }
+        };
+        ReflectionTestUtils.setField(runner, "count", 300L);
+        ReflectionTestUtils.setField(runner, "randomSeed", 7L);
+        ReflectionTestUtils.setField(runner, "threads", 2);
+        ReflectionTestUtils.setField(runner, "batchSize", 100);
+        ReflectionTestUtils.setField(runner, "exit", exit);
+        return runner;
+    }
+}
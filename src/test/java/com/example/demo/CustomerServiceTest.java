@@ -6,6 +6,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Arrays;
 import java.util.List;
@@ -23,6 +26,24 @@ public class CustomerServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ObjectProvider<CustomerColumnStore> columnStore;
+
+    @Mock
+    private ObjectProvider<CustomerMembershipFilter> membershipFilter;
+
+    @Mock
+    private ObjectProvider<CustomerSuggestIndex> suggestIndex;
+
+    @Mock
+    private ObjectProvider<CustomerFuzzyIndex> fuzzyIndex;
+
+    @Mock
+    private ObjectProvider<CustomerStats> stats;
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -126,32 +147,59 @@ public class CustomerServiceTest {
         verify(customerRepository, never()).save(any(Customer.class));
     }
 
+    @Test
+    void tryUpdateCustomer_WhenNotExists_ShouldReturnNotFound() {
+        UUID nonExistentId = UUID.randomUUID();
+        when(customerRepository.findById(nonExistentId)).thenReturn(Optional.empty());
+
+        CustomerResult<CustomerDTO> result = customerService.tryUpdateCustomer(nonExistentId,
+                new CustomerDTO("Jane", "Doe", "jane.doe@example.com"));
+
+        assertThat(result).isInstanceOf(CustomerResult.NotFound.class);
+        verify(customerRepository, never()).save(any(Customer.class));
+    }
+
+    @Test
+    void tryCreateCustomer_WhenEmailIsInUse_ShouldReturnConflict() {
+        when(customerRepository.save(any(Customer.class))).thenReturn(testCustomer);
+        doThrow(new DataIntegrityViolationException("Unique index violation")).when(customerRepository).flush();
+
+        CustomerResult<CustomerDTO> result = customerService.tryCreateCustomer(
+                new CustomerDTO("John", "Doe", "john.doe@example.com"));
+
+        assertThat(result).isInstanceOf(CustomerResult.Conflict.class);
+        verify(eventPublisher, never()).publishEvent(any(CustomerChangeEvent.class));
+        assertThrows(CustomerConflictException.class,
+                () -> customerService.createCustomer(new CustomerDTO("John", "Doe", "john.doe@example.com")));
+    }
+
     @Test
     void deleteCustomer_WhenExists_ShouldDeleteCustomer() {
         // Arrange
-        when(customerRepository.existsById(testId)).thenReturn(true);
-        doNothing().when(customerRepository).deleteById(testId);
+        when(customerRepository.findById(testId)).thenReturn(Optional.of(testCustomer));
+        doNothing().when(customerRepository).delete(testCustomer);
 
         // Act
         customerService.deleteCustomer(testId);
 
         // Assert
-        verify(customerRepository, times(1)).existsById(testId);
-        verify(customerRepository, times(1)).deleteById(testId);
+        verify(customerRepository, times(1)).findById(testId);
+        verify(customerRepository, times(1)).delete(testCustomer);
+        verify(eventPublisher, times(1)).publishEvent(any(CustomerChangeEvent.class));
     }
 
     @Test
     void deleteCustomer_WhenNotExists_ShouldThrowException() {
         // Arrange
         UUID nonExistentId = UUID.randomUUID();
-        when(customerRepository.existsById(nonExistentId)).thenReturn(false);
+        when(customerRepository.findById(nonExistentId)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(CustomerNotFoundException.class, () -> {
             customerService.deleteCustomer(nonExistentId);
         });
-        verify(customerRepository, times(1)).existsById(nonExistentId);
-        verify(customerRepository, never()).deleteById(any(UUID.class));
+        verify(customerRepository, times(1)).findById(nonExistentId);
+        verify(customerRepository, never()).delete(any(Customer.class));
     }
 
     @Test
@@ -227,4 +275,48 @@ public class CustomerServiceTest {
         assertThat(results.get(0).getLastName()).isEqualTo("Doe");
         verify(customerRepository, times(1)).findAll();
     }
+
+    @Test
+    void searchCustomers_WithEmailPrefix_ShouldUseIndexRangeScan() {
+        // Arrange
+        Customer customer2 = new Customer();
+        customer2.setId(UUID.randomUUID());
+        customer2.setFirstName("Johanna");
+        customer2.setLastName("Smith");
+        customer2.setEmail("john.smith@example.com");
+        when(customerRepository.findByEmailNormalizedStartingWith("john.")).thenReturn(Arrays.asList(testCustomer, customer2));
+
+        SearchCriteria criteria = new SearchCriteria(null, "doe", "John.*");
+
+        // Act
+        List<CustomerDTO> results = customerService.searchCustomers(criteria);
+
+        // Assert
+        assertThat(results).extracting(CustomerDTO::getId).containsExactly(testId);
+        verify(customerRepository, never()).findAll();
+    }
+
+    @Test
+    void searchCustomers_WithMaxEditDistance_ShouldMatchMisspelledNames() {
+        // Arrange
+        Customer customer2 = new Customer();
+        customer2.setId(UUID.randomUUID());
+        customer2.setFirstName("Mary");
+        customer2.setLastName("Doe");
+        customer2.setEmail("mary.doe@example.com");
+        when(customerRepository.findAll()).thenReturn(Arrays.asList(testCustomer, customer2));
+
+        SearchCriteria criteria = new SearchCriteria("Jon", "Do", null);
+        criteria.setMaxEditDistance(1);
+        SearchCriteria phonetic = new SearchCriteria("Jhon", null, null);
+        phonetic.setPhonetic(true);
+
+        // Act
+        List<CustomerDTO> results = customerService.searchCustomers(criteria);
+        List<CustomerDTO> phoneticResults = customerService.searchCustomers(phonetic);
+
+        // Assert
+        assertThat(results).extracting(CustomerDTO::getId).containsExactly(testId);
+        assertThat(phoneticResults).extracting(CustomerDTO::getId).containsExactly(testId);
+    }
 }
@@ -0,0 +1,166 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CustomerStaleReadCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CustomerStaleReadCache cache = new CustomerStaleReadCache(meterRegistry,
+            Duration.ofMillis(50), Duration.ofSeconds(30), Duration.ofSeconds(30), 100);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        cache.destroy();
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void read_ShouldReturnFreshValueWithoutHeaders() {
+        CustomerStaleReadCache.Result<String> result = cache.read(CustomerStaleReadCache.Endpoint.BY_ID, "key", () -> "fresh");
+
+        assertThat(result.value()).isEqualTo("fresh");
+        assertThat(result.isStale()).isFalse();
+        assertThat(result.headers().isEmpty()).isTrue();
+    }
+
+    @Test
+    void read_WhenLoadIsSlow_ShouldServeStaleValueAndShareOneRefresh() throws InterruptedException {
+        cache.read(CustomerStaleReadCache.Endpoint.SEARCH, "key", () -> "old");
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            CustomerStaleReadCache.Result<String> result = cache.read(CustomerStaleReadCache.Endpoint.SEARCH, "key",
+                    () -> {
+                        loads.incrementAndGet();
+                        awaitRelease();
+                        return "new";
+                    });
+            assertThat(result.value()).isEqualTo("old");
+            assertThat(result.headers().getFirst("Warning")).startsWith("110");
+            assertThat(result.headers().getFirst("Age")).isNotNull();
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.counter("customers.stale-reads", "endpoint", "search", "reason", "timeout").count())
+                .isEqualTo(3);
+
+        release.countDown();
+        Thread.sleep(100);
+        assertThat(cache.read(CustomerStaleReadCache.Endpoint.SEARCH, "key", () -> "newer").value()).isEqualTo("newer");
+    }
+
+    @Test
+    void read_WhenLoadFails_ShouldServeStaleValueOrRethrow() {
+        cache.read(CustomerStaleReadCache.Endpoint.BY_ID, "cached", () -> "old");
+
+        CustomerStaleReadCache.Result<String> result = cache.read(CustomerStaleReadCache.Endpoint.BY_ID, "cached", () -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        });
+        assertThat(result.value()).isEqualTo("old");
+        assertThat(result.warning()).startsWith("111");
+
+        assertThatThrownBy(() -> cache.read(CustomerStaleReadCache.Endpoint.BY_ID, "uncached", () -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void read_AfterStalenessBound_ShouldWaitForLoad() {
+        CustomerStaleReadCache shortLived = new CustomerStaleReadCache(meterRegistry,
+                Duration.ofMillis(10), Duration.ZERO, Duration.ZERO, 100);
+        try {
+            shortLived.read(CustomerStaleReadCache.Endpoint.BY_ID, "key", () -> "old");
+
+            CustomerStaleReadCache.Result<String> result = shortLived.read(CustomerStaleReadCache.Endpoint.BY_ID, "key", () -> {
+                sleep(100);
+                return "new";
+            });
+            assertThat(result.value()).isEqualTo("new");
+            assertThat(result.isStale()).isFalse();
+        } finally {
+            shortLived.destroy();
+        }
+    }
+
+    @Test
+    void read_WithoutUsableValue_ShouldWaitForLoadOnlyUntilDeadline() {
+        RequestDeadline deadline = new RequestDeadline("searchCustomers", Duration.ofMillis(100));
+        RequestDeadline.set(deadline);
+        AtomicReference<RequestDeadline> loadDeadline = new AtomicReference<>();
+
+        assertThatThrownBy(() -> cache.read(CustomerStaleReadCache.Endpoint.SEARCH, "uncached", () -> {
+            loadDeadline.set(RequestDeadline.current());
+            awaitRelease();
+            return "late";
+        })).isInstanceOf(RequestDeadlineExceededException.class);
+        assertThat(deadline.isExceeded()).isTrue();
+        assertThat(loadDeadline).hasValue(deadline);
+    }
+
+    @Test
+    void onCustomerChange_ShouldEvictChangedCustomer() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        cache.read(CustomerStaleReadCache.Endpoint.BY_ID, customer.getId(), () -> "old");
+
+        cache.onCustomerChange(CustomerChangeEvent.deleted(customer));
+
+        assertThatThrownBy(() -> cache.read(CustomerStaleReadCache.Endpoint.BY_ID, customer.getId(), () -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void onCustomerChange_DuringLoad_ShouldNotKeepLoadedValue() throws InterruptedException {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        CountDownLatch loaded = new CountDownLatch(1);
+        assertThatThrownBy(() -> {
+            RequestDeadline.set(new RequestDeadline("findCustomerById", Duration.ofMillis(50)));
+            cache.read(CustomerStaleReadCache.Endpoint.BY_ID, customer.getId(), () -> {
+                awaitRelease();
+                loaded.countDown();
+                return "before change";
+            });
+        }).isInstanceOf(RequestDeadlineExceededException.class);
+        RequestDeadline.clear();
+
+        cache.onCustomerChange(CustomerChangeEvent.deleted(customer));
+        release.countDown();
+        loaded.await();
+        Thread.sleep(50);
+
+        assertThatThrownBy(() -> cache.read(CustomerStaleReadCache.Endpoint.BY_ID, customer.getId(), () -> {
+            throw new DataAccessResourceFailureException("database unavailable");
+        })).isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = "customers.stats.enabled=true")
+public class CustomerStatsTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerStats stats;
+
+    @Test
+    void stats_ShouldFollowChangesAndMatchCountingAllCustomers() {
+        String domain = "stats-" + UUID.randomUUID().toString().substring(0, 8) + ".example.com";
+        CustomerStats.Summary before = stats.getSummary(0);
+
+        CustomerDTO first = customerService.createCustomer(new CustomerDTO(null, "Ada", "Lovelace", "ada@" + domain));
+        CustomerDTO second = customerService.createCustomer(new CustomerDTO(null, "Alan", "Turing", "alan@" + domain));
+        customerService.findOrCreateCustomerForGithubUser("octo-" + domain, new CustomerDTO(null, "Octo", "Cat", "Octo@" + domain.toUpperCase()));
+        assertThat(stats.getSummary(0).customers()).isEqualTo(before.customers() + 3);
+        assertThat(stats.getSummary(0).withGithubUsername()).isEqualTo(before.withGithubUsername() + 1);
+        assertThat(stats.getSummary(Integer.MAX_VALUE).topDomains())
+                .contains(new CustomerStats.DomainCount(domain, 3));
+
+        customerService.updateCustomer(second.getId(), new CustomerDTO(null, "Alan", "Turing", "alan@elsewhere." + domain));
+        customerService.deleteCustomer(first.getId());
+        CustomerStats.Summary after = stats.getSummary(Integer.MAX_VALUE);
+        assertThat(after.customers()).isEqualTo(before.customers() + 2);
+        assertThat(after.topDomains())
+                .contains(new CustomerStats.DomainCount(domain, 1), new CustomerStats.DomainCount("elsewhere." + domain, 1));
+        assertThat(after).usingRecursiveComparison().ignoringFields("reconciledAt")
+                .isEqualTo(CustomerStats.count(customerRepository.findAll(), Integer.MAX_VALUE));
+    }
+
+    @Test
+    void reconcile_ShouldCorrectChangesMadeOutsideTheService() {
+        String domain = "drift-" + UUID.randomUUID().toString().substring(0, 8) + ".example.com";
+        Customer customer = new Customer();
+        customer.setFirstName("Grace");
+        customer.setLastName("Hopper");
+        customer.setEmail("grace@" + domain);
+        customerRepository.save(customer);
+        assertThat(stats.getSummary(Integer.MAX_VALUE).topDomains()).extracting(CustomerStats.DomainCount::domain)
+                .doesNotContain(domain);
+
+        stats.reconcile();
+
+        CustomerStats.Summary reconciled = stats.getSummary(Integer.MAX_VALUE);
+        assertThat(reconciled.topDomains()).contains(new CustomerStats.DomainCount(domain, 1));
+        assertThat(reconciled).usingRecursiveComparison().ignoringFields("reconciledAt")
+                .isEqualTo(CustomerStats.count(customerRepository.findAll(), Integer.MAX_VALUE));
+    }
+}
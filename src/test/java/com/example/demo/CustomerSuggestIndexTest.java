@@ -0,0 +1,92 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = "customers.suggest.enabled=true")
+public class CustomerSuggestIndexTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerSuggestIndex suggestIndex;
+
+    @Test
+    void suggest_ShouldMatchNamesAndEmailsIgnoringCaseAndAccents() {
+        String tag = "sg" + UUID.randomUUID().toString().substring(0, 8);
+        CustomerDTO jose = customerService.createCustomer(
+                new CustomerDTO(null, "José", "Álvarez" + tag, tag + ".jose@example.com"));
+        CustomerDTO joan = customerService.createCustomer(
+                new CustomerDTO(null, "Joan", "Baker" + tag, tag + ".joan@example.com"));
+
+        assertThat(suggestIndex.suggest("alvarez" + tag, 10)).extracting(CustomerSuggestIndex.Suggestion::id)
+                .containsExactly(jose.getId());
+        assertThat(suggestIndex.suggest(tag.toUpperCase() + ".JO", 10)).extracting(CustomerSuggestIndex.Suggestion::id)
+                .containsExactly(joan.getId(), jose.getId());
+        assertThat(suggestIndex.suggest(tag + ".jo", 1)).hasSize(1);
+
+        customerService.updateCustomer(jose.getId(), new CustomerDTO(null, "José", "Castro" + tag, jose.getEmail()));
+        assertThat(suggestIndex.suggest("alvarez" + tag, 10)).isEmpty();
+        assertThat(suggestIndex.suggest("castro" + tag, 10)).extracting(CustomerSuggestIndex.Suggestion::displayName)
+                .containsExactly("José Castro" + tag + " <" + jose.getEmail() + ">");
+
+        customerService.deleteCustomer(joan.getId());
+        suggestIndex.compact();
+        assertThat(suggestIndex.suggest(tag + ".jo", 10)).extracting(CustomerSuggestIndex.Suggestion::id)
+                .containsExactly(jose.getId());
+        assertThat(customerService.suggestCustomers("castro" + tag, 10)).hasSize(1);
+
+        customerService.deleteCustomer(jose.getId());
+    }
+
+    @Test
+    void rebuild_ShouldIndexTheStoredCustomers() {
+        String tag = "sg" + UUID.randomUUID().toString().substring(0, 8);
+        CustomerDTO created = customerService.createCustomer(
+                new CustomerDTO(null, "Ingrid", "Rebuild" + tag, tag + ".ingrid@example.com"));
+
+        suggestIndex.rebuild();
+        assertThat(suggestIndex.suggest("rebuild" + tag, 10)).extracting(CustomerSuggestIndex.Suggestion::id)
+                .containsExactly(created.getId());
+
+        customerService.deleteCustomer(created.getId());
+        suggestIndex.rebuild();
+        assertThat(suggestIndex.suggest("rebuild" + tag, 10)).isEmpty();
+    }
+
+    @Test
+    void sortedTermArray_ShouldFindEveryTermWithAPrefixInOrder() {
+        Random random = new Random(7);
+        String[] syllables = {"an", "na", "jo", "hn", "ma", "ri", "a", "b"};
+        List<SortedTermArray.Term> terms = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 1 + random.nextInt(4);
+            for (int j = 0; j < length; j++) {
+                term.append(syllables[random.nextInt(syllables.length)]);
+            }
+            terms.add(new SortedTermArray.Term(term.toString(), UUID.randomUUID()));
+        }
+        SortedTermArray array = SortedTermArray.of(terms);
+
+        for (String prefix : List.of("", "a", "an", "jo", "annab", "zz")) {
+            List<String> found = new ArrayList<>();
+            for (SortedTermArray.Cursor cursor = array.seek(prefix); cursor.isValid() && cursor.startsWith(prefix); cursor.advance()) {
+                found.add(cursor.term());
+            }
+            assertThat(found).isSorted()
+                    .hasSize((int) terms.stream().filter(term -> term.term().startsWith(prefix)).count());
+        }
+    }
+}
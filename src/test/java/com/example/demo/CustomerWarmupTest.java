@@ -0,0 +1,39 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+        "customers.warmup.enabled=true",
+        "customers.warmup.min-iterations=250",
+        "customers.warmup.max-iterations=500"
+})
+public class CustomerWarmupTest {
+
+    @Autowired
+    private CustomerWarmup customerWarmup;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ApplicationAvailability applicationAvailability;
+
+    @Test
+    public void testWarmupRunsBeforeReadinessWithoutPersisting() {
+        CustomerWarmup.Report report = customerWarmup.getReport();
+
+        assertThat(report).isNotNull();
+        assertThat(report.iterations()).isBetween(250L, 500L);
+        assertThat(applicationAvailability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(customerRepository.findAll())
+                .noneMatch(customer -> customer.getEmail().startsWith("warmup."));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GeneratedJsonHttpMessageConverterTest {
+
+    private static final Type RESPONSE_LIST = ResolvableType.forClassWithGenerics(List.class, CustomerResponseDTO.class).getType();
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final GeneratedJsonHttpMessageConverter converter =
+            new GeneratedJsonHttpMessageConverter(JsonCodecConfig.codecs(), new MappingJackson2HttpMessageConverter(objectMapper));
+
+    @Test
+    void write_ShouldWriteSameBytesAsJackson() throws IOException {
+        List<CustomerResponseDTO> responses = List.of(
+                new CustomerResponseDTO(UUID.randomUUID(), "John", "Doe", "john.doe@example.com"),
+                new CustomerResponseDTO(null, "Zoë \"Q\" \\ /", "Tab\tNew\nLine\u0001\u007f", null),
+                new CustomerResponseDTO(new UUID(0, -1), "日本 😀", "\uD800", ""));
+
+        assertThat(write(responses, RESPONSE_LIST)).isEqualTo(objectMapper.writeValueAsBytes(responses));
+        assertThat(write(responses.get(1), CustomerResponseDTO.class)).isEqualTo(objectMapper.writeValueAsBytes(responses.get(1)));
+
+        CustomerSearchDTO search = new CustomerSearchDTO("Jon", null, "doe@*");
+        search.setPhonetic(true);
+        assertThat(write(search, CustomerSearchDTO.class)).isEqualTo(objectMapper.writeValueAsBytes(search));
+        search.setMaxEditDistance(2);
+        assertThat(write(search, CustomerSearchDTO.class)).isEqualTo(objectMapper.writeValueAsBytes(search));
+    }
+
+    @Test
+    void write_ShouldFallBackToJacksonForListsOfOtherTypes() throws IOException {
+        List<Object> mixed = new ArrayList<>();
+        mixed.add(new CustomerResponseDTO(UUID.randomUUID(), "John", "Doe", "john.doe@example.com"));
+        mixed.add(Map.of("error", "not a customer"));
+
+        assertThat(converter.canWrite(ArrayList.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(Map.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canWrite(ResolvableType.forClassWithGenerics(List.class, String.class).getType(),
+                ArrayList.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(write(mixed, ArrayList.class)).isEqualTo(objectMapper.writeValueAsBytes(mixed));
+    }
+
+    @Test
+    void read_ShouldReadLikeJackson() throws IOException {
+        CustomerRequestDTO request = (CustomerRequestDTO) read(objectMapper.writeValueAsString(
+                new CustomerRequestDTO("Zoë 😀", "O\"Brien\n", "zoe@example.com")), CustomerRequestDTO.class);
+        assertThat(request.getFirstName()).isEqualTo("Zoë 😀");
+        assertThat(request.getLastName()).isEqualTo("O\"Brien\n");
+        assertThat(request.getEmail()).isEqualTo("zoe@example.com");
+
+        String json = " {\"unknown\": {\"nested\": [1, \"x\", null]}, \"firstName\": 12, \"fir\\u0073tName\": \"Jon\","
+                + " \"maxEditDistance\": \"1\", \"phonetic\": \"true\", \"email\": null} ";
+        CustomerSearchDTO search = (CustomerSearchDTO) read(json, CustomerSearchDTO.class);
+        CustomerSearchDTO expected = objectMapper.readValue(json, CustomerSearchDTO.class);
+        assertThat(search).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(search.getFirstName()).isEqualTo("Jon");
+        assertThat(search.getMaxEditDistance()).isEqualTo(1);
+        assertThat(search.isPhonetic()).isTrue();
+    }
+
+    @Test
+    void read_ShouldRejectMalformedJson() {
+        assertThatThrownBy(() -> read("{\"firstName\": \"John\",}", CustomerRequestDTO.class))
+                .isInstanceOf(HttpMessageNotReadableException.class)
+                .hasMessageContaining("JSON parse error");
+        assertThatThrownBy(() -> read("[]", CustomerRequestDTO.class))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+        assertThatThrownBy(() -> read("{\"maxEditDistance\": \"two\"}", CustomerSearchDTO.class))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+
+    @Test
+    void canRead_ShouldOnlyReadCodecTypesInUtf8() {
+        assertThat(converter.canRead(CustomerRequestDTO.class, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(CustomerResponseDTO.class, null)).isTrue();
+        assertThat(converter.canRead(CustomerOperationDTO.class, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(RESPONSE_LIST, null, MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(converter.canRead(CustomerRequestDTO.class,
+                new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_16))).isFalse();
+    }
+
+    private byte[] write(Object value, Type type) throws IOException {
+        MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+        converter.write(value, type, MediaType.APPLICATION_JSON, outputMessage);
+        assertThat(outputMessage.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        return outputMessage.getBodyAsBytes();
+    }
+
+    private Object read(String json, Class<?> type) throws IOException {
+        MockHttpInputMessage inputMessage = new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8));
+        inputMessage.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return converter.read(type, null, inputMessage);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.demo;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the membership filter tests against the log-structured backend, whose customers are not in the customers table
+ */
+@ActiveProfiles("logstore")
+@TestPropertySource(properties = "customers.logstore.directory=${java.io.tmpdir}/customer-logstore-membership-filter-test")
+public class LogStructuredCustomerMembershipFilterTest extends CustomerMembershipFilterTest {
+}
@@ -0,0 +1,15 @@
+package com.example.demo;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Runs the repository tests against the log-structured backend
+ */
+@ActiveProfiles("logstore")
+@TestPropertySource(properties = {
+        "customers.logstore.directory=${java.io.tmpdir}/customer-logstore-test",
+        "customers.logstore.region-size=1048576"
+})
+public class LogStructuredCustomerRepositoryTest extends CustomerRepositoryTest {
+}
@@ -0,0 +1,123 @@
+package com.example.demo;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.StatementCallback;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+public class RequestDeadlineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockBean
+    private ClientRegistrationRepository clientRegistrationRepository;
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void search_ShouldFailWith504AndBeCounted_WhenDeadlineHasPassed() throws Exception {
+        double exceeded = exceededCount("searchCustomers");
+
+        mockMvc.perform(get("/api/customers").header(RequestDeadlineInterceptor.TIMEOUT_HEADER, "0"))
+                .andExpect(status().isGatewayTimeout())
+                .andExpect(jsonPath("$.error").value("Request deadline exceeded"));
+        mockMvc.perform(get("/api/customers").header(RequestDeadlineInterceptor.TIMEOUT_HEADER, "5s"))
+                .andExpect(status().isOk());
+
+        assertThat(exceededCount("searchCustomers")).isEqualTo(exceeded + 1);
+        assertThat(RequestDeadline.current()).isNull();
+    }
+
+    @Test
+    void transactions_ShouldTimeOutAtTheDeadline() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> assertThat(entityManagerHolder().hasTimeout()).isFalse());
+
+        RequestDeadline.set(new RequestDeadline("test", Duration.ofSeconds(3)));
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(entityManagerHolder().getTimeToLiveInSeconds()).isBetween(1, 3));
+        transactionTemplate.setTimeout(1);
+        transactionTemplate.executeWithoutResult(status ->
+                assertThat(entityManagerHolder().getTimeToLiveInSeconds()).isEqualTo(1));
+    }
+
+    @Test
+    void jdbcTemplate_ShouldLimitQueryTimeoutToTheDeadline() {
+        RequestDeadlineJdbcTemplate jdbcTemplate = new RequestDeadlineJdbcTemplate(dataSource);
+        StatementCallback<Integer> queryTimeout = statement -> statement.getQueryTimeout();
+        assertThat(jdbcTemplate.execute(queryTimeout)).isZero();
+
+        RequestDeadline.set(new RequestDeadline("test", Duration.ofSeconds(3)));
+        assertThat(jdbcTemplate.execute(queryTimeout)).isBetween(1, 3);
+
+        RequestDeadline.set(new RequestDeadline("test", Duration.ZERO));
+        assertThatThrownBy(() -> jdbcTemplate.execute(queryTimeout))
+                .isInstanceOf(RequestDeadlineExceededException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void timeout_ShouldUseEndpointTimeoutShortenedByHeader() {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ofSeconds(30),
+                Map.of("searchCustomers", Duration.ofSeconds(10)), mock(ObjectProvider.class));
+
+        assertThat(interceptor.timeout("searchCustomers", null)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(interceptor.timeout("getCustomerById", null)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(interceptor.timeout("searchCustomers", "2s")).isEqualTo(Duration.ofSeconds(2));
+        assertThat(interceptor.timeout("searchCustomers", "1500")).isEqualTo(Duration.ofMillis(1500));
+        // clients may not extend the endpoint's timeout
+        assertThat(interceptor.timeout("searchCustomers", "1m")).isEqualTo(Duration.ofSeconds(10));
+        assertThat(interceptor.timeout("searchCustomers", "soon")).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    private EntityManagerHolder entityManagerHolder() {
+        return (EntityManagerHolder) TransactionSynchronizationManager.getResource(entityManagerFactory);
+    }
+
+    private double exceededCount(String endpoint) {
+        return meterRegistry.counter("customers.requests.deadline.exceeded", "endpoint", endpoint).count();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * SQL statements executed and bytes allocated by the current thread while running a block.
+ * Requires the DataSource to be wrapped in a {@link StatementCountingDataSource},
+ * see {@link StatementCountingConfiguration}.
+ */
+public class ResourceUsage {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @FunctionalInterface
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    private final long statements;
+    private final long allocatedBytes;
+
+    private ResourceUsage(long statements, long allocatedBytes) {
+        this.statements = statements;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Run the block on the current thread and measure what it used
+     */
+    public static ResourceUsage measure(Block block) throws Exception {
+        long statementsBefore = StatementCountingDataSource.currentThreadCount();
+        long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        block.run();
+        long allocatedAfter = threadMXBean.getCurrentThreadAllocatedBytes();
+        long statementsAfter = StatementCountingDataSource.currentThreadCount();
+        return new ResourceUsage(statementsAfter - statementsBefore, allocatedAfter - allocatedBefore);
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return statements + " statements, " + allocatedBytes / 1024 + " KiB allocated";
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the repository tests against the sharded backend, plus the cross-shard behavior
+ */
+@ActiveProfiles("sharded")
+@TestPropertySource(properties = "customers.shards.url=jdbc:h2:mem:shard-test-{shard};DB_CLOSE_DELAY=-1")
+public class ShardedCustomerRepositoryTest extends CustomerRepositoryTest {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerOperationService operationService;
+
+    @Test
+    public void testFindAllPagedMergesShardsInOrder() {
+        for (int i = 9; i >= 0; i--) {
+            customerRepository.save(customer("Customer" + i, "customer" + i + "@example.com", null));
+        }
+
+        Page<Customer> page = customerRepository.findAll(PageRequest.of(1, 3, Sort.by("firstName")));
+
+        assertThat(page.getContent()).extracting(Customer::getFirstName)
+                .containsExactly("Customer3", "Customer4", "Customer5");
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        List<Customer> descending = customerRepository.findAll(Sort.by(Sort.Direction.DESC, "firstName"));
+        assertThat(descending).extracting(Customer::getFirstName).startsWith("Customer9", "Customer8");
+    }
+
+    @Test
+    public void testGithubUsernameIsUniqueAcrossShards() {
+        Customer first = customerRepository.save(customer("John", "john.sharded@example.com", "john-gh"));
+
+        assertThatThrownBy(() -> customerRepository.save(customer("Johnny", "johnny.sharded@example.com", "john-gh")))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(customerRepository.findByGithubUsername("john-gh")).get()
+                .extracting(Customer::getId).isEqualTo(first.getId());
+
+        first.setGithubUsername("john-renamed");
+        customerRepository.save(first);
+        assertThat(customerRepository.findByGithubUsername("john-gh")).isEmpty();
+        assertThat(customerRepository.findByGithubUsername("john-renamed")).isPresent();
+    }
+
+    @Test
+    public void testEmailIsUniqueAcrossShards() {
+        Customer first = customerRepository.save(customer("John", "John.Unique@example.com", null));
+
+        // new customers get random ids, so with 4 shards most of them land on another shard than the first
+        for (int i = 0; i < 16; i++) {
+            assertThatThrownBy(() -> customerRepository.save(customer("Johnny", " john.unique@EXAMPLE.com", null)))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+        }
+
+        first.setEmail("john.renamed@example.com");
+        customerRepository.save(first);
+        Customer second = customerRepository.save(customer("Johnny", "john.unique@example.com", null));
+        assertThat(customerRepository.findByEmailNormalized("john.unique@example.com")).get()
+                .extracting(Customer::getId).isEqualTo(second.getId());
+
+        customerRepository.deleteById(second.getId());
+        assertThat(customerRepository.save(customer("Jack", "JOHN.unique@example.com", null)).getId()).isNotNull();
+    }
+
+    @Test
+    public void testOperationsAreRejectedSinceShardWritesCannotBeRolledBack() {
+        CustomerOperationDTO create = new CustomerOperationDTO(CustomerOperationDTO.Type.CREATE, null,
+                "Grace", "Hopper", "grace.operations@example.com");
+
+        assertThat(operationService.isTransactional()).isFalse();
+        assertThatThrownBy(() -> operationService.executeOperations(List.of(create), 1, null))
+                .isInstanceOf(UnsupportedOperationException.class);
+        assertThat(customerRepository.findByEmailNormalized("grace.operations@example.com")).isEmpty();
+    }
+
+    private static Customer customer(String firstName, String email, String githubUsername) {
+        Customer customer = new Customer();
+        customer.setFirstName(firstName);
+        customer.setLastName("Doe");
+        customer.setEmail(email);
+        customer.setGithubUsername(githubUsername);
+        return customer;
+    }
+}